@@ -352,3 +352,30 @@ CHANGE COLUMN `author` `user_id` INT(11) NOT NULL COMMENT '修改用户' ;
 
 ALTER TABLE `job_info`
 CHANGE COLUMN `increment_type` `increment_type` TINYINT(4) NULL DEFAULT 0 COMMENT '增量类型' ;
+
+-- ----------------------------
+-- Table structure for job_schedule_partition
+-- ----------------------------
+DROP TABLE IF EXISTS `job_schedule_partition`;
+CREATE TABLE `job_schedule_partition`  (
+  `partition_id` int(11) NOT NULL COMMENT '调度分区，job_info.id % 分区数',
+  `owner` varchar(191) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '持有分区的调度中心节点',
+  `lease_expire_time` bigint(13) NOT NULL DEFAULT 0 COMMENT '租约过期时间',
+  PRIMARY KEY (`partition_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
+
+-- ----------------------------
+-- Table structure for job_fail_event
+-- ----------------------------
+DROP TABLE IF EXISTS `job_fail_event`;
+CREATE TABLE `job_fail_event`  (
+  `log_id` bigint(20) NOT NULL COMMENT '失败的调度日志ID',
+  `status` tinyint(4) NOT NULL DEFAULT 0 COMMENT '状态：0-待处理、1-处理中，处理完成即删除',
+  `retried` tinyint(4) NOT NULL DEFAULT 0 COMMENT '失败重试已触发，日志告警状态已锁定',
+  `attempts` int(11) NOT NULL DEFAULT 0 COMMENT '处理次数',
+  `alarm_sent` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NULL DEFAULT NULL COMMENT '已告警成功的邮箱，告警重试时跳过',
+  `next_time` bigint(13) NOT NULL DEFAULT 0 COMMENT '下次处理时间',
+  `update_time` bigint(13) NOT NULL DEFAULT 0 COMMENT '更新时间',
+  PRIMARY KEY (`log_id`) USING BTREE,
+  INDEX `I_status_next_time`(`status`, `next_time`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_general_ci ROW_FORMAT = Dynamic;
@@ -0,0 +1,67 @@
+package com.wugui.datax.admin.core.cron;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * next fire time lookup: parse per call (the old scheduler path) vs CronExpression parsed once vs CompiledCron
+ *
+ * mvn -P benchmark -pl datax-admin test-compile exec:exec -Dbenchmark=CompiledCronBenchmark
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CompiledCronBenchmark {
+
+    @Param({"0 */15 9-17 ? * MON-FRI", "*/5 * * * * ?", "0 0 23 L * ?", "15,45 10 */3 * 1-6 ? 2026-2030"})
+    String cron;
+
+    private CronExpression cronExpression;
+    private CompiledCron compiledCron;
+    private long baseTime;
+    private int i;
+
+    @Setup
+    public void setUp() throws ParseException {
+        cronExpression = new CronExpression(cron);
+        compiledCron = CompiledCron.compile(cron);
+        baseTime = System.currentTimeMillis();
+    }
+
+    private long fromTime() {
+        // a different start each call, within about a year
+        return baseTime + (i++ & 0xFFFF) * 7919L * 61;
+    }
+
+    @Benchmark
+    public Date parsePerCall() throws ParseException {
+        return new CronExpression(cron).getNextValidTimeAfter(new Date(fromTime()));
+    }
+
+    @Benchmark
+    public Date cronExpression() {
+        return cronExpression.getNextValidTimeAfter(new Date(fromTime()));
+    }
+
+    @Benchmark
+    public long compiledCron() {
+        return compiledCron.next(fromTime());
+    }
+
+}
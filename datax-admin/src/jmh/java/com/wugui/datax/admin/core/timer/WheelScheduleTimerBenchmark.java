@@ -0,0 +1,104 @@
+package com.wugui.datax.admin.core.timer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * timing wheel insert and expire throughput, 100k+ pending triggers spread over the 5s pre-read window
+ *
+ * mvn -P benchmark -pl datax-admin test-compile exec:exec -Dbenchmark=WheelScheduleTimerBenchmark
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WheelScheduleTimerBenchmark {
+
+    private static final int PRE_READ_MS = 5000;
+
+    /**
+     * push into a wheel already holding the pending triggers, not started, nothing expires
+     */
+    @State(Scope.Thread)
+    public static class InsertState {
+        @Param({"100000", "1000000"})
+        int pending;
+
+        WheelScheduleTimer timer;
+        long baseTime;
+        int jobId;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            timer = new WheelScheduleTimer(1, 64, id -> { });
+            baseTime = System.currentTimeMillis() + 1000;
+            for (jobId = 0; jobId < pending; jobId++) {
+                timer.push(jobId, baseTime + jobId % PRE_READ_MS);
+            }
+        }
+    }
+
+    /**
+     * all pending triggers due, drained by the worker loop; the wait for them to come due is in the setup
+     */
+    @State(Scope.Thread)
+    public static class ExpireState {
+        static final int PENDING = 100000;
+        static final int SPREAD_MS = 2000;
+
+        WheelScheduleTimer timer;
+        int fired;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws InterruptedException {
+            fired = 0;
+            timer = new WheelScheduleTimer(1, 64, id -> fired++);
+            long baseTime = System.currentTimeMillis() + 1;
+            for (int i = 0; i < PENDING; i++) {
+                timer.push(i, baseTime + i % SPREAD_MS);
+            }
+            TimeUnit.MILLISECONDS.sleep(baseTime + SPREAD_MS + 1 - System.currentTimeMillis());
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            if (fired != PENDING) {
+                throw new IllegalStateException("fired " + fired + " of " + PENDING);
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void insert(InsertState state) {
+        int jobId = state.jobId++;
+        state.timer.push(jobId, state.baseTime + jobId % PRE_READ_MS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = 1)
+    @Measurement(iterations = 10, batchSize = 1)
+    @OperationsPerInvocation(ExpireState.PENDING)
+    public int expire(ExpireState state) throws InterruptedException {
+        while (state.fired < ExpireState.PENDING) {
+            state.timer.advance(0);
+        }
+        return state.fired;
+    }
+
+}
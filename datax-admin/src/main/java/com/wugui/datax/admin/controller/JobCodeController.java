@@ -1,6 +1,7 @@
 package com.wugui.datax.admin.controller;
 
 import com.wugui.datatx.core.biz.model.ReturnT;
+import com.wugui.datax.admin.core.cache.JobSnapshotCache;
 import com.wugui.datax.admin.core.util.I18nUtil;
 import com.wugui.datax.admin.entity.JobInfo;
 import com.wugui.datax.admin.entity.JobLogGlue;
@@ -54,6 +55,7 @@ public class JobCodeController {
 
         existsJobInfo.setUpdateTime(new Date());
         jobInfoMapper.update(existsJobInfo);
+        JobSnapshotCache.getInstance().invalidateJobInfo(existsJobInfo.getId());
 
         // log old code
         JobLogGlue jobLogGlue = new JobLogGlue();
@@ -2,6 +2,8 @@ package com.wugui.datax.admin.controller;
 
 import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datatx.core.enums.RegistryConfig;
+import com.wugui.datax.admin.core.cache.JobSnapshotCache;
+import com.wugui.datax.admin.core.thread.JobRegistryMonitorHelper;
 import com.wugui.datax.admin.core.util.I18nUtil;
 import com.wugui.datax.admin.entity.JobGroup;
 import com.wugui.datax.admin.entity.JobRegistry;
@@ -107,12 +109,13 @@ public class JobGroupController {
         }
 
         int ret = jobGroupMapper.update(jobGroup);
+        JobSnapshotCache.getInstance().invalidateJobGroup(jobGroup.getId());
         return (ret > 0) ? ReturnT.SUCCESS : ReturnT.FAIL;
     }
 
     private List<String> findRegistryByAppName(String appNameParam) {
         HashMap<String, List<String>> appAddressMap = new HashMap<>();
-        List<JobRegistry> list = jobRegistryMapper.findAll(RegistryConfig.DEAD_TIMEOUT, new Date());
+        List<JobRegistry> list = jobRegistryMapper.findAll(JobRegistryMonitorHelper.LEASE_TIMEOUT_SECONDS, new Date());
         if (list != null) {
             for (JobRegistry item : list) {
                 if (RegistryConfig.RegistType.EXECUTOR.name().equals(item.getRegistryGroup())) {
@@ -148,6 +151,7 @@ public class JobGroupController {
         }
 
         int ret = jobGroupMapper.remove(id);
+        JobSnapshotCache.getInstance().invalidateJobGroup(id);
         return (ret > 0) ? ReturnT.SUCCESS : ReturnT.FAIL;
     }
 
@@ -3,7 +3,7 @@ package com.wugui.datax.admin.controller;
 
 import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datatx.core.util.DateUtil;
-import com.wugui.datax.admin.core.cron.CronExpression;
+import com.wugui.datax.admin.core.cron.CronCache;
 import com.wugui.datax.admin.core.thread.JobTriggerPoolHelper;
 import com.wugui.datax.admin.core.trigger.TriggerTypeEnum;
 import com.wugui.datax.admin.core.util.I18nUtil;
@@ -102,15 +102,9 @@ public class JobInfoController extends BaseController{
     public ReturnT<List<String>> nextTriggerTime(String cron) {
         List<String> result = new ArrayList<>();
         try {
-            CronExpression cronExpression = new CronExpression(cron);
-            Date lastTime = new Date();
-            for (int i = 0; i < 5; i++) {
-                lastTime = cronExpression.getNextValidTimeAfter(lastTime);
-                if (lastTime != null) {
-                    result.add(DateUtil.formatDateTime(lastTime));
-                } else {
-                    break;
-                }
+            long[] nextTimes = CronCache.getInstance().compile(cron).nextN(System.currentTimeMillis(), 5);
+            for (long nextTime : nextTimes) {
+                result.add(DateUtil.formatDateTime(new Date(nextTime)));
             }
         } catch (ParseException e) {
             return new ReturnT<>(ReturnT.FAIL_CODE, I18nUtil.getString("jobinfo_field_cron_invalid"));
@@ -0,0 +1,124 @@
+package com.wugui.datax.admin.core.cache;
+
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * short-lived executor health, by the last beat or trigger outcome of this admin node
+ *
+ *      a、an executor that answered within ALIVE_TTL is alive, failover routes to it with no beat;
+ *      b、an executor whose rpc failed within DEAD_TTL is dead, failover / busyover do not beat it;
+ *      c、a busy rpc server answered, but would reject a beat too, it changes nothing.
+ */
+public class ExecutorHealthCache {
+
+    private static ExecutorHealthCache instance = new ExecutorHealthCache();
+
+    public static ExecutorHealthCache getInstance() {
+        return instance;
+    }
+
+    private static final long ALIVE_TTL = TimeUnit.SECONDS.toMillis(5);
+    private static final long DEAD_TTL = TimeUnit.SECONDS.toMillis(10);
+
+    private static class Health {
+        private final boolean alive;
+        private final long updateTime;
+
+        private Health(boolean alive, long updateTime) {
+            this.alive = alive;
+            this.updateTime = updateTime;
+        }
+    }
+
+    private final ConcurrentMap<String, Health> healths = new ConcurrentHashMap<>();
+
+    private final AtomicLong aliveHits = new AtomicLong();
+    private final AtomicLong deadSkips = new AtomicLong();
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong probeTimeouts = new AtomicLong();
+
+    /**
+     * executor answered a beat or a trigger
+     */
+    public void alive(String address) {
+        healths.put(address, new Health(true, System.currentTimeMillis()));
+    }
+
+    /**
+     * rpc to the executor failed
+     */
+    public void failure(String address, Throwable e) {
+        if (e != null && XxlRpcResponse.isServerBusy(e.getMessage())) {
+            return;
+        }
+        healths.put(address, new Health(false, System.currentTimeMillis()));
+    }
+
+    public void remove(String address) {
+        healths.remove(address);
+    }
+
+    public boolean isAlive(String address) {
+        Health health = healths.get(address);
+        return health != null && health.alive && System.currentTimeMillis() - health.updateTime <= ALIVE_TTL;
+    }
+
+    public boolean isDead(String address) {
+        Health health = healths.get(address);
+        return health != null && !health.alive && System.currentTimeMillis() - health.updateTime <= DEAD_TTL;
+    }
+
+    /**
+     * drop outdated health, by the registry monitor
+     */
+    public void expire() {
+        long expireTime = System.currentTimeMillis() - Math.max(ALIVE_TTL, DEAD_TTL);
+        healths.entrySet().removeIf(item -> item.getValue().updateTime < expireTime);
+    }
+
+    // ---------------------- metrics, by the beat fan-out ----------------------
+
+    public void recordAliveHit() {
+        aliveHits.incrementAndGet();
+    }
+
+    public void recordDeadSkip() {
+        deadSkips.incrementAndGet();
+    }
+
+    public void recordProbe(boolean timeout) {
+        probes.incrementAndGet();
+        if (timeout) {
+            probeTimeouts.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        int alive = 0;
+        int dead = 0;
+        for (String address : healths.keySet()) {
+            if (isAlive(address)) {
+                alive++;
+            } else if (isDead(address)) {
+                dead++;
+            }
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("alive", alive);
+        metrics.put("dead", dead);
+        metrics.put("aliveHits", aliveHits.get());
+        metrics.put("deadSkips", deadSkips.get());
+        metrics.put("probes", probes.get());
+        metrics.put("probeTimeouts", probeTimeouts.get());
+        return metrics;
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.wugui.datax.admin.core.cache;
+
+import com.wugui.datatx.core.enums.RegistryConfig;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * in-memory executor load snapshot, for load aware routing
+ *
+ *      a、cpu / memory usage and load average, updated by each registry beat (AdminBizImpl.registry),
+ *         and by the registry monitor from db for beats sent to other admin nodes;
+ *      b、in-flight jobs per executor, counted from route to callback by this admin node, by log id;
+ *      c、a beat snapshot older than the dead timeout is unknown, a db snapshot older than its lease bound too,
+ *         an in-flight job with no callback for a long time is dropped.
+ */
+public class ExecutorLoadCache {
+
+    private static ExecutorLoadCache instance = new ExecutorLoadCache();
+
+    public static ExecutorLoadCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * in-flight job without callback, dropped after it
+     */
+    private static final long IN_FLIGHT_EXPIRE = TimeUnit.HOURS.toMillis(6);
+
+    public static class ExecutorLoad {
+        private final double cpuUsage;
+        private final double memoryUsage;
+        private final double loadAverage;
+        private final long updateTime;
+        private final long maxAge;
+
+        private ExecutorLoad(double cpuUsage, double memoryUsage, double loadAverage, long updateTime, long maxAge) {
+            this.cpuUsage = cpuUsage;
+            this.memoryUsage = memoryUsage;
+            this.loadAverage = loadAverage;
+            this.updateTime = updateTime;
+            this.maxAge = maxAge;
+        }
+
+        public double getCpuUsage() {
+            return cpuUsage;
+        }
+
+        public double getMemoryUsage() {
+            return memoryUsage;
+        }
+
+        public double getLoadAverage() {
+            return loadAverage;
+        }
+    }
+
+    private static class InFlightJob {
+        private final String address;
+        private final long dispatchTime;
+
+        private InFlightJob(String address, long dispatchTime) {
+            this.address = address;
+            this.dispatchTime = dispatchTime;
+        }
+    }
+
+    private final ConcurrentMap<String, ExecutorLoad> loads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> inFlights = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, InFlightJob> inFlightJobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong beats = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+
+    // ---------------------- load ----------------------
+
+    /**
+     * registry beat, a snapshot older than the cached one is ignored
+     */
+    public void update(String address, double cpuUsage, double memoryUsage, double loadAverage, long updateTime) {
+        update(address, cpuUsage, memoryUsage, loadAverage, updateTime, RegistryConfig.DEAD_TIMEOUT * 1000L);
+    }
+
+    /**
+     * snapshot unknown once older than maxAge, e.g. read from db, as old as its row
+     */
+    public void update(String address, double cpuUsage, double memoryUsage, double loadAverage, long updateTime, long maxAge) {
+        ExecutorLoad load = new ExecutorLoad(cpuUsage, memoryUsage, loadAverage, updateTime, maxAge);
+        loads.merge(address, load, (old, value) -> value.updateTime >= old.updateTime ? value : old);
+        beats.incrementAndGet();
+    }
+
+    public void remove(String address) {
+        loads.remove(address);
+    }
+
+    /**
+     * load snapshot, null if unknown or older than its max age
+     */
+    public ExecutorLoad getLoad(String address) {
+        ExecutorLoad load = loads.get(address);
+        if (load == null || System.currentTimeMillis() - load.updateTime > load.maxAge) {
+            return null;
+        }
+        return load;
+    }
+
+
+    // ---------------------- in-flight ----------------------
+
+    public int getInFlight(String address) {
+        AtomicInteger inFlight = inFlights.get(address);
+        return inFlight != null ? inFlight.get() : 0;
+    }
+
+    /**
+     * trigger routed to the executor
+     */
+    public void dispatch(long logId, String address) {
+        InFlightJob old = inFlightJobs.put(logId, new InFlightJob(address, System.currentTimeMillis()));
+        if (old != null) {
+            decrement(old.address);
+        }
+        inFlights.computeIfAbsent(address, k -> new AtomicInteger()).incrementAndGet();
+        dispatched.incrementAndGet();
+    }
+
+    /**
+     * trigger not run, or job callback; a log id dispatched by another admin node is ignored
+     */
+    public void finish(long logId) {
+        InFlightJob job = inFlightJobs.remove(logId);
+        if (job != null) {
+            decrement(job.address);
+            finished.incrementAndGet();
+        }
+    }
+
+    private void decrement(String address) {
+        AtomicInteger inFlight = inFlights.get(address);
+        if (inFlight != null) {
+            inFlight.updateAndGet(value -> value > 0 ? value - 1 : 0);
+        }
+    }
+
+    /**
+     * drop in-flight jobs whose callback never came, by the registry monitor
+     */
+    public void expire() {
+        long expireTime = System.currentTimeMillis() - IN_FLIGHT_EXPIRE;
+        for (Map.Entry<Long, InFlightJob> item : inFlightJobs.entrySet()) {
+            if (item.getValue().dispatchTime < expireTime && inFlightJobs.remove(item.getKey(), item.getValue())) {
+                decrement(item.getValue().address);
+                expired.incrementAndGet();
+            }
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> executors = new LinkedHashMap<>();
+        for (Map.Entry<String, ExecutorLoad> item : loads.entrySet()) {
+            Map<String, Object> executor = new LinkedHashMap<>();
+            executor.put("cpuUsage", item.getValue().cpuUsage);
+            executor.put("memoryUsage", item.getValue().memoryUsage);
+            executor.put("loadAverage", item.getValue().loadAverage);
+            executor.put("inFlight", getInFlight(item.getKey()));
+            executor.put("fresh", getLoad(item.getKey()) != null);
+            executors.put(item.getKey(), executor);
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("beats", beats.get());
+        metrics.put("dispatched", dispatched.get());
+        metrics.put("finished", finished.get());
+        metrics.put("expired", expired.get());
+        metrics.put("inFlight", inFlightJobs.size());
+        metrics.put("executors", executors);
+        return metrics;
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.wugui.datax.admin.core.cache;
+
+import com.wugui.datax.admin.entity.JobInfo;
+import com.wugui.datax.admin.util.JSONUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * trigger-ready job json cache, keyed by jobId and job version
+ *
+ *      a、the job json is parsed and its reader/writer username/password decrypted once per job version,
+ *         version = (updateTime, glueUpdatetime, hash of the encrypted json);
+ *      b、repeated fires of the same version copy the cached chars into a new string, no json parser and no decrypt;
+ *      c、the decrypted chars are zeroed when the entry is replaced, evicted or cleared.
+ *
+ * the string handed to the trigger param can not be zeroed, it lives only as long as the trigger.
+ */
+public class JobJsonCache {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private static JobJsonCache instance = new JobJsonCache(DEFAULT_CAPACITY, jobJson -> JSONUtils.changeJson(jobJson, JSONUtils.decrypt));
+
+    public static JobJsonCache getInstance() {
+        return instance;
+    }
+
+    private static class JsonEntry {
+        private final long updateTime;
+        private final long glueUpdatetime;
+        private final int jsonHash;
+        private final char[] decrypted;
+
+        private JsonEntry(long updateTime, long glueUpdatetime, int jsonHash, char[] decrypted) {
+            this.updateTime = updateTime;
+            this.glueUpdatetime = glueUpdatetime;
+            this.jsonHash = jsonHash;
+            this.decrypted = decrypted;
+        }
+
+        private boolean sameVersion(long updateTime, long glueUpdatetime, int jsonHash) {
+            return this.updateTime == updateTime && this.glueUpdatetime == glueUpdatetime && this.jsonHash == jsonHash;
+        }
+
+        private void zero() {
+            Arrays.fill(decrypted, '\0');
+        }
+    }
+
+    private final int capacity;
+    private final Function<String, String> decryptor;
+    private final LinkedHashMap<Integer, JsonEntry> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public JobJsonCache(final int capacity, Function<String, String> decryptor) {
+        this.capacity = capacity;
+        this.decryptor = decryptor;
+        this.cache = new LinkedHashMap<Integer, JsonEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, JsonEntry> eldest) {
+                if (size() > capacity) {
+                    evictions.incrementAndGet();
+                    eldest.getValue().zero();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * decrypted job json of the job version
+     *
+     * @param jobInfo
+     * @return
+     */
+    public String getJobJson(JobInfo jobInfo) {
+        String jobJson = jobInfo.getJobJson();
+        if (jobJson == null) {
+            return null;
+        }
+        int jobId = jobInfo.getId();
+        long updateTime = time(jobInfo.getUpdateTime());
+        long glueUpdatetime = time(jobInfo.getGlueUpdatetime());
+        int jsonHash = jobJson.hashCode();
+
+        synchronized (cache) {
+            JsonEntry entry = cache.get(jobId);
+            if (entry != null && entry.sameVersion(updateTime, glueUpdatetime, jsonHash)) {
+                hits.incrementAndGet();
+                return new String(entry.decrypted);
+            }
+        }
+
+        // decrypt out of lock, a concurrent miss on the same job only decrypts twice
+        misses.incrementAndGet();
+        String decrypted = decryptor.apply(jobJson);
+        JsonEntry entry = new JsonEntry(updateTime, glueUpdatetime, jsonHash, decrypted.toCharArray());
+        synchronized (cache) {
+            JsonEntry old = cache.put(jobId, entry);
+            if (old != null) {
+                old.zero();
+            }
+        }
+        return decrypted;
+    }
+
+    private static long time(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+
+    public void invalidate(int jobId) {
+        synchronized (cache) {
+            JsonEntry old = cache.remove(jobId);
+            if (old != null) {
+                old.zero();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            for (JsonEntry entry : cache.values()) {
+                entry.zero();
+            }
+            cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("capacity", capacity);
+        metrics.put("size", size());
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("evictions", evictions.get());
+        return metrics;
+    }
+
+}
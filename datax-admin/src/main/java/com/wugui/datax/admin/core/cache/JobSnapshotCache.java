@@ -0,0 +1,151 @@
+package com.wugui.datax.admin.core.cache;
+
+import com.wugui.datatx.core.enums.IncrementTypeEnum;
+import com.wugui.datax.admin.core.conf.JobAdminConfig;
+import com.wugui.datax.admin.entity.JobGroup;
+import com.wugui.datax.admin.entity.JobInfo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * read-mostly snapshot cache of job info and job group, for the trigger hot path
+ *
+ *      a、reads are lock free, a miss or an expired entry loads from db;
+ *      b、JobServiceImpl, JobGroupController, the glue ide and the registry monitor invalidate after writing db;
+ *      c、every invalidation bumps the version, a load that raced with an invalidation is returned but not cached;
+ *      d、entries expire after datax.job.cache.expireMs, writes made by other admin nodes are seen after it.
+ *
+ * snapshots are shared, callers must not modify them.
+ * jobs with id/time increment are not cached, their start id/time is updated by every callback, maybe on another admin node.
+ */
+public class JobSnapshotCache {
+
+    private static JobSnapshotCache instance = new JobSnapshotCache();
+
+    public static JobSnapshotCache getInstance() {
+        return instance;
+    }
+
+    private static class Entry<T> {
+        private final T value;
+        private final long loadTime;
+
+        private Entry(T value, long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+
+    private final ConcurrentMap<Integer, Entry<JobInfo>> jobInfos = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Entry<JobGroup>> jobGroups = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicLong jobInfoHits = new AtomicLong();
+    private final AtomicLong jobInfoMisses = new AtomicLong();
+    private final AtomicLong jobGroupHits = new AtomicLong();
+    private final AtomicLong jobGroupMisses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * job info snapshot, null if not exists
+     *
+     * @param jobId
+     * @return
+     */
+    public JobInfo getJobInfo(int jobId) {
+        long nowTime = System.currentTimeMillis();
+        Entry<JobInfo> entry = jobInfos.get(jobId);
+        if (entry != null && nowTime - entry.loadTime < expireMs()) {
+            jobInfoHits.incrementAndGet();
+            return entry.value;
+        }
+
+        jobInfoMisses.incrementAndGet();
+        long loadVersion = version.get();
+        JobInfo jobInfo = JobAdminConfig.getAdminConfig().getJobInfoMapper().loadById(jobId);
+        if (jobInfo != null && cacheable(jobInfo)) {
+            put(jobInfos, jobId, new Entry<>(jobInfo, nowTime), loadVersion);
+        } else {
+            jobInfos.remove(jobId);
+        }
+        return jobInfo;
+    }
+
+    /**
+     * job group snapshot, the registry list is split once per snapshot
+     *
+     * @param groupId
+     * @return
+     */
+    public JobGroup getJobGroup(int groupId) {
+        long nowTime = System.currentTimeMillis();
+        Entry<JobGroup> entry = jobGroups.get(groupId);
+        if (entry != null && nowTime - entry.loadTime < expireMs()) {
+            jobGroupHits.incrementAndGet();
+            return entry.value;
+        }
+
+        jobGroupMisses.incrementAndGet();
+        long loadVersion = version.get();
+        JobGroup jobGroup = JobAdminConfig.getAdminConfig().getJobGroupMapper().load(groupId);
+        if (jobGroup != null) {
+            jobGroup.getRegistryList();     // split before shared
+            put(jobGroups, groupId, new Entry<>(jobGroup, nowTime), loadVersion);
+        } else {
+            jobGroups.remove(groupId);
+        }
+        return jobGroup;
+    }
+
+    private boolean cacheable(JobInfo jobInfo) {
+        int incrementType = jobInfo.getIncrementType();
+        return incrementType != IncrementTypeEnum.ID.getCode() && incrementType != IncrementTypeEnum.TIME.getCode();
+    }
+
+    private long expireMs() {
+        return JobAdminConfig.getAdminConfig().getJobCacheExpireMs();
+    }
+
+    private synchronized <T> void put(ConcurrentMap<Integer, Entry<T>> cache, int key, Entry<T> entry, long loadVersion) {
+        // invalidated during the load, the loaded value may be stale
+        if (version.get() == loadVersion) {
+            cache.put(key, entry);
+        }
+    }
+
+    public synchronized void invalidateJobInfo(int jobId) {
+        version.incrementAndGet();
+        invalidations.incrementAndGet();
+        jobInfos.remove(jobId);
+    }
+
+    public synchronized void invalidateJobGroup(int groupId) {
+        version.incrementAndGet();
+        invalidations.incrementAndGet();
+        jobGroups.remove(groupId);
+    }
+
+    public synchronized void clear() {
+        version.incrementAndGet();
+        jobInfos.clear();
+        jobGroups.clear();
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("version", version.get());
+        metrics.put("jobInfoSize", jobInfos.size());
+        metrics.put("jobInfoHits", jobInfoHits.get());
+        metrics.put("jobInfoMisses", jobInfoMisses.get());
+        metrics.put("jobGroupSize", jobGroups.size());
+        metrics.put("jobGroupHits", jobGroupHits.get());
+        metrics.put("jobGroupMisses", jobGroupMisses.get());
+        metrics.put("invalidations", invalidations.get());
+        return metrics;
+    }
+
+}
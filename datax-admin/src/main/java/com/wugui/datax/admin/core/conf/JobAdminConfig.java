@@ -63,9 +63,51 @@ public class JobAdminConfig implements InitializingBean, DisposableBean {
     @Value("${datax.job.triggerpool.slow.max}")
     private int triggerPoolSlowMax;
 
+    @Value("${datax.job.trigger.mode:pool}")
+    private String triggerMode;
+
+    @Value("${datax.job.trigger.pipeline.logThreads:4}")
+    private int triggerPipelineLogThreads;
+
+    @Value("${datax.job.trigger.pipeline.routeThreads:16}")
+    private int triggerPipelineRouteThreads;
+
+    @Value("${datax.job.trigger.pipeline.rpcThreads:4}")
+    private int triggerPipelineRpcThreads;
+
+    @Value("${datax.job.trigger.pipeline.rpcInFlight:2000}")
+    private int triggerPipelineRpcInFlight;
+
+    @Value("${datax.job.trigger.pipeline.persistThreads:4}")
+    private int triggerPipelinePersistThreads;
+
     @Value("${datax.job.logretentiondays}")
     private int logretentiondays;
 
+    @Value("${server.port}")
+    private int serverPort;
+
+    @Value("${datax.job.schedule.mode:lock}")
+    private String scheduleMode;
+
+    @Value("${datax.job.schedule.partition.count:16}")
+    private int schedulePartitionCount;
+
+    @Value("${datax.job.schedule.engine:wheel}")
+    private String scheduleEngine;
+
+    @Value("${datax.job.schedule.wheel.tickMs:1}")
+    private long scheduleWheelTickMs;
+
+    @Value("${datax.job.schedule.wheel.wheelSize:64}")
+    private int scheduleWheelSize;
+
+    @Value("${datax.job.cache.expireMs:10000}")
+    private long jobCacheExpireMs;
+
+    @Value("${datax.job.rpc.transport:netty}")
+    private String rpcTransport;
+
     @Value("${datasource.aes.key}")
     private String dataSourceAESKey;
 
@@ -87,6 +129,10 @@ public class JobAdminConfig implements InitializingBean, DisposableBean {
     private DataSource dataSource;
     @Resource
     private JobDatasourceMapper jobDatasourceMapper;
+    @Resource
+    private JobSchedulePartitionMapper jobSchedulePartitionMapper;
+    @Resource
+    private JobFailEventMapper jobFailEventMapper;
 
     public String getI18n() {
         return i18n;
@@ -108,10 +154,66 @@ public class JobAdminConfig implements InitializingBean, DisposableBean {
         return triggerPoolSlowMax < 100 ? 100 : triggerPoolSlowMax;
     }
 
+    public String getTriggerMode() {
+        return triggerMode;
+    }
+
+    public int getTriggerPipelineLogThreads() {
+        return triggerPipelineLogThreads < 1 ? 1 : triggerPipelineLogThreads;
+    }
+
+    public int getTriggerPipelineRouteThreads() {
+        return triggerPipelineRouteThreads < 1 ? 1 : triggerPipelineRouteThreads;
+    }
+
+    public int getTriggerPipelineRpcThreads() {
+        return triggerPipelineRpcThreads < 1 ? 1 : triggerPipelineRpcThreads;
+    }
+
+    public int getTriggerPipelineRpcInFlight() {
+        return triggerPipelineRpcInFlight < 100 ? 100 : triggerPipelineRpcInFlight;
+    }
+
+    public int getTriggerPipelinePersistThreads() {
+        return triggerPipelinePersistThreads < 1 ? 1 : triggerPipelinePersistThreads;
+    }
+
     public int getLogretentiondays() {
         return logretentiondays < 7 ? -1 : logretentiondays;
     }
 
+    public int getServerPort() {
+        return serverPort;
+    }
+
+    public String getScheduleMode() {
+        return scheduleMode;
+    }
+
+    public int getSchedulePartitionCount() {
+        return schedulePartitionCount < 1 ? 1 : schedulePartitionCount;
+    }
+
+    public String getScheduleEngine() {
+        return scheduleEngine;
+    }
+
+    public long getScheduleWheelTickMs() {
+        return scheduleWheelTickMs < 1 ? 1 : scheduleWheelTickMs;
+    }
+
+    public int getScheduleWheelSize() {
+        return scheduleWheelSize < 8 ? 8 : scheduleWheelSize;
+    }
+
+    public long getJobCacheExpireMs() {
+        return jobCacheExpireMs < 0 ? 0 : jobCacheExpireMs;
+    }
+
+    public String getRpcTransport() {
+        return rpcTransport;
+    }
+
     public JobLogMapper getJobLogMapper() {
         return jobLogMapper;
     }
@@ -144,6 +246,14 @@ public class JobAdminConfig implements InitializingBean, DisposableBean {
         return jobDatasourceMapper;
     }
 
+    public JobSchedulePartitionMapper getJobSchedulePartitionMapper() {
+        return jobSchedulePartitionMapper;
+    }
+
+    public JobFailEventMapper getJobFailEventMapper() {
+        return jobFailEventMapper;
+    }
+
     public String getDataSourceAESKey() {
         return dataSourceAESKey;
     }
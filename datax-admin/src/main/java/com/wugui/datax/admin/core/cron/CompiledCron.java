@@ -0,0 +1,267 @@
+package com.wugui.datax.admin.core.cron;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * compiled cron schedule
+ *
+ *      a、the expression is parsed once by CronExpression, then second/minute/hour/day/month/week fields are flattened into bitsets;
+ *      b、next fire time is searched on the bitsets, skipping whole years/months/days, no TreeSet or Calendar per call;
+ *      c、expressions using "L", "W" or "#" keep the parsed CronExpression as evaluator, they are still never re-parsed.
+ *
+ * instances are immutable and thread safe.
+ */
+public final class CompiledCron {
+
+    private static final int MAX_YEAR = 2999;
+
+    private final String cronExpression;
+    private final CronExpression expression;
+    private final ZoneId zoneId;
+    private final boolean compiled;
+
+    private final long secondBits;         // bit 0~59
+    private final long minuteBits;         // bit 0~59
+    private final long hourBits;           // bit 0~23
+    private final long dayOfMonthBits;     // bit 1~31
+    private final long monthBits;          // bit 1~12
+    private final long dayOfWeekBits;      // bit 1~7, 1 = Sunday, same as Calendar
+    private final boolean dayOfMonthRule;
+    private final BitSet years;
+
+    private final int firstSecond;
+    private final int firstMinute;
+
+    private CompiledCron(String cronExpression, CronExpression expression) {
+        this.cronExpression = cronExpression;
+        this.expression = expression;
+        this.zoneId = expression.getTimeZone().toZoneId();
+
+        this.secondBits = bits(expression.seconds, 0, 59);
+        this.minuteBits = bits(expression.minutes, 0, 59);
+        this.hourBits = bits(expression.hours, 0, 23);
+        this.dayOfMonthBits = bits(expression.daysOfMonth, 1, 31);
+        this.monthBits = bits(expression.months, 1, 12);
+        this.dayOfWeekBits = bits(expression.daysOfWeek, 1, 7);
+        this.dayOfMonthRule = !expression.daysOfMonth.contains(CronExpression.NO_SPEC);
+
+        this.years = new BitSet(MAX_YEAR + 1);
+        for (Integer year : expression.years) {
+            if (year >= 1970 && year <= MAX_YEAR) {
+                years.set(year);
+            }
+        }
+
+        this.firstSecond = Long.numberOfTrailingZeros(secondBits);
+        this.firstMinute = Long.numberOfTrailingZeros(minuteBits);
+
+        // special day rules are evaluated by CronExpression
+        this.compiled = !expression.lastdayOfMonth
+                && !expression.nearestWeekday
+                && !expression.lastdayOfWeek
+                && expression.nthdayOfWeek == 0
+                && secondBits != 0 && minuteBits != 0 && hourBits != 0 && monthBits != 0
+                && (dayOfMonthRule ? dayOfMonthBits != 0 : dayOfWeekBits != 0);
+    }
+
+    public static CompiledCron compile(String cronExpression) throws ParseException {
+        return new CompiledCron(cronExpression, new CronExpression(cronExpression));
+    }
+
+    public String getCronExpression() {
+        return cronExpression;
+    }
+
+    /**
+     * false when the expression falls back to CronExpression
+     *
+     * @return
+     */
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    /**
+     * same as CronExpression.getNextValidTimeAfter
+     *
+     * @param date
+     * @return
+     */
+    public Date getNextValidTimeAfter(Date date) {
+        long next = next(date.getTime());
+        return next > 0 ? new Date(next) : null;
+    }
+
+    /**
+     * next fire time after the given time, in ms, second precision
+     *
+     * @param fromTime
+     * @return -1 if the expression never fires again
+     */
+    public long next(long fromTime) {
+        if (!compiled) {
+            Date next = expression.getNextValidTimeAfter(new Date(fromTime));
+            return next != null ? next.getTime() : -1;
+        }
+
+        // the time *after* the given time, ms truncated, same as CronExpression
+        long startTime = (fromTime / 1000 + 1) * 1000;
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochMilli(startTime), zoneId);
+        while (true) {
+            LocalDateTime fireTime = search(from);
+            if (fireTime == null) {
+                return -1;
+            }
+            // daylight saving: a wall time in the gap never fires, overlap resolves to the later offset, same as CronExpression
+            if (!zoneId.getRules().getValidOffsets(fireTime).isEmpty()) {
+                long next = fireTime.atZone(zoneId).withLaterOffsetAtOverlap().toInstant().toEpochMilli();
+                if (next >= startTime) {
+                    return next;
+                }
+            }
+            from = fireTime.plusSeconds(1);
+        }
+    }
+
+    /**
+     * next n fire times after the given time, in ms
+     *
+     * @param fromTime
+     * @param n
+     * @return shorter than n if the expression stops firing
+     */
+    public long[] nextN(long fromTime, int n) {
+        long[] fireTimes = new long[n];
+        int count = 0;
+        long time = fromTime;
+        while (count < n) {
+            time = next(time);
+            if (time < 0) {
+                break;
+            }
+            fireTimes[count++] = time;
+        }
+        if (count < n) {
+            long[] result = new long[count];
+            System.arraycopy(fireTimes, 0, result, 0, count);
+            return result;
+        }
+        return fireTimes;
+    }
+
+    private LocalDateTime search(LocalDateTime from) {
+        LocalDate date = from.toLocalDate();
+        int hour = from.getHour();
+        int minute = from.getMinute();
+        int second = from.getSecond();
+
+        while (date.getYear() <= MAX_YEAR) {
+            // year
+            int year = date.getYear();
+            if (!years.get(year)) {
+                int nextYear = years.nextSetBit(year + 1);
+                if (nextYear < 0) {
+                    return null;
+                }
+                date = LocalDate.of(nextYear, 1, 1);
+                hour = minute = second = 0;
+                continue;
+            }
+
+            // month
+            int month = date.getMonthValue();
+            if (!hasBit(monthBits, month)) {
+                int nextMonth = nextBit(monthBits, month + 1);
+                date = nextMonth < 0 ? LocalDate.of(year + 1, 1, 1) : LocalDate.of(year, nextMonth, 1);
+                hour = minute = second = 0;
+                continue;
+            }
+
+            // day
+            int day = date.getDayOfMonth();
+            boolean dayMatch = dayOfMonthRule
+                    ? hasBit(dayOfMonthBits, day)
+                    : hasBit(dayOfWeekBits, date.getDayOfWeek().getValue() % 7 + 1);
+            if (dayMatch) {
+                int secondOfDay = nextSecondOfDay(hour, minute, second);
+                if (secondOfDay >= 0) {
+                    return date.atTime(secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60);
+                }
+            }
+
+            if (dayOfMonthRule) {
+                int nextDay = nextBit(dayOfMonthBits, day + 1);
+                date = (nextDay < 0 || nextDay > date.lengthOfMonth())
+                        ? date.withDayOfMonth(1).plusMonths(1)
+                        : date.withDayOfMonth(nextDay);
+            } else {
+                date = date.plusDays(1);
+            }
+            hour = minute = second = 0;
+        }
+        return null;
+    }
+
+    /**
+     * first matched second of day at or after hh:mm:ss, -1 if none left in this day
+     */
+    private int nextSecondOfDay(int hour, int minute, int second) {
+        int nextHour = nextBit(hourBits, hour);
+        if (nextHour < 0) {
+            return -1;
+        }
+        if (nextHour == hour) {
+            int nextMinute = nextBit(minuteBits, minute);
+            if (nextMinute == minute) {
+                int nextSecond = nextBit(secondBits, second);
+                if (nextSecond >= 0) {
+                    return hour * 3600 + minute * 60 + nextSecond;
+                }
+                nextMinute = nextBit(minuteBits, minute + 1);
+            }
+            if (nextMinute >= 0) {
+                return hour * 3600 + nextMinute * 60 + firstSecond;
+            }
+            nextHour = nextBit(hourBits, hour + 1);
+            if (nextHour < 0) {
+                return -1;
+            }
+        }
+        return nextHour * 3600 + firstMinute * 60 + firstSecond;
+    }
+
+    private static long bits(Set<Integer> values, int min, int max) {
+        long bits = 0;
+        for (Integer value : values) {
+            if (value >= min && value <= max) {
+                bits |= 1L << value;
+            }
+        }
+        return bits;
+    }
+
+    private static boolean hasBit(long bits, int index) {
+        return (bits & (1L << index)) != 0;
+    }
+
+    private static int nextBit(long bits, int fromIndex) {
+        if (fromIndex >= 64) {
+            return -1;
+        }
+        long masked = bits & (-1L << fromIndex);
+        return masked == 0 ? -1 : Long.numberOfTrailingZeros(masked);
+    }
+
+    @Override
+    public String toString() {
+        return cronExpression;
+    }
+
+}
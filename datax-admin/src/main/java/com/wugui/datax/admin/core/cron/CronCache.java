@@ -0,0 +1,78 @@
+package com.wugui.datax.admin.core.cron;
+
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * compiled cron cache, keyed by expression string, bounded by LRU eviction
+ *
+ * invalid expressions are not cached, the ParseException is thrown to the caller every time.
+ */
+public class CronCache {
+
+    private static final int DEFAULT_CAPACITY = 2048;
+
+    private static CronCache instance = new CronCache(DEFAULT_CAPACITY);
+
+    public static CronCache getInstance() {
+        return instance;
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<String, CompiledCron> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CronCache(final int capacity) {
+        this.capacity = capacity;
+        this.cache = new LinkedHashMap<String, CompiledCron>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledCron> eldest) {
+                if (size() > capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public CompiledCron compile(String cronExpression) throws ParseException {
+        synchronized (cache) {
+            CompiledCron compiledCron = cache.get(cronExpression);
+            if (compiledCron != null) {
+                hits.incrementAndGet();
+                return compiledCron;
+            }
+        }
+
+        // compile out of lock, a concurrent miss on the same expression only compiles twice
+        misses.incrementAndGet();
+        CompiledCron compiledCron = CompiledCron.compile(cronExpression);
+        synchronized (cache) {
+            cache.put(cronExpression, compiledCron);
+        }
+        return compiledCron;
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("capacity", capacity);
+        metrics.put("size", size());
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("evictions", evictions.get());
+        return metrics;
+    }
+
+}
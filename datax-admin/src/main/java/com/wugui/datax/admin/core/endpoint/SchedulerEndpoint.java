@@ -0,0 +1,45 @@
+package com.wugui.datax.admin.core.endpoint;
+
+import com.wugui.datax.admin.core.cache.ExecutorHealthCache;
+import com.wugui.datax.admin.core.cache.ExecutorLoadCache;
+import com.wugui.datax.admin.core.cache.JobJsonCache;
+import com.wugui.datax.admin.core.cache.JobSnapshotCache;
+import com.wugui.datax.admin.core.cron.CronCache;
+import com.wugui.datax.admin.core.thread.JobFailMonitorHelper;
+import com.wugui.datax.admin.core.thread.JobLogBatchWriter;
+import com.wugui.datax.admin.core.thread.JobRegistryMonitorHelper;
+import com.wugui.datax.admin.core.thread.JobScheduleHelper;
+import com.wugui.datax.admin.core.thread.JobTriggerPoolHelper;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * scheduler runtime state, exposed at /actuator/scheduler
+ */
+@Component
+@Endpoint(id = "scheduler")
+public class SchedulerEndpoint {
+
+    @ReadOperation
+    public Map<String, Object> scheduler() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scan", JobScheduleHelper.getInstance().scanMetrics());
+        result.put("cron", CronCache.getInstance().metrics());
+        result.put("trigger", JobTriggerPoolHelper.triggerMetrics());
+        result.put("logWriter", JobLogBatchWriter.getInstance().metrics());
+        result.put("timer", JobScheduleHelper.getInstance().timerMetrics());
+        result.put("partition", JobScheduleHelper.getInstance().partitionMetrics());
+        result.put("cache", JobSnapshotCache.getInstance().metrics());
+        result.put("jobJson", JobJsonCache.getInstance().metrics());
+        result.put("executorLoad", ExecutorLoadCache.getInstance().metrics());
+        result.put("executorHealth", ExecutorHealthCache.getInstance().metrics());
+        result.put("registry", JobRegistryMonitorHelper.getInstance().metrics());
+        result.put("failMonitor", JobFailMonitorHelper.getInstance().metrics());
+        return result;
+    }
+
+}
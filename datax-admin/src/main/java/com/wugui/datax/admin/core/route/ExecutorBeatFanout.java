@@ -0,0 +1,178 @@
+package com.wugui.datax.admin.core.route;
+
+import com.wugui.datatx.core.biz.model.ReturnT;
+import com.wugui.datax.admin.core.cache.ExecutorHealthCache;
+import com.wugui.datax.rpc.remoting.invoker.call.XxlRpcInvokeCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * beat executors all at once, by callback rpc, and take the first one answering success
+ *
+ *      a、one deadline for the whole fan-out, not one rpc timeout per executor;
+ *      b、executors dead in the health cache are not beaten, unless all of them are;
+ *      c、each answer, also the ones after the deadline, updates the health cache;
+ *      d、beats are sent from a small pool, a first connect to a dead host does not hold the trigger thread.
+ */
+public class ExecutorBeatFanout {
+    private static Logger logger = LoggerFactory.getLogger(ExecutorBeatFanout.class);
+
+    private static final ThreadPoolExecutor sendPool = new ThreadPoolExecutor(
+            32,
+            32,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(2000),
+            r -> {
+                Thread thread = new Thread(r, "datax-web, admin ExecutorBeatFanout-sendPool-" + r.hashCode());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        sendPool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * send the beat by the callback executor client, the callback is set on the calling thread
+     */
+    public interface Beat {
+        void send(String address) throws Exception;
+    }
+
+    /**
+     * @return  ReturnT.content=address of the first success, ReturnT.msg=beat results
+     */
+    public static ReturnT<String> probe(List<String> addressList, String title, long timeoutMs, Beat beat) {
+        final ExecutorHealthCache healthCache = ExecutorHealthCache.getInstance();
+
+        List<String> targets = new ArrayList<>(addressList.size());
+        List<String> skipped = new ArrayList<>();
+        for (String address : addressList) {
+            if (healthCache.isDead(address)) {
+                skipped.add(address);
+            } else {
+                targets.add(address);
+            }
+        }
+        if (targets.isEmpty()) {
+            targets.addAll(skipped);
+            skipped.clear();
+        }
+        for (int i = 0; i < skipped.size(); i++) {
+            healthCache.recordDeadSkip();
+        }
+
+        // fan-out
+        final Map<String, ReturnT<String>> results = new ConcurrentHashMap<>();
+        final CompletableFuture<String> winner = new CompletableFuture<>();
+        final AtomicInteger remaining = new AtomicInteger(targets.size());
+        for (final String address : targets) {
+            final XxlRpcInvokeCallback<ReturnT<String>> callback = new XxlRpcInvokeCallback<ReturnT<String>>() {
+                @Override
+                public void onSuccess(ReturnT<String> result) {
+                    healthCache.alive(address);
+                    answer(address, result != null ? result : new ReturnT<String>(ReturnT.FAIL_CODE, null), results, winner, remaining);
+                }
+
+                @Override
+                public void onFailure(Throwable exception) {
+                    healthCache.failure(address, exception);
+                    answer(address, new ReturnT<String>(ReturnT.FAIL_CODE, "" + exception), results, winner, remaining);
+                }
+            };
+            try {
+                sendPool.execute(() -> send(address, beat, callback));
+            } catch (RejectedExecutionException e) {
+                answer(address, new ReturnT<String>(ReturnT.FAIL_CODE, "beat fan-out busy"), results, winner, remaining);
+            }
+        }
+
+        // wait for the first success, or all answers, until the deadline
+        String address = null;
+        boolean timeout = false;
+        try {
+            address = winner.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeout = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error(e.getMessage(), e);
+        }
+        healthCache.recordProbe(timeout);
+
+        // beat results, in address order
+        StringBuffer beatResultSB = new StringBuffer();
+        for (String target : targets) {
+            ReturnT<String> beatResult = results.get(target);
+            if (beatResult == null) {
+                if (address != null) {
+                    continue;
+                }
+                beatResult = new ReturnT<String>(ReturnT.FAIL_CODE, "no answer in " + timeoutMs + "ms");
+            }
+            appendResult(beatResultSB, title, target, beatResult);
+        }
+        for (String target : skipped) {
+            appendResult(beatResultSB, title, target, new ReturnT<String>(ReturnT.FAIL_CODE, "rpc failed recently, skipped"));
+        }
+
+        if (address == null) {
+            return new ReturnT<String>(ReturnT.FAIL_CODE, beatResultSB.toString());
+        }
+        ReturnT<String> routeResult = new ReturnT<String>(ReturnT.SUCCESS_CODE, beatResultSB.toString());
+        routeResult.setContent(address);
+        return routeResult;
+    }
+
+    /**
+     * on the send pool, the first rpc to an executor connects, it may block until the connect timeout
+     */
+    private static void send(String address, Beat beat, XxlRpcInvokeCallback<ReturnT<String>> callback) {
+        XxlRpcInvokeCallback.setCallback(callback);
+        try {
+            beat.send(address);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            callback.onFailure(e);
+        } finally {
+            XxlRpcInvokeCallback.removeCallback();
+        }
+    }
+
+    private static void answer(String address, ReturnT<String> result, Map<String, ReturnT<String>> results,
+                               CompletableFuture<String> winner, AtomicInteger remaining) {
+        if (results.putIfAbsent(address, result) != null) {
+            return;     // answered already, e.g. failed on send and by its future
+        }
+        if (result.getCode() == ReturnT.SUCCESS_CODE) {
+            winner.complete(address);
+        }
+        if (remaining.decrementAndGet() == 0) {
+            winner.complete(null);
+        }
+    }
+
+    public static void appendResult(StringBuffer beatResultSB, String title, String address, ReturnT<String> beatResult) {
+        beatResultSB.append((beatResultSB.length() > 0) ? "<br><br>" : "")
+                .append(title + "：")
+                .append("<br>address：").append(address)
+                .append("<br>code：").append(beatResult.getCode())
+                .append("<br>msg：").append(beatResult.getMsg());
+    }
+
+}
@@ -1,8 +1,8 @@
 package com.wugui.datax.admin.core.route.strategy;
 
-import com.wugui.datatx.core.biz.ExecutorBiz;
 import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datatx.core.biz.model.TriggerParam;
+import com.wugui.datax.admin.core.route.ExecutorBeatFanout;
 import com.wugui.datax.admin.core.route.ExecutorRouter;
 import com.wugui.datax.admin.core.scheduler.JobScheduler;
 import com.wugui.datax.admin.core.util.I18nUtil;
@@ -10,38 +10,17 @@ import com.wugui.datax.admin.core.util.I18nUtil;
 import java.util.List;
 
 /**
+ * idle beat all executors at once, the first answering idle wins;
+ * idle is per job and changes with each trigger, not cached, only dead executors are skipped
+ *
  * Created by xuxueli on 17/3/10.
  */
 public class ExecutorRouteBusyover extends ExecutorRouter {
 
     @Override
-    public ReturnT<String> route(TriggerParam triggerParam, List<String> addressList) {
-        StringBuffer idleBeatResultSB = new StringBuffer();
-        for (String address : addressList) {
-            // beat
-            ReturnT<String> idleBeatResult = null;
-            try {
-                ExecutorBiz executorBiz = JobScheduler.getExecutorBiz(address);
-                idleBeatResult = executorBiz.idleBeat(triggerParam.getJobId());
-            } catch (Exception e) {
-                logger.error(e.getMessage(), e);
-                idleBeatResult = new ReturnT<String>(ReturnT.FAIL_CODE, ""+e );
-            }
-            idleBeatResultSB.append( (idleBeatResultSB.length()>0)?"<br><br>":"")
-                    .append(I18nUtil.getString("jobconf_idleBeat") + "：")
-                    .append("<br>address：").append(address)
-                    .append("<br>code：").append(idleBeatResult.getCode())
-                    .append("<br>msg：").append(idleBeatResult.getMsg());
-
-            // beat success
-            if (idleBeatResult.getCode() == ReturnT.SUCCESS_CODE) {
-                idleBeatResult.setMsg(idleBeatResultSB.toString());
-                idleBeatResult.setContent(address);
-                return idleBeatResult;
-            }
-        }
-
-        return new ReturnT<String>(ReturnT.FAIL_CODE, idleBeatResultSB.toString());
+    public ReturnT<String> route(final TriggerParam triggerParam, List<String> addressList) {
+        return ExecutorBeatFanout.probe(addressList, I18nUtil.getString("jobconf_idleBeat"), JobScheduler.EXECUTOR_TIMEOUT_MS,
+                address -> JobScheduler.getCallbackExecutorBiz(address).idleBeat(triggerParam.getJobId()));
     }
 
 }
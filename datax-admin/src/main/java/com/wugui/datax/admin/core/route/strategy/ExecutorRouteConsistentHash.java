@@ -4,17 +4,17 @@ import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datatx.core.biz.model.TriggerParam;
 import com.wugui.datax.admin.core.route.ExecutorRouter;
 
-import java.io.UnsupportedEncodingException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 分组下机器地址相同，不同JOB均匀散列在不同机器上，保证分组下机器分配JOB平均；且每个JOB固定调度其中一台机器；
  *      a、virtual node：解决不均衡问题
  *      b、hash method replace hashCode：String的hashCode可能重复，需要进一步扩大hashCode的取值范围
+ *      c、ring built once per registry list, sorted hash / owner arrays, binary search, murmur3 hash
+ *      d、ring looked up by the identity of the registry list, a group's list is unmodifiable and replaced on refresh, the list is not hashed per trigger
  * Created by xuxueli on 17/3/10.
  */
 public class ExecutorRouteConsistentHash extends ExecutorRouter {
@@ -22,58 +22,144 @@ public class ExecutorRouteConsistentHash extends ExecutorRouter {
     private static int VIRTUAL_NODE_NUM = 100;
 
     /**
-     * get hash code on 2^32 ring (md5散列的方式计算hash值)
-     * @param key
-     * @return
+     * rings of registry lists no longer used are dropped at once when over it
      */
-    private static long hash(String key) {
-
-        // md5 byte
-        MessageDigest md5;
-        try {
-            md5 = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("MD5 not supported", e);
+    private static final int MAX_RING_NUM = 256;
+
+    private static final int SEED = 0x9747b28c;
+
+    /**
+     * direct mapped slots by list identity, a miss falls back to the rings by list content
+     */
+    private static final int SLOT_NUM = 64;
+
+    /**
+     * hash ring of one registry list
+     */
+    static final class Ring {
+        private final String[] addresses;
+        private final long[] points;    // node hash on 2^32 ring, sorted
+        private final int[] owners;     // address index of each node
+
+        Ring(List<String> addressList) {
+            addresses = addressList.toArray(new String[0]);
+
+            // hash << 31 | address index, one sort keeps both in hash order
+            long[] nodes = new long[addresses.length * VIRTUAL_NODE_NUM];
+            int n = 0;
+            for (int a = 0; a < addresses.length; a++) {
+                for (int i = 0; i < VIRTUAL_NODE_NUM; i++) {
+                    long nodeHash = hash("SHARD-" + addresses[a] + "-NODE-" + i);
+                    nodes[n++] = (nodeHash << 31) | a;
+                }
+            }
+            Arrays.sort(nodes);
+
+            points = new long[nodes.length];
+            owners = new int[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                points[i] = nodes[i] >>> 31;
+                owners[i] = (int) (nodes[i] & 0x7fffffffL);
+            }
+        }
+
+        /**
+         * first node clockwise from the job hash
+         */
+        String route(int jobId) {
+            int index = Arrays.binarySearch(points, hash(jobId));
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (index == points.length) {
+                index = 0;
+            }
+            return addresses[owners[index]];
+        }
+    }
+
+    /**
+     * ring of one registry list instance, immutable, safe to publish through the plain slot array
+     */
+    private static final class Slot {
+        private final List<String> addressList;
+        private final Ring ring;
+
+        private Slot(List<String> addressList, Ring ring) {
+            this.addressList = addressList;
+            this.ring = ring;
+        }
+    }
+
+    private final ConcurrentMap<List<String>, Ring> rings = new ConcurrentHashMap<>();
+    private final Slot[] slots = new Slot[SLOT_NUM];
+
+    /**
+     * murmur3 32-bit on the utf-16 chars, no byte encoding, on 2^32 ring
+     */
+    static long hash(String key) {
+        int h1 = SEED;
+        int length = key.length();
+        int i = 0;
+        for (; i + 1 < length; i += 2) {
+            h1 = mixH1(h1, mixK1(key.charAt(i) | (key.charAt(i + 1) << 16)));
         }
-        md5.reset();
-        byte[] keyBytes = null;
-        try {
-            keyBytes = key.getBytes("UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException("Unknown string :" + key, e);
+        if (i < length) {
+            h1 ^= mixK1(key.charAt(i));
         }
+        return fmix(h1, 2 * length) & 0xffffffffL;
+    }
 
-        md5.update(keyBytes);
-        byte[] digest = md5.digest();
+    static long hash(int key) {
+        return fmix(mixH1(SEED, mixK1(key)), 4) & 0xffffffffL;
+    }
 
-        // hash code, Truncate to 32-bits
-        long hashCode = ((long) (digest[3] & 0xFF) << 24)
-                | ((long) (digest[2] & 0xFF) << 16)
-                | ((long) (digest[1] & 0xFF) << 8)
-                | (digest[0] & 0xFF);
+    private static int mixK1(int k1) {
+        k1 *= 0xcc9e2d51;
+        k1 = Integer.rotateLeft(k1, 15);
+        return k1 * 0x1b873593;
+    }
 
-        long truncateHashCode = hashCode & 0xffffffffL;
-        return truncateHashCode;
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+
+    private static int fmix(int h1, int length) {
+        h1 ^= length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        return h1 ^ (h1 >>> 16);
     }
 
     public String hashJob(int jobId, List<String> addressList) {
 
         // ------A1------A2-------A3------
         // -----------J1------------------
-        TreeMap<Long, String> addressRing = new TreeMap<Long, String>();
-        for (String address: addressList) {
-            for (int i = 0; i < VIRTUAL_NODE_NUM; i++) {
-                long addressHash = hash("SHARD-" + address + "-NODE-" + i);
-                addressRing.put(addressHash, address);
-            }
+        int slotIndex = System.identityHashCode(addressList) & (SLOT_NUM - 1);
+        Slot slot = slots[slotIndex];
+        if (slot != null && slot.addressList == addressList && slot.ring.addresses.length == addressList.size()) {
+            return slot.ring.route(jobId);
         }
 
-        long jobHash = hash(String.valueOf(jobId));
-        SortedMap<Long, String> lastRing = addressRing.tailMap(jobHash);
-        if (!lastRing.isEmpty()) {
-            return lastRing.get(lastRing.firstKey());
+        // new list instance, e.g. group refreshed: same addresses reuse the ring
+        Ring ring = rings.get(addressList);
+        if (ring == null) {
+            if (rings.size() >= MAX_RING_NUM) {
+                rings.clear();
+            }
+            // keyed by a copy, the list given may change later
+            ring = new Ring(addressList);
+            Ring exist = rings.putIfAbsent(Arrays.asList(ring.addresses), ring);
+            if (exist != null) {
+                ring = exist;
+            }
         }
-        return addressRing.firstEntry().getValue();
+        slots[slotIndex] = new Slot(addressList, ring);
+        return ring.route(jobId);
     }
 
     @Override
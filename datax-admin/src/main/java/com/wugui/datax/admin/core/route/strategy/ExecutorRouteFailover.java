@@ -1,8 +1,9 @@
 package com.wugui.datax.admin.core.route.strategy;
 
-import com.wugui.datatx.core.biz.ExecutorBiz;
 import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datatx.core.biz.model.TriggerParam;
+import com.wugui.datax.admin.core.cache.ExecutorHealthCache;
+import com.wugui.datax.admin.core.route.ExecutorBeatFanout;
 import com.wugui.datax.admin.core.route.ExecutorRouter;
 import com.wugui.datax.admin.core.scheduler.JobScheduler;
 import com.wugui.datax.admin.core.util.I18nUtil;
@@ -10,6 +11,9 @@ import com.wugui.datax.admin.core.util.I18nUtil;
 import java.util.List;
 
 /**
+ * first executor alive in the health cache, no beat;
+ * else beat all executors at once, the first answering success wins
+ *
  * Created by xuxueli on 17/3/10.
  */
 public class ExecutorRouteFailover extends ExecutorRouter {
@@ -17,32 +21,23 @@ public class ExecutorRouteFailover extends ExecutorRouter {
     @Override
     public ReturnT<String> route(TriggerParam triggerParam, List<String> addressList) {
 
-        StringBuffer beatResultSB = new StringBuffer();
+        // alive in the health cache
+        ExecutorHealthCache healthCache = ExecutorHealthCache.getInstance();
         for (String address : addressList) {
-            // beat
-            ReturnT<String> beatResult = null;
-            try {
-                ExecutorBiz executorBiz = JobScheduler.getExecutorBiz(address);
-                beatResult = executorBiz.beat();
-            } catch (Exception e) {
-                logger.error(e.getMessage(), e);
-                beatResult = new ReturnT<String>(ReturnT.FAIL_CODE, ""+e );
-            }
-            beatResultSB.append( (beatResultSB.length()>0)?"<br><br>":"")
-                    .append(I18nUtil.getString("jobconf_beat") + "：")
-                    .append("<br>address：").append(address)
-                    .append("<br>code：").append(beatResult.getCode())
-                    .append("<br>msg：").append(beatResult.getMsg());
-
-            // beat success
-            if (beatResult.getCode() == ReturnT.SUCCESS_CODE) {
+            if (healthCache.isAlive(address)) {
+                healthCache.recordAliveHit();
 
-                beatResult.setMsg(beatResultSB.toString());
+                StringBuffer beatResultSB = new StringBuffer();
+                ExecutorBeatFanout.appendResult(beatResultSB, I18nUtil.getString("jobconf_beat"), address,
+                        new ReturnT<String>(ReturnT.SUCCESS_CODE, "alive, answered in the last seconds"));
+                ReturnT<String> beatResult = new ReturnT<String>(ReturnT.SUCCESS_CODE, beatResultSB.toString());
                 beatResult.setContent(address);
                 return beatResult;
             }
         }
-        return new ReturnT<String>(ReturnT.FAIL_CODE, beatResultSB.toString());
 
+        // beat
+        return ExecutorBeatFanout.probe(addressList, I18nUtil.getString("jobconf_beat"), JobScheduler.EXECUTOR_TIMEOUT_MS,
+                address -> JobScheduler.getCallbackExecutorBiz(address).beat());
     }
 }
@@ -0,0 +1,82 @@
+package com.wugui.datax.admin.core.route.strategy;
+
+import com.wugui.datatx.core.biz.model.ReturnT;
+import com.wugui.datatx.core.biz.model.TriggerParam;
+import com.wugui.datax.admin.core.cache.ExecutorLoadCache;
+import com.wugui.datax.admin.core.route.ExecutorRouter;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * weighted least load, read from the executor load snapshot, no db or rpc call
+ *
+ *      a、score = cpu usage 0.3 + memory usage 0.2 + load average 0.2 + in-flight jobs 0.3, each in [0, 1];
+ *      b、cpu / memory usage are percent, load average and in-flight jobs are relative to the max of the candidates;
+ *      c、an executor without a fresh snapshot scores the average of the others;
+ *      d、the lowest score wins, equal scores take turns.
+ */
+public class ExecutorRouteLeastLoad extends ExecutorRouter {
+
+    private static final double CPU_WEIGHT = 0.3;
+    private static final double MEMORY_WEIGHT = 0.2;
+    private static final double LOAD_WEIGHT = 0.2;
+    private static final double IN_FLIGHT_WEIGHT = 0.3;
+
+    private static final AtomicInteger turn = new AtomicInteger();
+
+    public String route(List<String> addressList) {
+        ExecutorLoadCache loadCache = ExecutorLoadCache.getInstance();
+        int size = addressList.size();
+
+        // snapshot
+        ExecutorLoadCache.ExecutorLoad[] loads = new ExecutorLoadCache.ExecutorLoad[size];
+        int[] inFlights = new int[size];
+        double cpuSum = 0, memorySum = 0, loadSum = 0, maxLoad = 0;
+        int known = 0, maxInFlight = 0;
+        for (int i = 0; i < size; i++) {
+            String address = addressList.get(i);
+            loads[i] = loadCache.getLoad(address);
+            inFlights[i] = loadCache.getInFlight(address);
+            maxInFlight = Math.max(maxInFlight, inFlights[i]);
+            if (loads[i] != null) {
+                cpuSum += loads[i].getCpuUsage();
+                memorySum += loads[i].getMemoryUsage();
+                loadSum += loads[i].getLoadAverage();
+                maxLoad = Math.max(maxLoad, loads[i].getLoadAverage());
+                known++;
+            }
+        }
+        double avgCpu = known > 0 ? cpuSum / known : 0;
+        double avgMemory = known > 0 ? memorySum / known : 0;
+        double avgLoad = known > 0 ? loadSum / known : 0;
+
+        // least score
+        int start = (turn.getAndIncrement() & Integer.MAX_VALUE) % size;
+        int best = start;
+        double bestScore = Double.MAX_VALUE;
+        for (int n = 0; n < size; n++) {
+            int i = (start + n) % size;
+            double cpu = loads[i] != null ? loads[i].getCpuUsage() : avgCpu;
+            double memory = loads[i] != null ? loads[i].getMemoryUsage() : avgMemory;
+            double load = loads[i] != null ? loads[i].getLoadAverage() : avgLoad;
+
+            double score = CPU_WEIGHT * cpu / 100
+                    + MEMORY_WEIGHT * memory / 100
+                    + LOAD_WEIGHT * (maxLoad > 0 ? load / maxLoad : 0)
+                    + IN_FLIGHT_WEIGHT * (maxInFlight > 0 ? (double) inFlights[i] / maxInFlight : 0);
+            if (score < bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return addressList.get(best);
+    }
+
+    @Override
+    public ReturnT<String> route(TriggerParam triggerParam, List<String> addressList) {
+        String address = route(addressList);
+        return new ReturnT<String>(address);
+    }
+
+}
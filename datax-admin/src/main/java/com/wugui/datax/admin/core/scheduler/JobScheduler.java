@@ -2,13 +2,14 @@ package com.wugui.datax.admin.core.scheduler;
 
 import com.wugui.datatx.core.biz.ExecutorBiz;
 import com.wugui.datatx.core.enums.ExecutorBlockStrategyEnum;
+import com.wugui.datax.admin.core.cache.JobJsonCache;
 import com.wugui.datax.admin.core.conf.JobAdminConfig;
 import com.wugui.datax.admin.core.thread.*;
 import com.wugui.datax.admin.core.util.I18nUtil;
 import com.wugui.datax.rpc.remoting.invoker.call.CallType;
 import com.wugui.datax.rpc.remoting.invoker.reference.XxlRpcReferenceBean;
 import com.wugui.datax.rpc.remoting.invoker.route.LoadBalance;
-import com.wugui.datax.rpc.remoting.net.impl.netty_http.client.NettyHttpClient;
+import com.wugui.datax.rpc.remoting.net.NetEnum;
 import com.wugui.datax.rpc.serialize.impl.HessianSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +24,8 @@ import java.util.concurrent.ConcurrentMap;
 public class JobScheduler {
     private static final Logger logger = LoggerFactory.getLogger(JobScheduler.class);
 
+    public static final long EXECUTOR_TIMEOUT_MS = 3000;
+
 
     public void init() throws Exception {
         // init i18n
@@ -34,6 +37,9 @@ public class JobScheduler {
         // admin monitor run
         JobFailMonitorHelper.getInstance().start();
 
+        // admin trigger log writer start
+        JobLogBatchWriter.getInstance().start();
+
         // admin trigger pool start
         JobTriggerPoolHelper.toStart();
 
@@ -58,12 +64,18 @@ public class JobScheduler {
         // admin trigger pool stop
         JobTriggerPoolHelper.toStop();
 
+        // admin trigger log writer stop
+        JobLogBatchWriter.getInstance().toStop();
+
         // admin monitor stop
         JobFailMonitorHelper.getInstance().toStop();
 
         // admin registry stop
         JobRegistryMonitorHelper.getInstance().toStop();
 
+        // zero cached decrypted job json
+        JobJsonCache.getInstance().clear();
+
     }
 
     // ---------------------- I18n ----------------------
@@ -76,8 +88,24 @@ public class JobScheduler {
 
     // ---------------------- executor-client ----------------------
     private static ConcurrentMap<String, ExecutorBiz> executorBizRepository = new ConcurrentHashMap<>();
+    private static ConcurrentMap<String, ExecutorBiz> callbackExecutorBizRepository = new ConcurrentHashMap<>();
 
     public static ExecutorBiz getExecutorBiz(String address) throws Exception {
+        return getExecutorBiz(address, CallType.SYNC, executorBizRepository);
+    }
+
+    /**
+     * executor client with CallType.CALLBACK, set the callback by XxlRpcInvokeCallback.setCallback before each invoke
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public static ExecutorBiz getCallbackExecutorBiz(String address) throws Exception {
+        return getExecutorBiz(address, CallType.CALLBACK, callbackExecutorBizRepository);
+    }
+
+    private static ExecutorBiz getExecutorBiz(String address, CallType callType, ConcurrentMap<String, ExecutorBiz> repository) throws Exception {
         // valid
         if (address == null || address.trim().length() == 0) {
             return null;
@@ -85,20 +113,20 @@ public class JobScheduler {
 
         // load-cache
         address = address.trim();
-        ExecutorBiz executorBiz = executorBizRepository.get(address);
+        ExecutorBiz executorBiz = repository.get(address);
         if (executorBiz != null) {
             return executorBiz;
         }
 
         // set-cache
         XxlRpcReferenceBean referenceBean = new XxlRpcReferenceBean();
-        referenceBean.setClient(NettyHttpClient.class);
+        referenceBean.setClient(NetEnum.autoMatch(JobAdminConfig.getAdminConfig().getRpcTransport(), NetEnum.NETTY).clientClass);
         referenceBean.setSerializer(HessianSerializer.class);
-        referenceBean.setCallType(CallType.SYNC);
+        referenceBean.setCallType(callType);
         referenceBean.setLoadBalance(LoadBalance.ROUND);
         referenceBean.setIface(ExecutorBiz.class);
         referenceBean.setVersion(null);
-        referenceBean.setTimeout(3000);
+        referenceBean.setTimeout(EXECUTOR_TIMEOUT_MS);
         referenceBean.setAddress(address);
         referenceBean.setAccessToken(JobAdminConfig.getAdminConfig().getAccessToken());
         referenceBean.setInvokeCallback(null);
@@ -106,7 +134,7 @@ public class JobScheduler {
 
         executorBiz = (ExecutorBiz) referenceBean.getObject();
 
-        executorBizRepository.put(address, executorBiz);
+        repository.put(address, executorBiz);
         return executorBiz;
     }
 
@@ -4,24 +4,36 @@ import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datax.admin.core.conf.JobAdminConfig;
 import com.wugui.datax.admin.core.trigger.TriggerTypeEnum;
 import com.wugui.datax.admin.core.util.I18nUtil;
+import com.wugui.datax.admin.entity.JobFailEvent;
 import com.wugui.datax.admin.entity.JobGroup;
 import com.wugui.datax.admin.entity.JobInfo;
 import com.wugui.datax.admin.entity.JobLog;
+import com.wugui.datax.admin.mapper.JobFailEventMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.mail.javamail.MimeMessageHelper;
 
 import javax.mail.internet.MimeMessage;
 import java.text.MessageFormat;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * job monitor instance
  *
+ *      a、failures are queued as job_fail_event rows by the callback, the trigger and the kill, and handed to the workers at once;
+ *      b、a worker claims the event, locks the log alarm status, retries and alarms, errors and failed alarms are retried with exponential backoff;
+ *      c、a log found succeeded completes its event at once, an alarm retry only sends to the recipients not yet delivered;
+ *      d、the monitor thread only reconciles: due events every minute (backoff, restart, other admins), stale claims and the fail log scan every 10 min.
+ *
  * @author xuxueli 2015-9-1 18:05:56
  */
 public class JobFailMonitorHelper {
@@ -32,56 +44,261 @@ public class JobFailMonitorHelper {
 		return instance;
 	}
 
+	private static final int WORKER_NUM = 4;
+	private static final int MAX_PENDING = 10000;
+	private static final int MAX_ATTEMPTS = 8;
+	private static final long BACKOFF_BASE_MS = 5 * 1000;
+	private static final long BACKOFF_MAX_MS = 10 * 60 * 1000;
+	private static final long RECONCILE_INTERVAL_MS = 60 * 1000;
+	private static final long SCAN_INTERVAL_MS = 10 * 60 * 1000;
+	private static final long STALE_MS = 10 * 60 * 1000;
+
+	// log ids queued or running in the workers
+	private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong events = new AtomicLong();
+	private final AtomicLong processed = new AtomicLong();
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong alarms = new AtomicLong();
+	private final AtomicLong alarmFails = new AtomicLong();
+	private final AtomicLong backoffs = new AtomicLong();
+	private final AtomicLong reconciled = new AtomicLong();
+
+	// ---------------------- event ----------------------
+
+	/**
+	 * queue a failed log, for retry and alarm
+	 *
+	 * @param logId
+	 */
+	public void fail(long logId) {
+		try {
+			if (JobAdminConfig.getAdminConfig().getJobFailEventMapper().save(logId, System.currentTimeMillis()) > 0) {
+				events.incrementAndGet();
+			}
+		} catch (Exception e) {
+			// still found by the fail log scan
+			logger.error(">>>>>>>>>>> datax-web, job fail event save error, JobLogId:{}", logId, e);
+			return;
+		}
+		dispatch(logId, 0);
+	}
+
+	private void dispatch(final long logId, long delayMs) {
+		ScheduledThreadPoolExecutor pool = workerPool;
+		if (pool == null || toStop) {
+			return;
+		}
+		// over it, left in the table for the reconciler
+		if (pending.size() >= MAX_PENDING || !pending.add(logId)) {
+			return;
+		}
+		try {
+			pool.schedule(() -> {
+				long nextDelay = -1;
+				try {
+					nextDelay = process(logId);
+				} finally {
+					pending.remove(logId);
+				}
+				if (nextDelay >= 0) {
+					dispatch(logId, nextDelay);
+				}
+			}, delayMs, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			pending.remove(logId);
+		}
+	}
+
+	/**
+	 * process one fail event
+	 *
+	 * @return delay of the next attempt, -1 when done or not ours
+	 */
+	private long process(long logId) {
+		JobFailEventMapper eventMapper = JobAdminConfig.getAdminConfig().getJobFailEventMapper();
+		JobFailEvent event;
+		try {
+			// not due, done, or claimed by another admin
+			if (eventMapper.claim(logId, System.currentTimeMillis()) < 1) {
+				return -1;
+			}
+			event = eventMapper.load(logId);
+			if (event == null) {
+				return -1;
+			}
+		} catch (Exception e) {
+			logger.error(">>>>>>>>>>> datax-web, job fail event claim error, JobLogId:{}", logId, e);
+			return -1;
+		}
+		processed.incrementAndGet();
+
+		boolean retried = event.getRetried() == 1;
+		try {
+			JobLog log = JobAdminConfig.getAdminConfig().getJobLogMapper().load(logId);
+			if (log == null) {
+				eventMapper.delete(logId);
+				return -1;
+			}
+
+			if (!retried) {
+				if (!isFail(log)) {
+					// succeeded, e.g. queued before a late success callback
+					if (log.getHandleCode() == ReturnT.SUCCESS_CODE) {
+						eventMapper.delete(logId);
+						return -1;
+					}
+					// trigger info is written in batches, may be not flushed yet
+					return backoff(event, false);
+				}
+
+				// lock log
+				int lockRet = JobAdminConfig.getAdminConfig().getJobLogMapper().updateAlarmStatus(logId, 0, -1);
+				if (lockRet < 1) {
+					eventMapper.delete(logId);
+					return -1;
+				}
+
+				// 1、fail retry monitor
+				if (log.getExecutorFailRetryCount() > 0) {
+					try {
+						JobTriggerPoolHelper.trigger(log.getJobId(), TriggerTypeEnum.RETRY, (log.getExecutorFailRetryCount()-1), log.getExecutorShardingParam(), log.getExecutorParam());
+					} catch (Exception e) {
+						// not sent, unlock for the next attempt
+						JobAdminConfig.getAdminConfig().getJobLogMapper().updateAlarmStatus(logId, -1, 0);
+						throw e;
+					}
+					retries.incrementAndGet();
+				}
+
+				// sent, never unlocked nor sent again from here on
+				retried = true;
+				eventMapper.markRetried(logId, System.currentTimeMillis());
+				if (log.getExecutorFailRetryCount() > 0) {
+					String retryMsg = "<br><br><span style=\"color:#F39C12;\" > >>>>>>>>>>>"+ I18nUtil.getString("jobconf_trigger_type_retry") +"<<<<<<<<<<< </span><br>";
+					log.setTriggerMsg(log.getTriggerMsg() + retryMsg);
+					JobAdminConfig.getAdminConfig().getJobLogMapper().updateTriggerInfo(log);
+				}
+			}
+
+			// 2、fail alarm monitor
+			JobInfo info = JobAdminConfig.getAdminConfig().getJobInfoMapper().loadById(log.getJobId());
+			int newAlarmStatus = 0;		// 告警状态：0-默认、-1=锁定状态、1-无需告警、2-告警成功、3-告警失败
+			if (info!=null && info.getAlarmEmail()!=null && info.getAlarmEmail().trim().length()>0) {
+				boolean alarmResult = true;
+				Set<String> alarmSent = splitEmails(event.getAlarmSent());
+				try {
+					alarmResult = failAlarm(info, log, alarmSent);
+				} catch (Exception e) {
+					alarmResult = false;
+					logger.error(e.getMessage(), e);
+				}
+				event.setAlarmSent(alarmSent.isEmpty() ? null : String.join(",", alarmSent));
+				if (alarmResult) {
+					alarms.incrementAndGet();
+				} else {
+					alarmFails.incrementAndGet();
+					if (event.getAttempts() + 1 < MAX_ATTEMPTS) {
+						return backoff(event, true);
+					}
+				}
+				newAlarmStatus = alarmResult?2:3;
+			} else {
+				newAlarmStatus = 1;
+			}
+
+			JobAdminConfig.getAdminConfig().getJobLogMapper().updateAlarmStatus(logId, -1, newAlarmStatus);
+			eventMapper.delete(logId);
+			return -1;
+		} catch (Exception e) {
+			logger.error(">>>>>>>>>>> datax-web, job fail event process error, JobLogId:{}", logId, e);
+			try {
+				return backoff(event, retried);
+			} catch (Exception e2) {
+				// left claimed, reset by the reconciler
+				logger.error(e2.getMessage(), e2);
+				return -1;
+			}
+		}
+	}
+
+	/**
+	 * next attempt after an exponential delay, given up after max attempts
+	 */
+	private long backoff(JobFailEvent event, boolean retried) {
+		long logId = event.getLogId();
+		int attempts = event.getAttempts();
+		if (attempts + 1 >= MAX_ATTEMPTS) {
+			if (retried) {
+				JobAdminConfig.getAdminConfig().getJobLogMapper().updateAlarmStatus(logId, -1, 3);
+			}
+			// not retried: alarm status left 0, found by the fail log scan if it fails later
+			JobAdminConfig.getAdminConfig().getJobFailEventMapper().delete(logId);
+			return -1;
+		}
+
+		long delay = Math.min(BACKOFF_BASE_MS << attempts, BACKOFF_MAX_MS);
+		long nowTime = System.currentTimeMillis();
+		JobAdminConfig.getAdminConfig().getJobFailEventMapper().reschedule(logId, retried?1:0, event.getAlarmSent(), nowTime + delay, nowTime);
+		backoffs.incrementAndGet();
+		return delay;
+	}
+
+	/**
+	 * same as the fail log scan
+	 */
+	private static boolean isFail(JobLog log) {
+		int triggerCode = log.getTriggerCode();
+		int handleCode = log.getHandleCode();
+		return !(((triggerCode == 0 || triggerCode == ReturnT.SUCCESS_CODE) && handleCode == 0)
+				|| handleCode == ReturnT.SUCCESS_CODE);
+	}
+
 	// ---------------------- monitor ----------------------
 
+	private volatile ScheduledThreadPoolExecutor workerPool;
 	private Thread monitorThread;
 	private volatile boolean toStop = false;
 	public void start(){
+		ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(
+				WORKER_NUM,
+				r -> {
+					Thread thread = new Thread(r, "datax-web, admin JobFailMonitorHelper-workerPool-" + r.hashCode());
+					thread.setDaemon(true);
+					return thread;
+				});
+		pool.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		workerPool = pool;
+
 		monitorThread = new Thread(new Runnable() {
 
 			@Override
 			public void run() {
 
-				// monitor
+				long scanTime = 0;
+
+				// reconcile
 				while (!toStop) {
 					try {
+						long nowTime = System.currentTimeMillis();
+						JobFailEventMapper eventMapper = JobAdminConfig.getAdminConfig().getJobFailEventMapper();
 
-						List<Long> failLogIds = JobAdminConfig.getAdminConfig().getJobLogMapper().findFailJobLogIds(1000);
-						if (failLogIds!=null && !failLogIds.isEmpty()) {
-							for (long failLogId: failLogIds) {
-
-								// lock log
-								int lockRet = JobAdminConfig.getAdminConfig().getJobLogMapper().updateAlarmStatus(failLogId, 0, -1);
-								if (lockRet < 1) {
-									continue;
-								}
-								JobLog log = JobAdminConfig.getAdminConfig().getJobLogMapper().load(failLogId);
-								JobInfo info = JobAdminConfig.getAdminConfig().getJobInfoMapper().loadById(log.getJobId());
-
-								// 1、fail retry monitor
-								if (log.getExecutorFailRetryCount() > 0) {
-									JobTriggerPoolHelper.trigger(log.getJobId(), TriggerTypeEnum.RETRY, (log.getExecutorFailRetryCount()-1), log.getExecutorShardingParam(), log.getExecutorParam());
-									String retryMsg = "<br><br><span style=\"color:#F39C12;\" > >>>>>>>>>>>"+ I18nUtil.getString("jobconf_trigger_type_retry") +"<<<<<<<<<<< </span><br>";
-									log.setTriggerMsg(log.getTriggerMsg() + retryMsg);
-									JobAdminConfig.getAdminConfig().getJobLogMapper().updateTriggerInfo(log);
-								}
-
-								// 2、fail alarm monitor
-								int newAlarmStatus = 0;		// 告警状态：0-默认、-1=锁定状态、1-无需告警、2-告警成功、3-告警失败
-								if (info!=null && info.getAlarmEmail()!=null && info.getAlarmEmail().trim().length()>0) {
-									boolean alarmResult = true;
-									try {
-										alarmResult = failAlarm(info, log);
-									} catch (Exception e) {
-										alarmResult = false;
-										logger.error(e.getMessage(), e);
-									}
-									newAlarmStatus = alarmResult?2:3;
-								} else {
-									newAlarmStatus = 1;
-								}
-
-								JobAdminConfig.getAdminConfig().getJobLogMapper().updateAlarmStatus(failLogId, -1, newAlarmStatus);
+						// 1、stale claims and fail logs without event, low frequency
+						if (nowTime - scanTime >= SCAN_INTERVAL_MS) {
+							scanTime = nowTime;
+							eventMapper.resetStale(nowTime - STALE_MS, nowTime);
+
+							List<Long> failLogIds = JobAdminConfig.getAdminConfig().getJobLogMapper().findFailJobLogIds(1000);
+							if (failLogIds!=null && !failLogIds.isEmpty()) {
+								reconciled.addAndGet(eventMapper.saveBatch(failLogIds, nowTime));
+							}
+						}
+
+						// 2、due events, backoff or missed by the workers
+						List<Long> dueLogIds = eventMapper.findDue(nowTime, 1000);
+						if (dueLogIds!=null && !dueLogIds.isEmpty()) {
+							for (long dueLogId: dueLogIds) {
+								dispatch(dueLogId, 0);
 							}
 						}
 
@@ -92,7 +309,7 @@ public class JobFailMonitorHelper {
 					}
 
                     try {
-                        TimeUnit.SECONDS.sleep(10);
+                        TimeUnit.MILLISECONDS.sleep(RECONCILE_INTERVAL_MS);
                     } catch (Exception e) {
                         if (!toStop) {
                             logger.error(e.getMessage(), e);
@@ -110,6 +327,19 @@ public class JobFailMonitorHelper {
 		monitorThread.start();
 	}
 
+	public Map<String, Object> metrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("events", events.get());
+		metrics.put("processed", processed.get());
+		metrics.put("retries", retries.get());
+		metrics.put("alarms", alarms.get());
+		metrics.put("alarmFails", alarmFails.get());
+		metrics.put("backoffs", backoffs.get());
+		metrics.put("reconciled", reconciled.get());
+		metrics.put("pending", pending.size());
+		return metrics;
+	}
+
 	public void toStop(){
 		toStop = true;
 		// interrupt and wait
@@ -119,6 +349,18 @@ public class JobFailMonitorHelper {
 		} catch (InterruptedException e) {
 			logger.error(e.getMessage(), e);
 		}
+
+		// delayed attempts are dropped, their rows are due again on restart
+		ScheduledThreadPoolExecutor pool = workerPool;
+		workerPool = null;
+		if (pool != null) {
+			pool.shutdown();
+			try {
+				pool.awaitTermination(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				logger.error(e.getMessage(), e);
+			}
+		}
 	}
 
 
@@ -147,12 +389,26 @@ public class JobFailMonitorHelper {
 			"   </tbody>\n" +
 			"</table>";
 
+	private static Set<String> splitEmails(String emails) {
+		Set<String> emailSet = new LinkedHashSet<>();
+		if (emails != null) {
+			for (String email : emails.split(",")) {
+				if (email.trim().length() > 0) {
+					emailSet.add(email.trim());
+				}
+			}
+		}
+		return emailSet;
+	}
+
 	/**
 	 * fail alarm
 	 *
 	 * @param jobLog
+	 * @param alarmSent	recipients already delivered by an earlier attempt, skipped, and added to when sent
+	 * @return true when every recipient is delivered
 	 */
-	private boolean failAlarm(JobInfo info, JobLog jobLog){
+	private boolean failAlarm(JobInfo info, JobLog jobLog, Set<String> alarmSent){
 		boolean alarmResult = true;
 
 		// send monitor email
@@ -177,8 +433,11 @@ public class JobFailMonitorHelper {
 					info.getJobDesc(),
 					alarmContent);
 
-			Set<String> emailSet = new HashSet<String>(Arrays.asList(info.getAlarmEmail().split(",")));
+			Set<String> emailSet = splitEmails(info.getAlarmEmail());
 			for (String email: emailSet) {
+				if (alarmSent.contains(email)) {
+					continue;
+				}
 
 				// make mail
 				try {
@@ -191,6 +450,7 @@ public class JobFailMonitorHelper {
 					helper.setText(content, true);
 
 					JobAdminConfig.getAdminConfig().getMailSender().send(mimeMessage);
+					alarmSent.add(email);
 				} catch (Exception e) {
 					logger.error(">>>>>>>>>>> datax-web, job fail alarm email send error, JobLogId:{}", jobLog.getId(), e);
 
@@ -0,0 +1,294 @@
+package com.wugui.datax.admin.core.thread;
+
+import com.wugui.datax.admin.core.conf.JobAdminConfig;
+import com.wugui.datax.admin.entity.JobLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * group commit writer for trigger logs
+ *
+ *      a、save: log rows arriving within a few ms are inserted by one multi-row insert, generated ids are set back on each row;
+ *      b、updateTriggerInfo: trigger info updates are coalesced into one multi-row update, callers do not wait;
+ *      c、a failed batch is retried row by row, so one bad row does not fail the others;
+ *      d、save futures are completed on a completion thread, callers' dependent stages never run on the writer thread.
+ *
+ * rows are written directly when the writer is not running.
+ */
+public class JobLogBatchWriter {
+    private static Logger logger = LoggerFactory.getLogger(JobLogBatchWriter.class);
+
+    private static JobLogBatchWriter instance = new JobLogBatchWriter();
+
+    public static JobLogBatchWriter getInstance() {
+        return instance;
+    }
+
+    private static final long LINGER_MS = 2;
+    private static final int MAX_BATCH = 200;
+    private static final long SAVE_TIMEOUT_MS = 10000;
+
+    private final LinkedBlockingQueue<SaveRequest> saveQueue = new LinkedBlockingQueue<>(10000);
+    private final LinkedBlockingQueue<JobLog> updateQueue = new LinkedBlockingQueue<>(10000);
+
+    private Thread writerThread;
+    private ExecutorService completionPool;
+    private volatile boolean running = false;
+    private volatile boolean toStop = false;
+
+    private final AtomicLong saveBatches = new AtomicLong();
+    private final AtomicLong saveRows = new AtomicLong();
+    private final AtomicLong updateBatches = new AtomicLong();
+    private final AtomicLong updateRows = new AtomicLong();
+    private final AtomicLong directWrites = new AtomicLong();
+
+    private static class SaveRequest {
+        private final JobLog jobLog;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private SaveRequest(JobLog jobLog) {
+            this.jobLog = jobLog;
+        }
+    }
+
+    public void start() {
+        // unbounded, at most one task per save batch, bounded by the save queue
+        completionPool = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "datax-web, admin JobLogBatchWriter-completion");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writerThread = new Thread(() -> {
+            List<SaveRequest> saves = new ArrayList<>(MAX_BATCH);
+            List<JobLog> updates = new ArrayList<>(MAX_BATCH);
+
+            // drain all queued rows before exit
+            while (!toStop || !saveQueue.isEmpty() || !updateQueue.isEmpty()) {
+                try {
+                    // 1、save, wait for the first row, then linger for more
+                    SaveRequest first = saveQueue.poll(LINGER_MS, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        saves.add(first);
+                        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LINGER_MS);
+                        while (saves.size() < MAX_BATCH) {
+                            saveQueue.drainTo(saves, MAX_BATCH - saves.size());
+                            long remain = deadline - System.nanoTime();
+                            if (saves.size() >= MAX_BATCH || remain <= 0) {
+                                break;
+                            }
+                            SaveRequest next = saveQueue.poll(remain, TimeUnit.NANOSECONDS);
+                            if (next == null) {
+                                break;
+                            }
+                            saves.add(next);
+                        }
+                        flushSaves(saves);
+                        saves.clear();
+                    }
+
+                    // 2、update trigger info
+                    updateQueue.drainTo(updates, MAX_BATCH);
+                    if (!updates.isEmpty()) {
+                        flushUpdates(updates);
+                        updates.clear();
+                    }
+                } catch (InterruptedException e) {
+                    if (!toStop) {
+                        logger.error(e.getMessage(), e);
+                    }
+                } catch (Exception e) {
+                    logger.error(">>>>>>>>>>> datax-web, JobLogBatchWriter error:{}", e);
+                }
+            }
+            logger.info(">>>>>>>>>>> datax-web, JobLogBatchWriter stop");
+        });
+        writerThread.setDaemon(true);
+        writerThread.setName("datax-web, admin JobLogBatchWriter");
+        writerThread.start();
+        running = true;
+    }
+
+    /**
+     * save log row, the id is set when the returned future completes
+     *
+     * @param jobLog
+     * @return
+     */
+    public CompletableFuture<Void> saveAsync(JobLog jobLog) {
+        if (running) {
+            SaveRequest request = new SaveRequest(jobLog);
+            if (saveQueue.offer(request)) {
+                return request.future;
+            }
+        }
+
+        // writer stopped or queue full, save directly
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            directWrites.incrementAndGet();
+            JobAdminConfig.getAdminConfig().getJobLogMapper().save(jobLog);
+            future.complete(null);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * save log row, return when the id is set
+     *
+     * @param jobLog
+     */
+    public void save(JobLog jobLog) {
+        try {
+            saveAsync(jobLog).get(SAVE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException | TimeoutException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * update trigger info, written with the next batch
+     *
+     * @param jobLog
+     */
+    public void updateTriggerInfo(JobLog jobLog) {
+        if (running && updateQueue.offer(jobLog)) {
+            return;
+        }
+        directWrites.incrementAndGet();
+        JobAdminConfig.getAdminConfig().getJobLogMapper().updateTriggerInfo(jobLog);
+    }
+
+    private void flushSaves(List<SaveRequest> saves) {
+        List<JobLog> jobLogs = new ArrayList<>(saves.size());
+        for (SaveRequest save : saves) {
+            jobLogs.add(save.jobLog);
+        }
+        try {
+            JobAdminConfig.getAdminConfig().getJobLogMapper().saveBatch(jobLogs);
+            saveBatches.incrementAndGet();
+            saveRows.addAndGet(jobLogs.size());
+            complete(saves, null);
+            return;
+        } catch (Exception e) {
+            logger.error(">>>>>>>>>>> datax-web, job log batch save error, retry row by row:{}", e);
+        }
+
+        Throwable[] errors = new Throwable[saves.size()];
+        for (int i = 0; i < saves.size(); i++) {
+            try {
+                JobAdminConfig.getAdminConfig().getJobLogMapper().save(saves.get(i).jobLog);
+            } catch (Exception e) {
+                errors[i] = e;
+            }
+        }
+        complete(saves, errors);
+    }
+
+    /**
+     * complete the save futures of a batch on the completion thread, not on the writer thread
+     *
+     * @param errors    null when all saved
+     */
+    private void complete(List<SaveRequest> saves, final Throwable[] errors) {
+        final SaveRequest[] batch = saves.toArray(new SaveRequest[0]);
+        Runnable completion = () -> {
+            for (int i = 0; i < batch.length; i++) {
+                if (errors != null && errors[i] != null) {
+                    batch[i].future.completeExceptionally(errors[i]);
+                } else {
+                    batch[i].future.complete(null);
+                }
+            }
+        };
+        try {
+            completionPool.execute(completion);
+        } catch (RejectedExecutionException e) {
+            // stopped
+            completion.run();
+        }
+    }
+
+    private void flushUpdates(List<JobLog> updates) {
+        try {
+            JobAdminConfig.getAdminConfig().getJobLogMapper().updateTriggerInfoBatch(updates);
+            updateBatches.incrementAndGet();
+            updateRows.addAndGet(updates.size());
+            return;
+        } catch (Exception e) {
+            logger.error(">>>>>>>>>>> datax-web, job log batch update error, retry row by row:{}", e);
+        }
+
+        for (JobLog jobLog : updates) {
+            try {
+                JobAdminConfig.getAdminConfig().getJobLogMapper().updateTriggerInfo(jobLog);
+            } catch (Exception e) {
+                logger.error(">>>>>>>>>>> datax-web, job log update trigger info error, logId:{}", jobLog.getId(), e);
+            }
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        long saveBatchCount = saveBatches.get();
+        long updateBatchCount = updateBatches.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("saveBatches", saveBatchCount);
+        metrics.put("saveRows", saveRows.get());
+        metrics.put("avgSaveBatch", saveBatchCount > 0 ? saveRows.get() / saveBatchCount : 0);
+        metrics.put("updateBatches", updateBatchCount);
+        metrics.put("updateRows", updateRows.get());
+        metrics.put("avgUpdateBatch", updateBatchCount > 0 ? updateRows.get() / updateBatchCount : 0);
+        metrics.put("directWrites", directWrites.get());
+        metrics.put("saveQueue", saveQueue.size());
+        metrics.put("updateQueue", updateQueue.size());
+        return metrics;
+    }
+
+    public void toStop() {
+        // new rows go direct, queued rows are drained by the writer thread
+        running = false;
+        toStop = true;
+        if (writerThread != null) {
+            try {
+                writerThread.join(SAVE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+        if (completionPool != null) {
+            completionPool.shutdown();
+            try {
+                completionPool.awaitTermination(SAVE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+
+        // rows queued after the writer exit
+        SaveRequest request;
+        while ((request = saveQueue.poll()) != null) {
+            try {
+                JobAdminConfig.getAdminConfig().getJobLogMapper().save(request.jobLog);
+                request.future.complete(null);
+            } catch (Exception e) {
+                request.future.completeExceptionally(e);
+            }
+        }
+        List<JobLog> updates = new ArrayList<>();
+        updateQueue.drainTo(updates);
+        for (JobLog jobLog : updates) {
+            JobAdminConfig.getAdminConfig().getJobLogMapper().updateTriggerInfo(jobLog);
+        }
+    }
+
+}
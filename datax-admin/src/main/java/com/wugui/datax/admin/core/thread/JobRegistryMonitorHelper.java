@@ -1,17 +1,39 @@
 package com.wugui.datax.admin.core.thread;
 
+import com.wugui.datatx.core.biz.model.RegistryParam;
 import com.wugui.datatx.core.enums.RegistryConfig;
+import com.wugui.datax.admin.core.cache.ExecutorHealthCache;
+import com.wugui.datax.admin.core.cache.ExecutorLoadCache;
+import com.wugui.datax.admin.core.cache.JobSnapshotCache;
 import com.wugui.datax.admin.core.conf.JobAdminConfig;
 import com.wugui.datax.admin.entity.JobGroup;
 import com.wugui.datax.admin.entity.JobRegistry;
+import com.wugui.datax.admin.mapper.JobRegistryMapper;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * job registry instance
+ * job registry instance, in memory, pushed by registry beats (AdminBizImpl.registry / registryRemove)
+ *
+ *      a、a beat only updates memory, liveness is checked by a timing wheel, dead after RegistryConfig.DEAD_TIMEOUT without beat;
+ *      b、db is written on membership delta (join / leave), and the row of a live registry is touched every LEASE_REFRESH_SECONDS,
+ *         other admin nodes see it and its load by job_registry and job_group;
+ *      c、rows not touched for LEASE_TIMEOUT_SECONDS are removed by the reconcile every beat interval, so a row no node watches,
+ *         e.g. of an executor that beat a restarted or crashed admin node, is removed within the dead timeout too;
+ *      d、group address lists are rebuilt from db on delta and by the reconcile, a group is written only if changed;
+ *      e、db writes run on the registry thread, in beat order, a failed write is queued again and retried.
+ *
  * @author xuxueli 2016-10-02 19:10:24
  */
 public class JobRegistryMonitorHelper {
@@ -22,56 +44,120 @@ public class JobRegistryMonitorHelper {
 		return instance;
 	}
 
+	/**
+	 * db row of a live registry is touched at most this often, on a beat, so at least every refresh + one beat interval
+	 */
+	public static final int LEASE_REFRESH_SECONDS = RegistryConfig.DEAD_TIMEOUT / 2;
+
+	/**
+	 * db row not touched for it is dead, e.g. its executor and the admin node it beat stopped together
+	 */
+	public static final int LEASE_TIMEOUT_SECONDS = RegistryConfig.DEAD_TIMEOUT;
+
+	private static final long RECONCILE_INTERVAL_MS = TimeUnit.SECONDS.toMillis(RegistryConfig.BEAT_TIMEOUT);
+	private static final long SYNC_RETRY_INTERVAL_MS = 1000;
+
+	/**
+	 * load read from db is as old as its lease touch, plus one reconcile
+	 */
+	private static final long DB_LOAD_MAX_AGE_MS = TimeUnit.SECONDS.toMillis(LEASE_TIMEOUT_SECONDS) + RECONCILE_INTERVAL_MS;
+
+	private enum State { ALIVE, DEAD, REMOVED }
+
+	private static class Registration {
+		private final String registryGroup;
+		private final String registryKey;
+		private final String registryValue;
+
+		private volatile double cpuUsage;
+		private volatile double memoryUsage;
+		private volatile double loadAverage;
+		private volatile long beatTime;
+		private volatile long touchTime;
+		private volatile State state = State.ALIVE;
+		private final AtomicBoolean queued = new AtomicBoolean();
+
+		private Registration(String registryGroup, String registryKey, String registryValue) {
+			this.registryGroup = registryGroup;
+			this.registryKey = registryKey;
+			this.registryValue = registryValue;
+		}
+	}
+
+	private final ConcurrentMap<String, Registration> registrations = new ConcurrentHashMap<>();
+	private final BlockingQueue<Registration> dirtyQueue = new LinkedBlockingQueue<>();
+	private final Timer livenessWheel = new HashedWheelTimer(r -> {
+		Thread thread = new Thread(r, "datax-web, admin JobRegistryMonitorHelper-livenessWheel");
+		thread.setDaemon(true);
+		return thread;
+	}, 1, TimeUnit.SECONDS, 128);
+
+	private final long deadTimeoutMs;
+	private final long leaseRefreshMs;
+
+	private final AtomicLong beats = new AtomicLong();
+	private final AtomicLong joins = new AtomicLong();
+	private final AtomicLong leaves = new AtomicLong();
+	private final AtomicLong dbWrites = new AtomicLong();
+	private final AtomicLong groupUpdates = new AtomicLong();
+	private final AtomicLong reconciles = new AtomicLong();
+
+	private JobRegistryMonitorHelper() {
+		this(TimeUnit.SECONDS.toMillis(RegistryConfig.DEAD_TIMEOUT), TimeUnit.SECONDS.toMillis(LEASE_REFRESH_SECONDS));
+	}
+
+	JobRegistryMonitorHelper(long deadTimeoutMs, long leaseRefreshMs) {
+		this.deadTimeoutMs = deadTimeoutMs;
+		this.leaseRefreshMs = leaseRefreshMs;
+	}
+
 	private Thread registryThread;
 	private volatile boolean toStop = false;
 	public void start(){
 		registryThread = new Thread(() -> {
+			long nextReconcileTime = 0;
 			while (!toStop) {
 				try {
-					// auto registry group
-					List<JobGroup> groupList = JobAdminConfig.getAdminConfig().getJobGroupMapper().findByAddressType(0);
-					if (groupList!=null && !groupList.isEmpty()) {
-
-						// remove dead address (admin/executor)
-						List<Integer> ids = JobAdminConfig.getAdminConfig().getJobRegistryMapper().findDead(RegistryConfig.DEAD_TIMEOUT, new Date());
-						if (ids!=null && ids.size()>0) {
-							JobAdminConfig.getAdminConfig().getJobRegistryMapper().removeDead(ids);
-						}
+					// reconcile, rows of stopped admin nodes, drift
+					long nowTime = System.currentTimeMillis();
+					if (nowTime >= nextReconcileTime) {
+						reconcile();
+						nextReconcileTime = nowTime + RECONCILE_INTERVAL_MS;
+					}
 
-						// fresh online address (admin/executor)
-						HashMap<String, List<String>> appAddressMap = new HashMap<>();
-						List<JobRegistry> list = JobAdminConfig.getAdminConfig().getJobRegistryMapper().findAll(RegistryConfig.DEAD_TIMEOUT, new Date());
-						if (list != null) {
-							for (JobRegistry item: list) {
-								if (RegistryConfig.RegistType.EXECUTOR.name().equals(item.getRegistryGroup())) {
-									String appName = item.getRegistryKey();
-									List<String> registryList = appAddressMap.get(appName);
-									if (registryList == null) {
-										registryList = new ArrayList<>();
-									}
-
-									if (!registryList.contains(item.getRegistryValue())) {
-										registryList.add(item.getRegistryValue());
-									}
-									appAddressMap.put(appName, registryList);
-								}
-							}
-						}
+					// membership delta, lease touch
+					Registration registration = dirtyQueue.poll(Math.max(1, nextReconcileTime - nowTime), TimeUnit.MILLISECONDS);
+					if (registration != null) {
+						List<Registration> batch = new ArrayList<>();
+						batch.add(registration);
+						dirtyQueue.drainTo(batch);
 
-						// fresh group address
-						for (JobGroup group: groupList) {
-							List<String> registryList = appAddressMap.get(group.getAppName());
-							String addressListStr = null;
-							if (registryList!=null && !registryList.isEmpty()) {
-								Collections.sort(registryList);
-								addressListStr = "";
-								for (String item:registryList) {
-									addressListStr += item + ",";
+						Set<String> changedApps = new HashSet<>();
+						boolean failed = false;
+						for (Registration item : batch) {
+							State state = item.state;
+							boolean synced = false;
+							try {
+								if (sync(item, state) && RegistryConfig.RegistType.EXECUTOR.name().equals(item.registryGroup)) {
+									changedApps.add(item.registryKey);
+								}
+								synced = true;
+							} catch (Exception e) {
+								failed = true;
+								logger.error(">>>>>>>>>>> datax-web, job registry sync error, {}, retry later", item.registryValue, e);
+							} finally {
+								// queued again if failed, or removed / dead while it was written
+								item.queued.set(false);
+								if (!synced || item.state != state) {
+									markDirty(item);
 								}
-								addressListStr = addressListStr.substring(0, addressListStr.length()-1);
 							}
-							group.setAddressList(addressListStr);
-							JobAdminConfig.getAdminConfig().getJobGroupMapper().update(group);
+						}
+						if (!changedApps.isEmpty()) {
+							refreshGroups(changedApps);
+						}
+						if (failed) {
+							TimeUnit.MILLISECONDS.sleep(SYNC_RETRY_INTERVAL_MS);
 						}
 					}
 				} catch (Exception e) {
@@ -79,13 +165,6 @@ public class JobRegistryMonitorHelper {
 						logger.error(">>>>>>>>>>> datax-web, job registry monitor thread error:{}", e);
 					}
 				}
-				try {
-					TimeUnit.SECONDS.sleep(RegistryConfig.BEAT_TIMEOUT);
-				} catch (InterruptedException e) {
-					if (!toStop) {
-						logger.error(">>>>>>>>>>> datax-web, job registry monitor thread error:{}", e);
-					}
-				}
 			}
 			logger.info(">>>>>>>>>>> datax-web, job registry monitor thread stop");
 		});
@@ -103,6 +182,197 @@ public class JobRegistryMonitorHelper {
 		} catch (InterruptedException e) {
 			logger.error(e.getMessage(), e);
 		}
+		livenessWheel.stop();
+	}
+
+
+	// ---------------------- registry beat ----------------------
+
+	private static String registrationId(String registryGroup, String registryKey, String registryValue) {
+		return registryGroup + "/" + registryKey + "/" + registryValue;
+	}
+
+	/**
+	 * registry beat, memory only unless it joins or its lease is due
+	 */
+	public void registry(RegistryParam registryParam) {
+		long nowTime = System.currentTimeMillis();
+		String id = registrationId(registryParam.getRegistryGroup(), registryParam.getRegistryKey(), registryParam.getRegistryValue());
+
+		boolean join = false;
+		Registration registration = registrations.get(id);
+		if (registration == null) {
+			Registration newRegistration = new Registration(registryParam.getRegistryGroup(), registryParam.getRegistryKey(), registryParam.getRegistryValue());
+			newRegistration.beatTime = nowTime;
+			registration = registrations.putIfAbsent(id, newRegistration);
+			if (registration == null) {
+				registration = newRegistration;
+				join = true;
+			}
+		}
+		registration.cpuUsage = registryParam.getCpuUsage();
+		registration.memoryUsage = registryParam.getMemoryUsage();
+		registration.loadAverage = registryParam.getLoadAverage();
+		registration.beatTime = nowTime;
+		beats.incrementAndGet();
+
+		if (join) {
+			joins.incrementAndGet();
+			markDirty(registration);
+			watch(registration, deadTimeoutMs);
+		} else if (nowTime - registration.touchTime >= leaseRefreshMs) {
+			markDirty(registration);
+		}
+	}
+
+	/**
+	 * registry stopped
+	 */
+	public void registryRemove(RegistryParam registryParam) {
+		String id = registrationId(registryParam.getRegistryGroup(), registryParam.getRegistryKey(), registryParam.getRegistryValue());
+		Registration registration = registrations.remove(id);
+		if (registration == null) {
+			// beat to another admin node
+			registration = new Registration(registryParam.getRegistryGroup(), registryParam.getRegistryKey(), registryParam.getRegistryValue());
+		}
+		registration.state = State.REMOVED;
+		leaves.incrementAndGet();
+		markDirty(registration);
+	}
+
+	private void markDirty(Registration registration) {
+		if (registration.queued.compareAndSet(false, true)) {
+			dirtyQueue.offer(registration);
+		}
+	}
+
+	/**
+	 * check once per dead timeout, not re-armed by each beat
+	 */
+	private void watch(final Registration registration, long delayMs) {
+		livenessWheel.newTimeout(timeout -> {
+			if (registration.state != State.ALIVE) {
+				return;
+			}
+			long idle = System.currentTimeMillis() - registration.beatTime;
+			if (idle < deadTimeoutMs) {
+				watch(registration, deadTimeoutMs - idle);
+				return;
+			}
+
+			String id = registrationId(registration.registryGroup, registration.registryKey, registration.registryValue);
+			if (registrations.remove(id, registration)) {
+				registration.state = State.DEAD;
+				leaves.incrementAndGet();
+				markDirty(registration);
+				logger.info(">>>>>>>>>>> datax-web, registry dead, no beat for {}ms: {}", idle, id);
+			}
+		}, delayMs, TimeUnit.MILLISECONDS);
+	}
+
+
+	// ---------------------- db ----------------------
+
+	/**
+	 * write the registry to db, on the registry thread
+	 *
+	 * @return true if the db membership changed
+	 */
+	private boolean sync(Registration registration, State state) {
+		JobRegistryMapper jobRegistryMapper = JobAdminConfig.getAdminConfig().getJobRegistryMapper();
+		Date now = new Date();
+		dbWrites.incrementAndGet();
+
+		switch (state) {
+			case REMOVED:
+				return jobRegistryMapper.registryDelete(registration.registryGroup, registration.registryKey, registration.registryValue) > 0;
+			case DEAD:
+				// not if another admin node got its beats since
+				return jobRegistryMapper.registryDeleteDead(registration.registryGroup, registration.registryKey, registration.registryValue,
+						(int) TimeUnit.MILLISECONDS.toSeconds(deadTimeoutMs), now) > 0;
+			default:
+				registration.touchTime = now.getTime();
+				int ret = jobRegistryMapper.registryUpdate(registration.registryGroup, registration.registryKey, registration.registryValue,
+						registration.cpuUsage, registration.memoryUsage, registration.loadAverage, now);
+				if (ret > 0) {
+					return false;
+				}
+				jobRegistryMapper.registrySave(registration.registryGroup, registration.registryKey, registration.registryValue,
+						registration.cpuUsage, registration.memoryUsage, registration.loadAverage, now);
+				return true;
+		}
+	}
+
+	private void reconcile() {
+		reconciles.incrementAndGet();
+
+		// remove rows not touched by any admin node
+		List<Integer> ids = JobAdminConfig.getAdminConfig().getJobRegistryMapper().findDead(LEASE_TIMEOUT_SECONDS, new Date());
+		if (ids!=null && ids.size()>0) {
+			JobAdminConfig.getAdminConfig().getJobRegistryMapper().removeDead(ids);
+		}
+
+		refreshGroups(null);
+
+		// in-flight jobs whose callback never came
+		ExecutorLoadCache.getInstance().expire();
+		ExecutorHealthCache.getInstance().expire();
+	}
+
+	/**
+	 * rebuild the address list of auto registry groups from db, write the changed ones
+	 *
+	 * @param appNames  null for all
+	 */
+	private void refreshGroups(Set<String> appNames) {
+		List<JobGroup> groupList = JobAdminConfig.getAdminConfig().getJobGroupMapper().findByAddressType(0);
+		if (groupList == null || groupList.isEmpty()) {
+			return;
+		}
+
+		// online address, sorted
+		Map<String, TreeSet<String>> appAddressMap = new HashMap<>();
+		List<JobRegistry> list = JobAdminConfig.getAdminConfig().getJobRegistryMapper().findAll(LEASE_TIMEOUT_SECONDS, new Date());
+		if (list != null) {
+			for (JobRegistry item: list) {
+				if (RegistryConfig.RegistType.EXECUTOR.name().equals(item.getRegistryGroup())) {
+					// beats sent to other admin nodes, as of their last lease touch
+					ExecutorLoadCache.getInstance().update(item.getRegistryValue(),
+							item.getCpuUsage(), item.getMemoryUsage(), item.getLoadAverage(), item.getUpdateTime().getTime(), DB_LOAD_MAX_AGE_MS);
+
+					appAddressMap.computeIfAbsent(item.getRegistryKey(), k -> new TreeSet<>()).add(item.getRegistryValue());
+				}
+			}
+		}
+
+		// fresh group address
+		for (JobGroup group: groupList) {
+			if (appNames != null && !appNames.contains(group.getAppName())) {
+				continue;
+			}
+			TreeSet<String> registrySet = appAddressMap.get(group.getAppName());
+			String addressListStr = (registrySet != null && !registrySet.isEmpty()) ? String.join(",", registrySet) : null;
+			if (!Objects.equals(group.getAddressList(), addressListStr)) {
+				group.setAddressList(addressListStr);
+				JobAdminConfig.getAdminConfig().getJobGroupMapper().update(group);
+				JobSnapshotCache.getInstance().invalidateJobGroup(group.getId());
+				groupUpdates.incrementAndGet();
+				logger.info(">>>>>>>>>>> datax-web, registry group address changed, appName:{}, address:{}", group.getAppName(), addressListStr);
+			}
+		}
+	}
+
+	public Map<String, Object> metrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		metrics.put("registrations", registrations.size());
+		metrics.put("beats", beats.get());
+		metrics.put("joins", joins.get());
+		metrics.put("leaves", leaves.get());
+		metrics.put("dbWrites", dbWrites.get());
+		metrics.put("groupUpdates", groupUpdates.get());
+		metrics.put("reconciles", reconciles.get());
+		metrics.put("dirtyQueue", dirtyQueue.size());
+		return metrics;
 	}
 
 }
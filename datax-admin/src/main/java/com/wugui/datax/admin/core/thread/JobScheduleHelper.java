@@ -1,7 +1,11 @@
 package com.wugui.datax.admin.core.thread;
 
 import com.wugui.datax.admin.core.conf.JobAdminConfig;
-import com.wugui.datax.admin.core.cron.CronExpression;
+import com.wugui.datax.admin.core.cron.CompiledCron;
+import com.wugui.datax.admin.core.cron.CronCache;
+import com.wugui.datax.admin.core.timer.RingScheduleTimer;
+import com.wugui.datax.admin.core.timer.ScheduleTimer;
+import com.wugui.datax.admin.core.timer.WheelScheduleTimer;
 import com.wugui.datax.admin.core.trigger.TriggerTypeEnum;
 import com.wugui.datax.admin.entity.JobInfo;
 import org.slf4j.Logger;
@@ -12,8 +16,8 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.text.ParseException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
 /**
  * @author xuxueli 2019-05-21
@@ -28,15 +32,34 @@ public class JobScheduleHelper {
     }
 
     public static final long PRE_READ_MS = 5000;    // pre read
+    public static final String RING_ENGINE = "ring";    // legacy second ring, fallback of timing wheel
+    public static final String PARTITION_MODE = "partition";    // partition lease per admin node, fallback is the global schedule_lock
 
     private Thread scheduleThread;
-    private Thread ringThread;
     private volatile boolean scheduleThreadToStop = false;
-    private volatile boolean ringThreadToStop = false;
-    private volatile static Map<Integer, List<Integer>> ringData = new ConcurrentHashMap<>();
+    private ScheduleTimer scheduleTimer;
+    private boolean partitionMode = false;
+
+    // scan metrics, written by schedule thread only
+    private static final int SCHEDULE_UPDATE_BATCH = 500;
+    private volatile long scanCount = 0;
+    private volatile long scanRowsTotal = 0;
+    private volatile int lastScanRows = 0;
+    private volatile long lockHoldTotalMs = 0;
+    private volatile long lastLockHoldMs = 0;
+    private volatile long maxLockHoldMs = 0;
 
     public void start() {
 
+        // schedule timer engine
+        scheduleTimer = makeScheduleTimer();
+
+        // schedule mode
+        partitionMode = PARTITION_MODE.equalsIgnoreCase(JobAdminConfig.getAdminConfig().getScheduleMode());
+        if (partitionMode) {
+            JobSchedulePartitionHelper.getInstance().start();
+        }
+
         // schedule thread
         scheduleThread = new Thread(new Runnable() {
             @Override
@@ -64,21 +87,38 @@ public class JobScheduleHelper {
                     PreparedStatement preparedStatement = null;
 
                     boolean preReadSuc = true;
+                    long lockTime = 0;
+                    int scanRows = 0;
                     try {
 
-                        conn = JobAdminConfig.getAdminConfig().getDataSource().getConnection();
-                        connAutoCommit = conn.getAutoCommit();
-                        conn.setAutoCommit(false);
+                        // partition mode: scan owned partitions only, no global lock
+                        int[] partitions = null;
+                        if (partitionMode) {
+                            partitions = JobSchedulePartitionHelper.getInstance().ownedPartitions(start);
+                        } else {
+                            conn = JobAdminConfig.getAdminConfig().getDataSource().getConnection();
+                            connAutoCommit = conn.getAutoCommit();
+                            conn.setAutoCommit(false);
 
-                        preparedStatement = conn.prepareStatement("select * from job_lock where lock_name = 'schedule_lock' for update");
-                        preparedStatement.execute();
+                            preparedStatement = conn.prepareStatement("select * from job_lock where lock_name = 'schedule_lock' for update");
+                            preparedStatement.execute();
+                        }
+                        lockTime = System.currentTimeMillis();
 
                         // tx start
 
                         // 1、pre read
                         long nowTime = System.currentTimeMillis();
-                        List<JobInfo> scheduleList = JobAdminConfig.getAdminConfig().getJobInfoMapper().scheduleJobQuery(nowTime + PRE_READ_MS, preReadCount);
+                        List<JobInfo> scheduleList = null;
+                        if (!partitionMode) {
+                            scheduleList = JobAdminConfig.getAdminConfig().getJobInfoMapper().scheduleJobQuery(nowTime + PRE_READ_MS, preReadCount);
+                        } else if (partitions.length > 0) {
+                            scheduleList = JobAdminConfig.getAdminConfig().getJobInfoMapper().scheduleJobQueryByPartition(nowTime + PRE_READ_MS, preReadCount,
+                                    JobSchedulePartitionHelper.getInstance().getPartitionCount(), partitions);
+                        }
                         if (scheduleList != null && scheduleList.size() > 0) {
+                            scanRows = scheduleList.size();
+
                             // 2、push time-ring
                             for (JobInfo jobInfo : scheduleList) {
 
@@ -97,43 +137,36 @@ public class JobScheduleHelper {
                                     JobTriggerPoolHelper.trigger(jobInfo.getId(), TriggerTypeEnum.CRON, -1, null, null);
                                     logger.debug(">>>>>>>>>>> datax-web, schedule push trigger : jobId = " + jobInfo.getId());
 
-                                    // 2、fresh next
-                                    refreshNextValidTime(jobInfo, new Date());
+                                    // 2、fresh next, the two upcoming fire times are computed at once
+                                    long[] nextTimes = CronCache.getInstance().compile(jobInfo.getJobCron()).nextN(System.currentTimeMillis(), 2);
+                                    refreshNextValidTime(jobInfo, nextTimes.length > 0 ? nextTimes[0] : -1);
 
                                     // next-trigger-time in 5s, pre-read again
                                     if (jobInfo.getTriggerStatus() == 1 && nowTime + PRE_READ_MS > jobInfo.getTriggerNextTime()) {
 
-                                        // 1、make ring second
-                                        int ringSecond = (int) ((jobInfo.getTriggerNextTime() / 1000) % 60);
-
-                                        // 2、push time ring
-                                        pushTimeRing(ringSecond, jobInfo.getId());
+                                        // 1、push time ring
+                                        pushTimeRing(jobInfo.getTriggerNextTime(), jobInfo.getId());
 
-                                        // 3、fresh next
-                                        refreshNextValidTime(jobInfo, new Date(jobInfo.getTriggerNextTime()));
+                                        // 2、fresh next
+                                        refreshNextValidTime(jobInfo, nextTimes.length > 1 ? nextTimes[1] : -1);
 
                                     }
 
                                 } else {
                                     // 2.3、trigger-pre-read：time-ring trigger && make next-trigger-time
 
-                                    // 1、make ring second
-                                    int ringSecond = (int) ((jobInfo.getTriggerNextTime() / 1000) % 60);
+                                    // 1、push time ring
+                                    pushTimeRing(jobInfo.getTriggerNextTime(), jobInfo.getId());
 
-                                    // 2、push time ring
-                                    pushTimeRing(ringSecond, jobInfo.getId());
-
-                                    // 3、fresh next
+                                    // 2、fresh next
                                     refreshNextValidTime(jobInfo, new Date(jobInfo.getTriggerNextTime()));
 
                                 }
 
                             }
 
-                            // 3、update trigger info
-                            for (JobInfo jobInfo : scheduleList) {
-                                JobAdminConfig.getAdminConfig().getJobInfoMapper().scheduleUpdate(jobInfo);
-                            }
+                            // 3、update trigger info, batched
+                            scheduleUpdate(scheduleList);
 
                         } else {
                             preReadSuc = false;
@@ -186,6 +219,11 @@ public class JobScheduleHelper {
                     }
                     long cost = System.currentTimeMillis() - start;
 
+                    // scan metrics
+                    if (lockTime > 0) {
+                        recordScan(System.currentTimeMillis() - lockTime, scanRows);
+                    }
+
 
                     // Wait seconds, align second
                     if (cost < 1000) {  // scan-overtime, not wait
@@ -209,69 +247,19 @@ public class JobScheduleHelper {
         scheduleThread.start();
 
 
-        // ring thread
-        ringThread = new Thread(() -> {
-
-            // align second
-            try {
-                TimeUnit.MILLISECONDS.sleep(1000 - System.currentTimeMillis() % 1000);
-            } catch (InterruptedException e) {
-                if (!ringThreadToStop) {
-                    logger.error(e.getMessage(), e);
-                }
-            }
-
-            while (!ringThreadToStop) {
-
-                try {
-                    // second data
-                    List<Integer> ringItemData = new ArrayList<>();
-                    int nowSecond = Calendar.getInstance().get(Calendar.SECOND);   // 避免处理耗时太长，跨过刻度，向前校验一个刻度；
-                    for (int i = 0; i < 2; i++) {
-                        List<Integer> tmpData = ringData.remove((nowSecond + 60 - i) % 60);
-                        if (tmpData != null) {
-                            ringItemData.addAll(tmpData);
-                        }
-                    }
-
-                    // ring trigger
-                    logger.debug(">>>>>>>>>>> datax-web, time-ring beat : " + nowSecond + " = " + Arrays.asList(ringItemData));
-                    if (ringItemData.size() > 0) {
-                        // do trigger
-                        for (int jobId : ringItemData) {
-                            // do trigger
-                            JobTriggerPoolHelper.trigger(jobId, TriggerTypeEnum.CRON, -1, null, null);
-                        }
-                        // clear
-                        ringItemData.clear();
-                    }
-                } catch (Exception e) {
-                    if (!ringThreadToStop) {
-                        logger.error(">>>>>>>>>>> datax-web, JobScheduleHelper#ringThread error:{}", e);
-                    }
-                }
-
-                // next second, align second
-                try {
-                    TimeUnit.MILLISECONDS.sleep(1000 - System.currentTimeMillis() % 1000);
-                } catch (InterruptedException e) {
-                    if (!ringThreadToStop) {
-                        logger.error(e.getMessage(), e);
-                    }
-                }
-            }
-            logger.info(">>>>>>>>>>> datax-web, JobScheduleHelper#ringThread stop");
-        });
-        ringThread.setDaemon(true);
-        ringThread.setName("datax-web, admin JobScheduleHelper#ringThread");
-        ringThread.start();
+        // schedule timer
+        scheduleTimer.start();
     }
 
     private void refreshNextValidTime(JobInfo jobInfo, Date fromTime) throws ParseException {
-        Date nextValidTime = new CronExpression(jobInfo.getJobCron()).getNextValidTimeAfter(fromTime);
-        if (nextValidTime != null) {
+        CompiledCron compiledCron = CronCache.getInstance().compile(jobInfo.getJobCron());
+        refreshNextValidTime(jobInfo, compiledCron.next(fromTime.getTime()));
+    }
+
+    private void refreshNextValidTime(JobInfo jobInfo, long nextValidTime) {
+        if (nextValidTime > 0) {
             jobInfo.setTriggerLastTime(jobInfo.getTriggerNextTime());
-            jobInfo.setTriggerNextTime(nextValidTime.getTime());
+            jobInfo.setTriggerNextTime(nextValidTime);
         } else {
             jobInfo.setTriggerStatus(0);
             jobInfo.setTriggerLastTime(0);
@@ -279,16 +267,82 @@ public class JobScheduleHelper {
         }
     }
 
-    private void pushTimeRing(int ringSecond, int jobId) {
+    private void scheduleUpdate(List<JobInfo> scheduleList) {
+        for (int from = 0; from < scheduleList.size(); from += SCHEDULE_UPDATE_BATCH) {
+            int to = Math.min(from + SCHEDULE_UPDATE_BATCH, scheduleList.size());
+            JobAdminConfig.getAdminConfig().getJobInfoMapper().scheduleUpdateBatch(scheduleList.subList(from, to));
+        }
+    }
+
+    private void recordScan(long lockHoldMs, int scanRows) {
+        scanCount++;
+        scanRowsTotal += scanRows;
+        lastScanRows = scanRows;
+        lockHoldTotalMs += lockHoldMs;
+        lastLockHoldMs = lockHoldMs;
+        if (lockHoldMs > maxLockHoldMs) {
+            maxLockHoldMs = lockHoldMs;
+        }
+        if (lockHoldMs > 1000) {
+            logger.warn(">>>>>>>>>>> datax-web, schedule scan hold lock too long, lockHoldMs = {}, rows = {}", lockHoldMs, scanRows);
+        }
+    }
+
+    private void pushTimeRing(long triggerTime, int jobId) {
         // push async ring
-        List<Integer> ringItemData = ringData.get(ringSecond);
-        if (ringItemData == null) {
-            ringItemData = new ArrayList<Integer>();
-            ringData.put(ringSecond, ringItemData);
+        scheduleTimer.push(jobId, triggerTime);
+    }
+
+    private ScheduleTimer makeScheduleTimer() {
+        IntConsumer trigger = jobId -> JobTriggerPoolHelper.trigger(jobId, TriggerTypeEnum.CRON, -1, null, null);
+
+        String engine = JobAdminConfig.getAdminConfig().getScheduleEngine();
+        if (RING_ENGINE.equalsIgnoreCase(engine)) {
+            return new RingScheduleTimer(trigger);
         }
-        ringItemData.add(jobId);
+        return new WheelScheduleTimer(JobAdminConfig.getAdminConfig().getScheduleWheelTickMs(),
+                JobAdminConfig.getAdminConfig().getScheduleWheelSize(), trigger);
+    }
+
+    /**
+     * schedule partition ownership, empty in lock mode
+     *
+     * @return
+     */
+    public Map<String, Object> partitionMetrics() {
+        if (!partitionMode) {
+            return Collections.emptyMap();
+        }
+        return JobSchedulePartitionHelper.getInstance().metrics();
+    }
 
-        logger.debug(">>>>>>>>>>> datax-web, schedule push time-ring : " + ringSecond + " = " + Arrays.asList(ringItemData));
+    /**
+     * schedule scan metrics, lock hold time is the schedule_lock tx time in lock mode, the scan time in partition mode
+     *
+     * @return
+     */
+    public Map<String, Object> scanMetrics() {
+        long scans = scanCount;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("scanCount", scans);
+        metrics.put("lastRows", lastScanRows);
+        metrics.put("avgRows", scans > 0 ? scanRowsTotal / scans : 0);
+        metrics.put("lastLockHoldMs", lastLockHoldMs);
+        metrics.put("maxLockHoldMs", maxLockHoldMs);
+        metrics.put("avgLockHoldMs", scans > 0 ? lockHoldTotalMs / scans : 0);
+        return metrics;
+    }
+
+    /**
+     * schedule timer capacity metrics
+     *
+     * @return
+     */
+    public Map<String, Object> timerMetrics() {
+        if (scheduleTimer == null) {
+            return Collections.emptyMap();
+        }
+        return scheduleTimer.metrics();
     }
 
     public void toStop() {
@@ -310,17 +364,13 @@ public class JobScheduleHelper {
             }
         }
 
-        // if has ring data
-        boolean hasRingData = false;
-        if (!ringData.isEmpty()) {
-            for (int second : ringData.keySet()) {
-                List<Integer> tmpData = ringData.get(second);
-                if (tmpData != null && tmpData.size() > 0) {
-                    hasRingData = true;
-                    break;
-                }
-            }
+        // hand over partitions
+        if (partitionMode) {
+            JobSchedulePartitionHelper.getInstance().toStop();
         }
+
+        // if has ring data
+        boolean hasRingData = scheduleTimer.pending() > 0;
         if (hasRingData) {
             try {
                 TimeUnit.SECONDS.sleep(8);
@@ -330,21 +380,7 @@ public class JobScheduleHelper {
         }
 
         // stop ring (wait job-in-memory stop)
-        ringThreadToStop = true;
-        try {
-            TimeUnit.SECONDS.sleep(1);
-        } catch (InterruptedException e) {
-            logger.error(e.getMessage(), e);
-        }
-        if (ringThread.getState() != Thread.State.TERMINATED) {
-            // interrupt and wait
-            ringThread.interrupt();
-            try {
-                ringThread.join();
-            } catch (InterruptedException e) {
-                logger.error(e.getMessage(), e);
-            }
-        }
+        scheduleTimer.stop();
 
         logger.info(">>>>>>>>>>> datax-web, JobScheduleHelper stop");
     }
@@ -0,0 +1,185 @@
+package com.wugui.datax.admin.core.thread;
+
+import com.wugui.datatx.core.enums.RegistryConfig;
+import com.wugui.datax.admin.core.conf.JobAdminConfig;
+import com.wugui.datax.admin.entity.JobRegistry;
+import com.wugui.datax.rpc.util.IpUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * partitioned multi-admin scheduling
+ *
+ *      a、job_info rows are split into N logical partitions by "id % N";
+ *      b、each partition is owned by one admin node through a lease in job_schedule_partition;
+ *      c、admin nodes beat into job_registry (ADMIN group), the alive node list decides the target owner of each partition,
+ *         so partitions rebalance when nodes join or leave;
+ *      d、beat and lease handover run on the schedule thread between two scans, a partition is never released mid-scan.
+ *
+ * all admin nodes must use the same schedule mode and partition count.
+ */
+public class JobSchedulePartitionHelper {
+    private static Logger logger = LoggerFactory.getLogger(JobSchedulePartitionHelper.class);
+
+    private static JobSchedulePartitionHelper instance = new JobSchedulePartitionHelper();
+
+    public static JobSchedulePartitionHelper getInstance() {
+        return instance;
+    }
+
+    public static final String ADMIN_REGISTRY_KEY = "datax-admin";
+    public static final int BEAT_SECONDS = 10;
+    public static final int LEASE_SECONDS = BEAT_SECONDS * 3;
+
+    private String nodeAddress;
+    private int partitionCount;
+
+    private long nextBeatTime = 0;
+    private volatile List<String> aliveNodes = Collections.emptyList();
+    private volatile int[] ownedPartitions = new int[0];
+    private volatile long leaseExpireTime = 0;
+
+    public void start() {
+        nodeAddress = IpUtil.getIpPort(JobAdminConfig.getAdminConfig().getServerPort());
+        partitionCount = JobAdminConfig.getAdminConfig().getSchedulePartitionCount();
+
+        // init partition rows, existing rows are kept
+        List<Integer> partitionIds = new ArrayList<>();
+        for (int i = 0; i < partitionCount; i++) {
+            partitionIds.add(i);
+        }
+        JobAdminConfig.getAdminConfig().getJobSchedulePartitionMapper().initPartition(partitionIds);
+
+        logger.info(">>>>>>>>> datax-web, schedule partition init, node = {}, partitionCount = {}", nodeAddress, partitionCount);
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * partitions this node may scan now, beat and rebalance when due; only called by the schedule thread
+     *
+     * @param nowTime
+     * @return
+     */
+    public int[] ownedPartitions(long nowTime) {
+        if (nowTime >= nextBeatTime) {
+            try {
+                beat(nowTime);
+            } catch (Exception e) {
+                // leases not renewed or only partly handed over, scan nothing until the next beat succeeds
+                ownedPartitions = new int[0];
+                leaseExpireTime = 0;
+                logger.error(">>>>>>>>>>> datax-web, schedule partition beat error:{}", e);
+            }
+            nextBeatTime = nowTime + BEAT_SECONDS * 1000L;
+        }
+
+        // the lease must outlive the pre-read window, or another node may take over while triggers are in flight
+        if (leaseExpireTime < nowTime + JobScheduleHelper.PRE_READ_MS * 2) {
+            return new int[0];
+        }
+        return ownedPartitions;
+    }
+
+    private void beat(long nowTime) {
+        Date now = new Date(nowTime);
+
+        // 1、admin node beat
+        int ret = JobAdminConfig.getAdminConfig().getJobRegistryMapper().registryUpdate(RegistryConfig.RegistType.ADMIN.name(),
+                ADMIN_REGISTRY_KEY, nodeAddress, 0, 0, 0, now);
+        if (ret < 1) {
+            JobAdminConfig.getAdminConfig().getJobRegistryMapper().registrySave(RegistryConfig.RegistType.ADMIN.name(),
+                    ADMIN_REGISTRY_KEY, nodeAddress, 0, 0, 0, now);
+        }
+
+        // 2、alive admin nodes
+        TreeSet<String> nodeSet = new TreeSet<>();
+        nodeSet.add(nodeAddress);
+        List<JobRegistry> list = JobAdminConfig.getAdminConfig().getJobRegistryMapper().findAll(LEASE_SECONDS, now);
+        if (list != null) {
+            for (JobRegistry item : list) {
+                if (RegistryConfig.RegistType.ADMIN.name().equals(item.getRegistryGroup())
+                        && ADMIN_REGISTRY_KEY.equals(item.getRegistryKey())) {
+                    nodeSet.add(item.getRegistryValue());
+                }
+            }
+        }
+        List<String> nodes = new ArrayList<>(nodeSet);
+        int nodeIndex = nodes.indexOf(nodeAddress);
+
+        // 3、release partitions handed over to other nodes, no longer scanned before the lease is released
+        int[] previous = ownedPartitions;
+        List<Integer> kept = new ArrayList<>();
+        List<Integer> released = new ArrayList<>();
+        for (int partitionId : previous) {
+            if (partitionId % nodes.size() != nodeIndex) {
+                released.add(partitionId);
+            } else {
+                kept.add(partitionId);
+            }
+        }
+        if (!released.isEmpty()) {
+            ownedPartitions = toArray(kept);
+            for (int partitionId : released) {
+                JobAdminConfig.getAdminConfig().getJobSchedulePartitionMapper().releaseLease(partitionId, nodeAddress);
+                logger.info(">>>>>>>>> datax-web, schedule partition release, partition = {}, node = {}", partitionId, nodeAddress);
+            }
+        }
+
+        // 4、acquire or renew target partitions
+        long newLeaseExpireTime = nowTime + LEASE_SECONDS * 1000L;
+        List<Integer> acquired = new ArrayList<>();
+        for (int partitionId = nodeIndex; partitionId < partitionCount; partitionId += nodes.size()) {
+            int lockRet = JobAdminConfig.getAdminConfig().getJobSchedulePartitionMapper().acquireLease(partitionId, nodeAddress, nowTime, newLeaseExpireTime);
+            if (lockRet > 0) {
+                acquired.add(partitionId);
+            }
+        }
+
+        int[] partitions = toArray(acquired);
+        if (!nodes.equals(aliveNodes) || !Arrays.equals(partitions, previous)) {
+            logger.info(">>>>>>>>> datax-web, schedule partition rebalance, nodes = {}, owned = {}", nodes, Arrays.toString(partitions));
+        }
+
+        aliveNodes = nodes;
+        ownedPartitions = partitions;
+        leaseExpireTime = newLeaseExpireTime;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("node", nodeAddress);
+        metrics.put("partitionCount", partitionCount);
+        metrics.put("nodes", aliveNodes);
+        metrics.put("ownedPartitions", ownedPartitions);
+        metrics.put("leaseExpireTime", leaseExpireTime);
+        return metrics;
+    }
+
+    public void toStop() {
+        // hand over partitions at once, other nodes take over on their next beat
+        try {
+            JobAdminConfig.getAdminConfig().getJobSchedulePartitionMapper().releaseAll(nodeAddress);
+            JobAdminConfig.getAdminConfig().getJobRegistryMapper().registryDelete(RegistryConfig.RegistType.ADMIN.name(),
+                    ADMIN_REGISTRY_KEY, nodeAddress);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+        ownedPartitions = new int[0];
+        leaseExpireTime = 0;
+        logger.info(">>>>>>>>>>> datax-web, JobSchedulePartitionHelper stop");
+    }
+
+}
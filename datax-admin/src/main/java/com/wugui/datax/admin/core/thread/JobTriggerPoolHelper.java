@@ -3,11 +3,13 @@ package com.wugui.datax.admin.core.thread;
 import com.wugui.datax.admin.core.conf.JobAdminConfig;
 import com.wugui.datax.admin.core.trigger.TriggerTypeEnum;
 import com.wugui.datax.admin.core.trigger.JobTrigger;
+import com.wugui.datax.admin.core.trigger.JobTriggerPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * job trigger thread pool helper
@@ -20,13 +22,29 @@ public class JobTriggerPoolHelper {
 
     // ---------------------- trigger pool ----------------------
 
+    public static final String PIPELINE_MODE = "pipeline";
+
+    // pipeline mode: staged async trigger, see JobTriggerPipeline
+    private boolean pipelineMode = false;
+
     // fast/slow thread pool
+    private static final int POOL_CORE_MIN = 10;
     private ThreadPoolExecutor fastTriggerPool = null;
     private ThreadPoolExecutor slowTriggerPool = null;
 
+    // pool monitor, resize pools by queue depth, prune idle classifier entries
+    private Thread poolMonitorThread;
+    private volatile boolean poolMonitorToStop = false;
+
     public void start() {
+        pipelineMode = PIPELINE_MODE.equalsIgnoreCase(JobAdminConfig.getAdminConfig().getTriggerMode());
+        if (pipelineMode) {
+            JobTriggerPipeline.getInstance().start();
+            return;
+        }
+
         fastTriggerPool = new ThreadPoolExecutor(
-                10,
+                POOL_CORE_MIN,
                 JobAdminConfig.getAdminConfig().getTriggerPoolFastMax(),
                 60L,
                 TimeUnit.SECONDS,
@@ -39,7 +57,7 @@ public class JobTriggerPoolHelper {
                 });
 
         slowTriggerPool = new ThreadPoolExecutor(
-                10,
+                POOL_CORE_MIN,
                 JobAdminConfig.getAdminConfig().getTriggerPoolSlowMax(),
                 60L,
                 TimeUnit.SECONDS,
@@ -50,10 +68,63 @@ public class JobTriggerPoolHelper {
                         return new Thread(r, "datax-web, admin JobTriggerPoolHelper-slowTriggerPool-" + r.hashCode());
                     }
                 });
+
+        poolMonitorThread = new Thread(() -> {
+            while (!poolMonitorToStop) {
+                try {
+                    TimeUnit.SECONDS.sleep(POOL_MONITOR_SECONDS);
+                } catch (InterruptedException e) {
+                    if (!poolMonitorToStop) {
+                        logger.error(e.getMessage(), e);
+                    }
+                }
+                if (poolMonitorToStop) {
+                    break;
+                }
+                try {
+                    resizePool(fastTriggerPool);
+                    resizePool(slowTriggerPool);
+                    latencyClassifier.prune(System.currentTimeMillis());
+                } catch (Exception e) {
+                    logger.error(">>>>>>>>>>> datax-web, JobTriggerPoolHelper pool monitor error:{}", e);
+                }
+            }
+        });
+        poolMonitorThread.setDaemon(true);
+        poolMonitorThread.setName("datax-web, admin JobTriggerPoolHelper-poolMonitor");
+        poolMonitorThread.start();
+    }
+
+    /**
+     * pools only grow past the core size when the queue is full, so the core size follows the queue depth:
+     * doubled while tasks are queued beyond the core size, halved while the pool is mostly idle
+     */
+    private void resizePool(ThreadPoolExecutor pool) {
+        int corePoolSize = pool.getCorePoolSize();
+        int queueDepth = pool.getQueue().size();
+
+        int newCorePoolSize = corePoolSize;
+        if (queueDepth > corePoolSize) {
+            newCorePoolSize = Math.min(corePoolSize * 2, pool.getMaximumPoolSize());
+        } else if (queueDepth == 0 && pool.getActiveCount() < corePoolSize / 4) {
+            newCorePoolSize = Math.max(corePoolSize / 2, POOL_CORE_MIN);
+        }
+        if (newCorePoolSize != corePoolSize) {
+            pool.setCorePoolSize(newCorePoolSize);
+            logger.debug(">>>>>>>>>>> datax-web, trigger pool resize, corePoolSize {} -> {}, queueDepth = {}", corePoolSize, newCorePoolSize, queueDepth);
+        }
     }
 
 
     public void stop() {
+        if (pipelineMode) {
+            JobTriggerPipeline.getInstance().toStop();
+            return;
+        }
+
+        poolMonitorToStop = true;
+        poolMonitorThread.interrupt();
+
         //triggerPool.shutdown();
         fastTriggerPool.shutdownNow();
         slowTriggerPool.shutdownNow();
@@ -61,9 +132,9 @@ public class JobTriggerPoolHelper {
     }
 
 
-    // job timeout count
-    private volatile long minTim = System.currentTimeMillis() / 60000;     // ms > min
-    private volatile ConcurrentMap<Integer, AtomicInteger> jobTimeoutCountMap = new ConcurrentHashMap<>();
+    // job trigger latency, slow above 500ms EWMA, fast again below 250ms, forgotten after 1h idle
+    private static final int POOL_MONITOR_SECONDS = 5;
+    private final TriggerLatencyClassifier latencyClassifier = new TriggerLatencyClassifier(500, 250, 60 * 60 * 1000L);
 
 
     /**
@@ -71,10 +142,15 @@ public class JobTriggerPoolHelper {
      */
     public void addTrigger(final int jobId, final TriggerTypeEnum triggerType, final int failRetryCount, final String executorShardingParam, final String executorParam) {
 
+        // pipeline
+        if (pipelineMode) {
+            JobTriggerPipeline.getInstance().trigger(jobId, triggerType, failRetryCount, executorShardingParam, executorParam);
+            return;
+        }
+
         // choose thread pool
         ThreadPoolExecutor triggerPool_ = fastTriggerPool;
-        AtomicInteger jobTimeoutCount = jobTimeoutCountMap.get(jobId);
-        if (jobTimeoutCount != null && jobTimeoutCount.get() > 10) {      // job-timeout 10 times in 1 min
+        if (latencyClassifier.isSlow(jobId)) {
             triggerPool_ = slowTriggerPool;
         }
         // trigger
@@ -86,25 +162,39 @@ public class JobTriggerPoolHelper {
             } catch (Exception e) {
                 logger.error(e.getMessage(), e);
             } finally {
-                // check timeout-count-map
-                long minTim_now = System.currentTimeMillis() / 60000;
-                if (minTim != minTim_now) {
-                    minTim = minTim_now;
-                    jobTimeoutCountMap.clear();
-                }
-                // incr timeout-count-map
-                long cost = System.currentTimeMillis() - start;
-                if (cost > 500) {       // ob-timeout threshold 500ms
-                    AtomicInteger timeoutCount = jobTimeoutCountMap.putIfAbsent(jobId, new AtomicInteger(1));
-                    if (timeoutCount != null) {
-                        timeoutCount.incrementAndGet();
-                    }
-                }
+                // record trigger cost
+                long now = System.currentTimeMillis();
+                latencyClassifier.record(jobId, now - start, now);
             }
         });
     }
 
 
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("mode", pipelineMode ? PIPELINE_MODE : "pool");
+        if (pipelineMode) {
+            metrics.put("pipeline", JobTriggerPipeline.getInstance().metrics());
+        } else {
+            metrics.put("fastPool", poolMetrics(fastTriggerPool));
+            metrics.put("slowPool", poolMetrics(slowTriggerPool));
+            metrics.put("classifier", latencyClassifier.metrics());
+        }
+        return metrics;
+    }
+
+    private Map<String, Object> poolMetrics(ThreadPoolExecutor pool) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("corePoolSize", pool.getCorePoolSize());
+        metrics.put("maximumPoolSize", pool.getMaximumPoolSize());
+        metrics.put("poolSize", pool.getPoolSize());
+        metrics.put("activeCount", pool.getActiveCount());
+        metrics.put("queueSize", pool.getQueue().size());
+        metrics.put("completedTaskCount", pool.getCompletedTaskCount());
+        return metrics;
+    }
+
+
     // ---------------------- helper ----------------------
 
     private static JobTriggerPoolHelper helper = new JobTriggerPoolHelper();
@@ -117,6 +207,10 @@ public class JobTriggerPoolHelper {
         helper.stop();
     }
 
+    public static Map<String, Object> triggerMetrics() {
+        return helper.metrics();
+    }
+
     /**
      * @param jobId
      * @param triggerType
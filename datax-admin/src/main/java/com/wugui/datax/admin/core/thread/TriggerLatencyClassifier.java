@@ -0,0 +1,182 @@
+package com.wugui.datax.admin.core.thread;
+
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * per job trigger latency classifier, decides between the fast and slow trigger pool
+ *
+ *      a、keeps an EWMA of trigger cost per jobId, seeded with the first cost, EWMA and slow flag packed in one AtomicLong per job and updated by CAS;
+ *      b、primitive int keys in striped open-addressing maps, no boxed key per trigger and no global lock, the segment lock only covers the lookup;
+ *      c、hysteresis: a job turns slow when its EWMA rises above the slow threshold, and turns fast again only below the fast threshold;
+ *      d、entries idle longer than the expire time are pruned, the job starts over from its next cost.
+ *
+ * jobId must be > 0, others are never tracked.
+ */
+public class TriggerLatencyClassifier {
+
+    private static final double ALPHA = 0.2;
+    private static final int SEGMENTS = 16;
+
+    private final long slowThresholdMs;
+    private final long fastThresholdMs;
+    private final long expireMs;
+
+    private final IntObjectHashMap<JobLatency>[] segments;
+
+    /**
+     * state: EWMA float bits in the high 32 bits, slow flag in bit 0
+     */
+    private static final class JobLatency {
+        private final AtomicLong state;
+        private volatile long updateTime;
+
+        private JobLatency(long state, long updateTime) {
+            this.state = new AtomicLong(state);
+            this.updateTime = updateTime;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public TriggerLatencyClassifier(long slowThresholdMs, long fastThresholdMs, long expireMs) {
+        this.slowThresholdMs = slowThresholdMs;
+        this.fastThresholdMs = fastThresholdMs;
+        this.expireMs = expireMs;
+
+        segments = new IntObjectHashMap[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new IntObjectHashMap<JobLatency>();
+        }
+    }
+
+    private IntObjectHashMap<JobLatency> segment(int jobId) {
+        return segments[jobId & (SEGMENTS - 1)];
+    }
+
+    private JobLatency get(int jobId) {
+        IntObjectHashMap<JobLatency> segment = segment(jobId);
+        synchronized (segment) {
+            return segment.get(jobId);
+        }
+    }
+
+    public boolean isSlow(int jobId) {
+        JobLatency latency = jobId > 0 ? get(jobId) : null;
+        return latency != null && isSlow(latency.state.get());
+    }
+
+    /**
+     * record one trigger cost
+     *
+     * @param jobId
+     * @param costMs
+     * @param nowTime
+     */
+    public void record(int jobId, long costMs, long nowTime) {
+        if (jobId <= 0) {
+            return;
+        }
+        JobLatency latency;
+        IntObjectHashMap<JobLatency> segment = segment(jobId);
+        synchronized (segment) {
+            latency = segment.get(jobId);
+            if (latency == null) {
+                // first cost seeds the EWMA
+                segment.put(jobId, new JobLatency(pack(costMs, costMs > slowThresholdMs), nowTime));
+                return;
+            }
+        }
+
+        long state;
+        long newState;
+        do {
+            state = latency.state.get();
+            float ewma = ewma(state);
+            ewma += ALPHA * (costMs - ewma);
+
+            // hysteresis
+            boolean slow = isSlow(state);
+            if (!slow && ewma > slowThresholdMs) {
+                slow = true;
+            } else if (slow && ewma < fastThresholdMs) {
+                slow = false;
+            }
+            newState = pack(ewma, slow);
+        } while (!latency.state.compareAndSet(state, newState));
+        latency.updateTime = nowTime;
+    }
+
+    /**
+     * drop entries idle longer than the expire time
+     *
+     * @param nowTime
+     */
+    public void prune(long nowTime) {
+        long minUpdateTime = nowTime - expireMs;
+        for (IntObjectHashMap<JobLatency> segment : segments) {
+            synchronized (segment) {
+                Iterator<IntObjectMap.PrimitiveEntry<JobLatency>> iterator = segment.entries().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().value().updateTime < minUpdateTime) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (IntObjectHashMap<JobLatency> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public Map<String, Object> metrics() {
+        int tracked = 0;
+        Map<Integer, Long> slowJobs = new TreeMap<>();
+        for (IntObjectHashMap<JobLatency> segment : segments) {
+            synchronized (segment) {
+                tracked += segment.size();
+                for (IntObjectMap.PrimitiveEntry<JobLatency> item : segment.entries()) {
+                    long state = item.value().state.get();
+                    if (isSlow(state)) {
+                        slowJobs.put(item.key(), (long) Math.round(ewma(state)));
+                    }
+                }
+            }
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("slowThresholdMs", slowThresholdMs);
+        metrics.put("fastThresholdMs", fastThresholdMs);
+        metrics.put("tracked", tracked);
+        metrics.put("slowCount", slowJobs.size());
+        metrics.put("slowJobs", slowJobs);     // jobId : ewma ms
+        return metrics;
+    }
+
+    // ---------------------- packed state ----------------------
+
+    private static long pack(float ewma, boolean slow) {
+        return ((long) Float.floatToIntBits(ewma) << 32) | (slow ? 1 : 0);
+    }
+
+    private static float ewma(long state) {
+        return Float.intBitsToFloat((int) (state >>> 32));
+    }
+
+    private static boolean isSlow(long state) {
+        return (state & 1) != 0;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.wugui.datax.admin.core.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * legacy schedule timer, 60 slots keyed by second-of-minute, second precision
+ */
+public class RingScheduleTimer implements ScheduleTimer {
+    private static Logger logger = LoggerFactory.getLogger(RingScheduleTimer.class);
+
+    private final IntConsumer trigger;
+    private final Map<Integer, List<Integer>> ringData = new ConcurrentHashMap<>();
+
+    private Thread ringThread;
+    private volatile boolean ringThreadToStop = false;
+
+    public RingScheduleTimer(IntConsumer trigger) {
+        this.trigger = trigger;
+    }
+
+    @Override
+    public void start() {
+        ringThread = new Thread(() -> {
+
+            // align second
+            try {
+                TimeUnit.MILLISECONDS.sleep(1000 - System.currentTimeMillis() % 1000);
+            } catch (InterruptedException e) {
+                if (!ringThreadToStop) {
+                    logger.error(e.getMessage(), e);
+                }
+            }
+
+            while (!ringThreadToStop) {
+
+                try {
+                    // second data
+                    List<Integer> ringItemData = new ArrayList<>();
+                    int nowSecond = Calendar.getInstance().get(Calendar.SECOND);   // 避免处理耗时太长，跨过刻度，向前校验一个刻度；
+                    for (int i = 0; i < 2; i++) {
+                        List<Integer> tmpData = ringData.remove((nowSecond + 60 - i) % 60);
+                        if (tmpData != null) {
+                            ringItemData.addAll(tmpData);
+                        }
+                    }
+
+                    // ring trigger
+                    logger.debug(">>>>>>>>>>> datax-web, time-ring beat : " + nowSecond + " = " + Arrays.asList(ringItemData));
+                    if (ringItemData.size() > 0) {
+                        // do trigger
+                        for (int jobId : ringItemData) {
+                            trigger.accept(jobId);
+                        }
+                        // clear
+                        ringItemData.clear();
+                    }
+                } catch (Exception e) {
+                    if (!ringThreadToStop) {
+                        logger.error(">>>>>>>>>>> datax-web, RingScheduleTimer#ringThread error:{}", e);
+                    }
+                }
+
+                // next second, align second
+                try {
+                    TimeUnit.MILLISECONDS.sleep(1000 - System.currentTimeMillis() % 1000);
+                } catch (InterruptedException e) {
+                    if (!ringThreadToStop) {
+                        logger.error(e.getMessage(), e);
+                    }
+                }
+            }
+            logger.info(">>>>>>>>>>> datax-web, RingScheduleTimer#ringThread stop");
+        });
+        ringThread.setDaemon(true);
+        ringThread.setName("datax-web, admin JobScheduleHelper#ringThread");
+        ringThread.start();
+    }
+
+    @Override
+    public void push(int jobId, long triggerTime) {
+        // make ring second
+        int ringSecond = (int) ((triggerTime / 1000) % 60);
+
+        // push async ring, atomic with the ring thread's remove of the same slot
+        ringData.compute(ringSecond, (second, ringItemData) -> {
+            if (ringItemData == null) {
+                ringItemData = new ArrayList<>();
+            }
+            ringItemData.add(jobId);
+            return ringItemData;
+        });
+
+        logger.debug(">>>>>>>>>>> datax-web, schedule push time-ring : " + ringSecond + " = " + jobId);
+    }
+
+    @Override
+    public int pending() {
+        int pending = 0;
+        for (int second : ringData.keySet()) {
+            List<Integer> tmpData = ringData.get(second);
+            if (tmpData != null) {
+                pending += tmpData.size();
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("engine", "ring");
+        metrics.put("slots", ringData.size());
+        metrics.put("pending", pending());
+        return metrics;
+    }
+
+    @Override
+    public void stop() {
+        ringThreadToStop = true;
+        try {
+            TimeUnit.SECONDS.sleep(1);
+        } catch (InterruptedException e) {
+            logger.error(e.getMessage(), e);
+        }
+        if (ringThread != null && ringThread.getState() != Thread.State.TERMINATED) {
+            // interrupt and wait
+            ringThread.interrupt();
+            try {
+                ringThread.join();
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+}
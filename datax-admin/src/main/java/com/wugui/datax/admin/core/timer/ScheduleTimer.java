@@ -0,0 +1,45 @@
+package com.wugui.datax.admin.core.timer;
+
+import java.util.Map;
+
+/**
+ * schedule timer, holds pre-read job triggers in memory until their trigger time
+ *
+ *      a、ring：legacy 60-slot second ring, second precision
+ *      b、wheel：hierarchical hashed timing wheel, millisecond precision
+ */
+public interface ScheduleTimer {
+
+    /**
+     * start the timer worker
+     */
+    void start();
+
+    /**
+     * push job trigger
+     *
+     * @param jobId
+     * @param triggerTime   trigger time, ms
+     */
+    void push(int jobId, long triggerTime);
+
+    /**
+     * pending trigger count
+     *
+     * @return
+     */
+    int pending();
+
+    /**
+     * capacity metrics
+     *
+     * @return
+     */
+    Map<String, Object> metrics();
+
+    /**
+     * stop the timer worker, pending triggers are dropped
+     */
+    void stop();
+
+}
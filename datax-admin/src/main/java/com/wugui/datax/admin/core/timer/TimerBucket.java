@@ -0,0 +1,59 @@
+package com.wugui.datax.admin.core.timer;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * timing wheel bucket
+ *
+ *      a、add：lock-free push (treiber stack), safe for concurrent producers
+ *      b、flush：detach all entries at once, only called by the timer worker
+ */
+class TimerBucket implements Delayed {
+
+    private final AtomicReference<TimerEntry> head = new AtomicReference<>();
+    private final AtomicLong expiration = new AtomicLong(-1L);
+
+    void add(TimerEntry entry) {
+        TimerEntry current;
+        do {
+            current = head.get();
+            entry.next = current;
+        } while (!head.compareAndSet(current, entry));
+    }
+
+    /**
+     * @param expirationMs
+     * @return true if the expiration changed, bucket must be (re)queued
+     */
+    boolean setExpiration(long expirationMs) {
+        return expiration.getAndSet(expirationMs) != expirationMs;
+    }
+
+    long getExpiration() {
+        return expiration.get();
+    }
+
+    /**
+     * reset expiration first, then detach entries; entries added afterwards requeue the bucket
+     *
+     * @return detached entries, linked by next
+     */
+    TimerEntry flush() {
+        expiration.set(-1L);
+        return head.getAndSet(null);
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(Math.max(getExpiration() - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+        return Long.compare(getExpiration(), ((TimerBucket) o).getExpiration());
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.wugui.datax.admin.core.timer;
+
+/**
+ * timer entry, linked into a bucket
+ */
+class TimerEntry {
+
+    final int jobId;
+    final long expirationMs;
+
+    // next entry in bucket, owned by the bucket the entry is linked into, or by the expired chain of an advance
+    TimerEntry next;
+
+    TimerEntry(int jobId, long expirationMs) {
+        this.jobId = jobId;
+        this.expirationMs = expirationMs;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.wugui.datax.admin.core.timer;
+
+import java.util.concurrent.DelayQueue;
+
+/**
+ * hierarchical timing wheel
+ *
+ *      level-0 tick = tickMs, interval = tickMs * wheelSize;
+ *      level-n tick = interval of level-(n-1), created lazily when an entry overflows;
+ *      buckets are driven by a shared DelayQueue, so empty ticks cost nothing.
+ *
+ * add() is called under the timer read lock, advanceClock() under the write lock.
+ */
+class TimingWheel {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final int level;
+    private final TimerBucket[] buckets;
+    private final DelayQueue<TimerBucket> queue;
+
+    private long currentTime;
+    private volatile TimingWheel overflowWheel;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs, DelayQueue<TimerBucket> queue, int level) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.level = level;
+        this.queue = queue;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new TimerBucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new TimerBucket();
+        }
+    }
+
+    /**
+     * @param entry
+     * @return false if the entry is already expired and must be run directly
+     */
+    boolean add(TimerEntry entry) {
+        long expiration = entry.expirationMs;
+        if (expiration < currentTime + tickMs) {
+            // expired
+            return false;
+        } else if (expiration < currentTime + interval) {
+            // put in own bucket
+            long virtualId = expiration / tickMs;
+            TimerBucket bucket = buckets[(int) (virtualId % wheelSize)];
+            bucket.add(entry);
+            if (bucket.setExpiration(virtualId * tickMs)) {
+                queue.offer(bucket);
+            }
+            return true;
+        } else {
+            // out of interval, put in overflow wheel
+            return getOverflowWheel().add(entry);
+        }
+    }
+
+    void advanceClock(long timeMs) {
+        if (timeMs >= currentTime + tickMs) {
+            currentTime = timeMs - (timeMs % tickMs);
+            TimingWheel overflow = overflowWheel;
+            if (overflow != null) {
+                overflow.advanceClock(currentTime);
+            }
+        }
+    }
+
+    int levels() {
+        TimingWheel overflow = overflowWheel;
+        return overflow != null ? overflow.levels() : level + 1;
+    }
+
+    private TimingWheel getOverflowWheel() {
+        TimingWheel overflow = overflowWheel;
+        if (overflow == null) {
+            synchronized (this) {
+                overflow = overflowWheel;
+                if (overflow == null) {
+                    overflow = new TimingWheel(interval, wheelSize, currentTime, queue, level + 1);
+                    overflowWheel = overflow;
+                }
+            }
+        }
+        return overflow;
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.wugui.datax.admin.core.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * schedule timer backed by a hierarchical hashed timing wheel
+ *
+ *      a、push：lock-free bucket insertion under a shared read lock, any thread
+ *      b、expire：single worker thread polls the bucket DelayQueue and advances the wheel under the write lock
+ *      c、trigger：expired entries are collected under the lock and fired after it is released, a slow trigger never blocks push
+ */
+public class WheelScheduleTimer implements ScheduleTimer {
+    private static Logger logger = LoggerFactory.getLogger(WheelScheduleTimer.class);
+
+    private static final long WORKER_POLL_MS = 200;
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final IntConsumer trigger;
+
+    private final DelayQueue<TimerBucket> delayQueue = new DelayQueue<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TimingWheel timingWheel;
+
+    // metrics
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger maxPending = new AtomicInteger();
+    private final LongAdder pushed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final AtomicLong maxLateMs = new AtomicLong();
+
+    private Thread workerThread;
+    private volatile boolean toStop = false;
+
+    /**
+     * @param tickMs    level-0 tick, ms
+     * @param wheelSize bucket count of each level
+     * @param trigger   called with jobId once its trigger time is reached
+     */
+    public WheelScheduleTimer(long tickMs, int wheelSize, IntConsumer trigger) {
+        this.tickMs = tickMs > 0 ? tickMs : 1;
+        this.wheelSize = wheelSize > 1 ? wheelSize : 64;
+        this.trigger = trigger;
+        this.timingWheel = new TimingWheel(this.tickMs, this.wheelSize, System.currentTimeMillis(), delayQueue, 0);
+    }
+
+    @Override
+    public void start() {
+        workerThread = new Thread(() -> {
+            while (!toStop) {
+                try {
+                    advance(WORKER_POLL_MS);
+                } catch (InterruptedException e) {
+                    if (!toStop) {
+                        logger.error(e.getMessage(), e);
+                    }
+                } catch (Exception e) {
+                    if (!toStop) {
+                        logger.error(">>>>>>>>>>> datax-web, WheelScheduleTimer#workerThread error:{}", e);
+                    }
+                }
+            }
+            logger.info(">>>>>>>>>>> datax-web, WheelScheduleTimer#workerThread stop");
+        });
+        workerThread.setDaemon(true);
+        workerThread.setName("datax-web, admin WheelScheduleTimer#workerThread");
+        workerThread.start();
+    }
+
+    @Override
+    public void push(int jobId, long triggerTime) {
+        TimerEntry entry = new TimerEntry(jobId, triggerTime);
+
+        int pendingNow = pending.incrementAndGet();
+        if (pendingNow > maxPending.get()) {
+            maxPending.set(pendingNow);
+        }
+        pushed.increment();
+
+        boolean expiredNow;
+        lock.readLock().lock();
+        try {
+            expiredNow = addOrExpire(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (expiredNow) {
+            fire(entry);
+        }
+    }
+
+    /**
+     * advance the wheel by the next expired bucket
+     *
+     * @param timeoutMs max wait for a bucket
+     * @return true if a bucket expired
+     * @throws InterruptedException
+     */
+    boolean advance(long timeoutMs) throws InterruptedException {
+        TimerBucket bucket = delayQueue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (bucket == null) {
+            return false;
+        }
+
+        // expired entries, chained by next in expire order
+        TimerEntry expiredHead = null;
+        TimerEntry expiredTail = null;
+
+        lock.writeLock().lock();
+        try {
+            while (bucket != null) {
+                timingWheel.advanceClock(bucket.getExpiration());
+
+                // reinsert to lower level, or expire
+                TimerEntry entry = bucket.flush();
+                while (entry != null) {
+                    TimerEntry next = entry.next;
+                    entry.next = null;
+                    if (addOrExpire(entry)) {
+                        if (expiredTail == null) {
+                            expiredHead = entry;
+                        } else {
+                            expiredTail.next = entry;
+                        }
+                        expiredTail = entry;
+                    }
+                    entry = next;
+                }
+                bucket = delayQueue.poll();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        while (expiredHead != null) {
+            TimerEntry next = expiredHead.next;
+            expiredHead.next = null;
+            fire(expiredHead);
+            expiredHead = next;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if expired, to be fired by the caller after the lock is released
+     */
+    private boolean addOrExpire(TimerEntry entry) {
+        if (timingWheel.add(entry)) {
+            return false;
+        }
+
+        pending.decrementAndGet();
+        expired.increment();
+        long lateMs = System.currentTimeMillis() - entry.expirationMs;
+        if (lateMs > maxLateMs.get()) {
+            maxLateMs.set(lateMs);
+        }
+        return true;
+    }
+
+    private void fire(TimerEntry entry) {
+        try {
+            trigger.accept(entry.jobId);
+        } catch (Exception e) {
+            logger.error(">>>>>>>>>>> datax-web, WheelScheduleTimer trigger error, jobId = {}", entry.jobId, e);
+        }
+    }
+
+    @Override
+    public int pending() {
+        return pending.get();
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("engine", "wheel");
+        metrics.put("tickMs", tickMs);
+        metrics.put("wheelSize", wheelSize);
+        metrics.put("levels", timingWheel.levels());
+        metrics.put("activeBuckets", delayQueue.size());
+        metrics.put("pending", pending.get());
+        metrics.put("maxPending", maxPending.get());
+        metrics.put("pushed", pushed.sum());
+        metrics.put("expired", expired.sum());
+        metrics.put("maxLateMs", maxLateMs.get());
+        return metrics;
+    }
+
+    @Override
+    public void stop() {
+        toStop = true;
+        if (workerThread != null && workerThread.getState() != Thread.State.TERMINATED) {
+            // interrupt and wait
+            workerThread.interrupt();
+            try {
+                workerThread.join();
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+}
@@ -6,9 +6,15 @@ import com.wugui.datatx.core.biz.model.TriggerParam;
 import com.wugui.datatx.core.enums.ExecutorBlockStrategyEnum;
 import com.wugui.datatx.core.enums.IncrementTypeEnum;
 import com.wugui.datatx.core.glue.GlueTypeEnum;
+import com.wugui.datax.admin.core.cache.ExecutorHealthCache;
+import com.wugui.datax.admin.core.cache.ExecutorLoadCache;
+import com.wugui.datax.admin.core.cache.JobJsonCache;
+import com.wugui.datax.admin.core.cache.JobSnapshotCache;
 import com.wugui.datax.admin.core.conf.JobAdminConfig;
 import com.wugui.datax.admin.core.route.ExecutorRouteStrategyEnum;
 import com.wugui.datax.admin.core.scheduler.JobScheduler;
+import com.wugui.datax.admin.core.thread.JobFailMonitorHelper;
+import com.wugui.datax.admin.core.thread.JobLogBatchWriter;
 import com.wugui.datax.admin.core.util.I18nUtil;
 import com.wugui.datax.admin.entity.JobDatasource;
 import com.wugui.datax.admin.entity.JobGroup;
@@ -16,15 +22,19 @@ import com.wugui.datax.admin.entity.JobInfo;
 import com.wugui.datax.admin.entity.JobLog;
 import com.wugui.datax.admin.tool.query.BaseQueryTool;
 import com.wugui.datax.admin.tool.query.QueryToolFactory;
-import com.wugui.datax.admin.util.JSONUtils;
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
 import com.wugui.datax.rpc.util.IpUtil;
 import com.wugui.datax.rpc.util.ThrowableUtil;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * xxl-job trigger
@@ -45,21 +55,31 @@ public class JobTrigger {
      *                              not null: cover job param
      */
     public static void trigger(int jobId, TriggerTypeEnum triggerType, int failRetryCount, String executorShardingParam, String executorParam) {
-        JobInfo jobInfo = JobAdminConfig.getAdminConfig().getJobInfoMapper().loadById(jobId);
+        for (JobTriggerContext context : prepare(jobId, triggerType, failRetryCount, executorShardingParam, executorParam)) {
+            processTrigger(context);
+        }
+    }
+
+    /**
+     * load job and group, split into one trigger context per sharding item
+     *
+     * @return empty if the job is invalid
+     */
+    static List<JobTriggerContext> prepare(int jobId, TriggerTypeEnum triggerType, int failRetryCount, String executorShardingParam, String executorParam) {
+        // job info and group are shared snapshots, the trigger keeps its own json and param in the context
+        JobInfo jobInfo = JobSnapshotCache.getInstance().getJobInfo(jobId);
         if (jobInfo == null) {
             logger.warn(">>>>>>>>>>>> trigger fail, jobId invalid，jobId={}", jobId);
-            return;
+            return Collections.emptyList();
         }
+        String jobJson = jobInfo.getJobJson();
         if (GlueTypeEnum.BEAN.getDesc().equals(jobInfo.getGlueType())) {
-            //解密账密
-            String json = JSONUtils.changeJson(jobInfo.getJobJson(), JSONUtils.decrypt);
-            jobInfo.setJobJson(json);
-        }
-        if (StringUtils.isNotBlank(executorParam)) {
-            jobInfo.setExecutorParam(executorParam);
+            //解密账密, once per job version
+            jobJson = JobJsonCache.getInstance().getJobJson(jobInfo);
         }
+        String finalExecutorParam = StringUtils.isNotBlank(executorParam) ? executorParam : jobInfo.getExecutorParam();
         int finalFailRetryCount = failRetryCount >= 0 ? failRetryCount : jobInfo.getExecutorFailRetryCount();
-        JobGroup group = JobAdminConfig.getAdminConfig().getJobGroupMapper().load(jobInfo.getJobGroup());
+        JobGroup group = JobSnapshotCache.getInstance().getJobGroup(jobInfo.getJobGroup());
 
         // sharding param
         int[] shardingParam = null;
@@ -71,19 +91,20 @@ public class JobTrigger {
                 shardingParam[1] = Integer.valueOf(shardingArr[1]);
             }
         }
+        List<JobTriggerContext> contexts = new ArrayList<>();
         if (ExecutorRouteStrategyEnum.SHARDING_BROADCAST == ExecutorRouteStrategyEnum.match(jobInfo.getExecutorRouteStrategy(), null)
                 && group.getRegistryList() != null && !group.getRegistryList().isEmpty()
                 && shardingParam == null) {
             for (int i = 0; i < group.getRegistryList().size(); i++) {
-                processTrigger(group, jobInfo, finalFailRetryCount, triggerType, i, group.getRegistryList().size());
+                contexts.add(new JobTriggerContext(group, jobInfo, jobJson, finalExecutorParam, finalFailRetryCount, triggerType, i, group.getRegistryList().size()));
             }
         } else {
             if (shardingParam == null) {
                 shardingParam = new int[]{0, 1};
             }
-            processTrigger(group, jobInfo, finalFailRetryCount, triggerType, shardingParam[0], shardingParam[1]);
+            contexts.add(new JobTriggerContext(group, jobInfo, jobJson, finalExecutorParam, finalFailRetryCount, triggerType, shardingParam[0], shardingParam[1]));
         }
-
+        return contexts;
     }
 
     private static boolean isNumeric(String str) {
@@ -96,23 +117,34 @@ public class JobTrigger {
     }
 
     /**
-     * @param group               job group, registry list may be empty
-     * @param jobInfo
-     * @param finalFailRetryCount
-     * @param triggerType
-     * @param index               sharding index
-     * @param total               sharding index
+     * @param context             trigger context, job group registry list may be empty
      */
-    private static void processTrigger(JobGroup group, JobInfo jobInfo, int finalFailRetryCount, TriggerTypeEnum triggerType, int index, int total) {
+    private static void processTrigger(JobTriggerContext context) {
 
-        TriggerParam triggerParam = new TriggerParam();
+        // 1、save log-id
+        saveLog(context);
 
-        // param
-        ExecutorBlockStrategyEnum blockStrategy = ExecutorBlockStrategyEnum.match(jobInfo.getExecutorBlockStrategy(), ExecutorBlockStrategyEnum.SERIAL_EXECUTION);  // block strategy
-        ExecutorRouteStrategyEnum executorRouteStrategyEnum = ExecutorRouteStrategyEnum.match(jobInfo.getExecutorRouteStrategy(), null);    // route strategy
-        String shardingParam = (ExecutorRouteStrategyEnum.SHARDING_BROADCAST == executorRouteStrategyEnum) ? String.valueOf(index).concat("/").concat(String.valueOf(total)) : null;
+        // 2、init trigger-param, 3、init address
+        route(context);
+
+        // 4、trigger remote executor
+        ReturnT<String> triggerResult = null;
+        if (context.address != null) {
+            triggerResult = runExecutor(context.triggerParam, context.address);
+            while (reroute(context, triggerResult)) {
+                triggerResult = runExecutor(context.triggerParam, context.address);
+            }
+        } else {
+            triggerResult = new ReturnT<String>(ReturnT.FAIL_CODE, null);
+        }
+
+        // 5、collection trigger info, 6、save log trigger-info
+        saveTriggerInfo(context, triggerResult);
+    }
+
+    private static JobLog newLog(JobTriggerContext context) {
+        JobInfo jobInfo = context.jobInfo;
 
-        // 1、save log-id
         Calendar calendar = Calendar.getInstance();
         calendar.setTime(new Date());
         calendar.set(Calendar.MILLISECOND, 0);
@@ -123,13 +155,52 @@ public class JobTrigger {
         jobLog.setTriggerTime(triggerTime);
         jobLog.setJobDesc(jobInfo.getJobDesc());
 
-        JobAdminConfig.getAdminConfig().getJobLogMapper().save(jobLog);
+        context.jobLog = jobLog;
+        return jobLog;
+    }
+
+    static void saveLog(JobTriggerContext context) {
+        JobLog jobLog = newLog(context);
+        JobLogBatchWriter.getInstance().save(jobLog);
         logger.debug(">>>>>>>>>>> datax-web trigger start, jobId:{}", jobLog.getId());
+    }
+
+    /**
+     * save log-id by group commit, the log id is set when the future completes
+     */
+    static CompletableFuture<Void> saveLogAsync(JobTriggerContext context) {
+        return JobLogBatchWriter.getInstance().saveAsync(newLog(context));
+    }
+
+    /**
+     * block and route strategy of the trigger, no io, enough for saveTriggerInfo when the trigger is not routed
+     */
+    static void initStrategy(JobTriggerContext context) {
+        JobInfo jobInfo = context.jobInfo;
+        context.blockStrategy = ExecutorBlockStrategyEnum.match(jobInfo.getExecutorBlockStrategy(), ExecutorBlockStrategyEnum.SERIAL_EXECUTION);  // block strategy
+        ExecutorRouteStrategyEnum executorRouteStrategyEnum = ExecutorRouteStrategyEnum.match(jobInfo.getExecutorRouteStrategy(), null);    // route strategy
+        context.executorRouteStrategyEnum = executorRouteStrategyEnum;
+        context.shardingParam = (ExecutorRouteStrategyEnum.SHARDING_BROADCAST == executorRouteStrategyEnum) ? String.valueOf(context.index).concat("/").concat(String.valueOf(context.total)) : null;
+    }
+
+    static void route(JobTriggerContext context) {
+        JobGroup group = context.group;
+        JobInfo jobInfo = context.jobInfo;
+        JobLog jobLog = context.jobLog;
+        int index = context.index;
+        int total = context.total;
+
+        TriggerParam triggerParam = new TriggerParam();
+
+        // param
+        initStrategy(context);
+        ExecutorRouteStrategyEnum executorRouteStrategyEnum = context.executorRouteStrategyEnum;
+        context.triggerParam = triggerParam;
 
         // 2、init trigger-param
         triggerParam.setJobId(jobInfo.getId());
         triggerParam.setExecutorHandler(jobInfo.getExecutorHandler());
-        triggerParam.setExecutorParams(jobInfo.getExecutorParam());
+        triggerParam.setExecutorParams(context.executorParam);
         triggerParam.setExecutorBlockStrategy(jobInfo.getExecutorBlockStrategy());
         triggerParam.setExecutorTimeout(jobInfo.getExecutorTimeout());
         triggerParam.setLogId(jobLog.getId());
@@ -139,7 +210,7 @@ public class JobTrigger {
         triggerParam.setGlueUpdatetime(jobInfo.getGlueUpdatetime().getTime());
         triggerParam.setBroadcastIndex(index);
         triggerParam.setBroadcastTotal(total);
-        triggerParam.setJobJson(jobInfo.getJobJson());
+        triggerParam.setJobJson(context.jobJson);
 
         //increment parameter
         Integer incrementType = jobInfo.getIncrementType();
@@ -152,7 +223,7 @@ public class JobTrigger {
                 triggerParam.setStartId(jobInfo.getIncStartId());
             } else if (IncrementTypeEnum.TIME.getCode() == incrementType) {
                 triggerParam.setStartTime(jobInfo.getIncStartTime());
-                triggerParam.setTriggerTime(triggerTime);
+                triggerParam.setTriggerTime(jobLog.getTriggerTime());
                 triggerParam.setReplaceParamType(jobInfo.getReplaceParamType());
             } else if (IncrementTypeEnum.PARTITION.getCode() == incrementType) {
                 triggerParam.setPartitionInfo(jobInfo.getPartitionInfo());
@@ -181,42 +252,61 @@ public class JobTrigger {
         } else {
             routeAddressResult = new ReturnT<String>(ReturnT.FAIL_CODE, I18nUtil.getString("jobconf_trigger_address_empty"));
         }
+        context.address = address;
+        context.routeAddressResult = routeAddressResult;
 
-        // 4、trigger remote executor
-        ReturnT<String> triggerResult = null;
+        // in-flight until the callback, for load aware routing
         if (address != null) {
-            triggerResult = runExecutor(triggerParam, address);
-        } else {
-            triggerResult = new ReturnT<String>(ReturnT.FAIL_CODE, null);
+            ExecutorLoadCache.getInstance().dispatch(jobLog.getId(), address);
         }
+    }
+
+    static void saveTriggerInfo(JobTriggerContext context, ReturnT<String> triggerResult) {
+        JobGroup group = context.group;
+        JobInfo jobInfo = context.jobInfo;
+        JobLog jobLog = context.jobLog;
+        ReturnT<String> routeAddressResult = context.routeAddressResult;
+        String shardingParam = context.shardingParam;
 
         // 5、collection trigger info
         StringBuffer triggerMsgSb = new StringBuffer();
-        triggerMsgSb.append(I18nUtil.getString("jobconf_trigger_type")).append("：").append(triggerType.getTitle());
+        triggerMsgSb.append(I18nUtil.getString("jobconf_trigger_type")).append("：").append(context.triggerType.getTitle());
         triggerMsgSb.append("<br>").append(I18nUtil.getString("jobconf_trigger_admin_adress")).append("：").append(IpUtil.getIp());
         triggerMsgSb.append("<br>").append(I18nUtil.getString("jobconf_trigger_exe_regtype")).append("：")
                 .append((group.getAddressType() == 0) ? I18nUtil.getString("jobgroup_field_addressType_0") : I18nUtil.getString("jobgroup_field_addressType_1"));
         triggerMsgSb.append("<br>").append(I18nUtil.getString("jobconf_trigger_exe_regaddress")).append("：").append(group.getRegistryList());
-        triggerMsgSb.append("<br>").append(I18nUtil.getString("jobinfo_field_executorRouteStrategy")).append("：").append(executorRouteStrategyEnum.getTitle());
+        triggerMsgSb.append("<br>").append(I18nUtil.getString("jobinfo_field_executorRouteStrategy")).append("：").append(context.executorRouteStrategyEnum.getTitle());
         if (shardingParam != null) {
             triggerMsgSb.append("(" + shardingParam + ")");
         }
-        triggerMsgSb.append("<br>").append(I18nUtil.getString("jobinfo_field_executorBlockStrategy")).append("：").append(blockStrategy.getTitle());
+        triggerMsgSb.append("<br>").append(I18nUtil.getString("jobinfo_field_executorBlockStrategy")).append("：").append(context.blockStrategy.getTitle());
         triggerMsgSb.append("<br>").append(I18nUtil.getString("jobinfo_field_timeout")).append("：").append(jobInfo.getExecutorTimeout());
-        triggerMsgSb.append("<br>").append(I18nUtil.getString("jobinfo_field_executorFailRetryCount")).append("：").append(finalFailRetryCount);
+        triggerMsgSb.append("<br>").append(I18nUtil.getString("jobinfo_field_executorFailRetryCount")).append("：").append(context.finalFailRetryCount);
 
         triggerMsgSb.append("<br><br><span style=\"color:#00c0ef;\" > >>>>>>>>>>>" + I18nUtil.getString("jobconf_trigger_run") + "<<<<<<<<<<< </span><br>")
-                .append((routeAddressResult != null && routeAddressResult.getMsg() != null) ? routeAddressResult.getMsg() + "<br><br>" : "").append(triggerResult.getMsg() != null ? triggerResult.getMsg() : "");
+                .append((routeAddressResult != null && routeAddressResult.getMsg() != null) ? routeAddressResult.getMsg() + "<br><br>" : "")
+                .append(context.busyMsg != null ? context.busyMsg : "")
+                .append(triggerResult.getMsg() != null ? triggerResult.getMsg() : "");
+
+        // not run, no callback will come
+        if (triggerResult.getCode() != ReturnT.SUCCESS_CODE) {
+            ExecutorLoadCache.getInstance().finish(jobLog.getId());
+        }
 
         // 6、save log trigger-info
-        jobLog.setExecutorAddress(address);
+        jobLog.setExecutorAddress(context.address);
         jobLog.setExecutorHandler(jobInfo.getExecutorHandler());
-        jobLog.setExecutorParam(jobInfo.getExecutorParam());
+        jobLog.setExecutorParam(context.executorParam);
         jobLog.setExecutorShardingParam(shardingParam);
-        jobLog.setExecutorFailRetryCount(finalFailRetryCount);
+        jobLog.setExecutorFailRetryCount(context.finalFailRetryCount);
         jobLog.setTriggerCode(triggerResult.getCode());
         jobLog.setTriggerMsg(triggerMsgSb.toString());
-        JobAdminConfig.getAdminConfig().getJobLogMapper().updateTriggerInfo(jobLog);
+        JobLogBatchWriter.getInstance().updateTriggerInfo(jobLog);
+
+        // retry and alarm
+        if (triggerResult.getCode() != ReturnT.SUCCESS_CODE) {
+            JobFailMonitorHelper.getInstance().fail(jobLog.getId());
+        }
 
         logger.debug(">>>>>>>>>>> datax-web trigger end, jobId:{}", jobLog.getId());
     }
@@ -239,11 +329,75 @@ public class JobTrigger {
         try {
             ExecutorBiz executorBiz = JobScheduler.getExecutorBiz(address);
             runResult = executorBiz.run(triggerParam);
+            ExecutorHealthCache.getInstance().alive(address);
         } catch (Exception e) {
+            ExecutorHealthCache.getInstance().failure(address, e);
+            logRunError(address, e);
+            runResult = new ReturnT<String>(runErrorCode(e), ThrowableUtil.toString(e));
+        }
+        return runResultMsg(runResult, address);
+    }
+
+    /**
+     * rpc server busy counts as executor busy, the trigger did not reach the job
+     */
+    static int runErrorCode(Throwable e) {
+        return XxlRpcResponse.isServerBusy(e.getMessage()) ? ReturnT.BUSY_CODE : ReturnT.FAIL_CODE;
+    }
+
+    /**
+     * executor busy (admission rejected), move the trigger to the next registered executor not tried yet;
+     * sharding broadcast is bound to its address, not moved
+     *
+     * @return true if context.address is set to another executor
+     */
+    static boolean reroute(JobTriggerContext context, ReturnT<String> runResult) {
+        List<String> registryList = context.group.getRegistryList();
+        if (runResult.getCode() != ReturnT.BUSY_CODE
+                || ExecutorRouteStrategyEnum.SHARDING_BROADCAST == context.executorRouteStrategyEnum
+                || registryList == null || registryList.size() < 2) {
+            return false;
+        }
+
+        if (context.busyAddresses == null) {
+            context.busyAddresses = new ArrayList<>();
+            context.busyMsg = new StringBuffer();
+        }
+        context.busyAddresses.add(context.address);
+        context.busyMsg.append(runResult.getMsg()).append("<br><br>");
+
+        int start = registryList.indexOf(context.address);
+        for (int i = 1; i <= registryList.size(); i++) {
+            String address = registryList.get((start + i) % registryList.size());
+            if (!context.busyAddresses.contains(address)) {
+                logger.info(">>>>>>>>>>> datax-web trigger reroute, executor[{}] busy, to executor[{}], logId:{}", context.address, address, context.jobLog.getId());
+                context.address = address;
+                ExecutorLoadCache.getInstance().dispatch(context.jobLog.getId(), address);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * a busy executor answered at once, it is running but saturated, no stack trace
+     */
+    static void logRunError(String address, Throwable e) {
+        if (XxlRpcResponse.isServerBusy(e.getMessage())) {
+            logger.warn(">>>>>>>>>>> datax-web trigger fail, the executor[{}] is busy: {}", address, e.getMessage());
+        } else {
             logger.error(">>>>>>>>>>> datax-web trigger error, please check if the executor[{}] is running.", address, e);
-            runResult = new ReturnT<String>(ReturnT.FAIL_CODE, ThrowableUtil.toString(e));
         }
+    }
 
+    /**
+     * append run info to the executor result msg
+     *
+     * @param runResult
+     * @param address
+     * @return
+     */
+    static ReturnT<String> runResultMsg(ReturnT<String> runResult, String address) {
         StringBuffer runResultSB = new StringBuffer(I18nUtil.getString("jobconf_trigger_run") + "：");
         runResultSB.append("<br>address：").append(address);
         runResultSB.append("<br>code：").append(runResult.getCode());
@@ -0,0 +1,55 @@
+package com.wugui.datax.admin.core.trigger;
+
+import com.wugui.datatx.core.biz.model.ReturnT;
+import com.wugui.datatx.core.biz.model.TriggerParam;
+import com.wugui.datatx.core.enums.ExecutorBlockStrategyEnum;
+import com.wugui.datax.admin.core.route.ExecutorRouteStrategyEnum;
+import com.wugui.datax.admin.entity.JobGroup;
+import com.wugui.datax.admin.entity.JobInfo;
+import com.wugui.datax.admin.entity.JobLog;
+
+import java.util.List;
+
+/**
+ * state of one trigger (one sharding item), passed along the trigger steps
+ */
+class JobTriggerContext {
+
+    // prepare
+    JobGroup group;
+    JobInfo jobInfo;                // shared snapshot, read only
+    String jobJson;                 // decrypted job json
+    String executorParam;
+    int finalFailRetryCount;
+    TriggerTypeEnum triggerType;
+    int index;
+    int total;
+
+    // save log
+    JobLog jobLog;
+
+    // route
+    ExecutorBlockStrategyEnum blockStrategy;
+    ExecutorRouteStrategyEnum executorRouteStrategyEnum;
+    String shardingParam;
+    TriggerParam triggerParam;
+    String address;
+    ReturnT<String> routeAddressResult;
+
+    // run, busy executors already tried and their results
+    List<String> busyAddresses;
+    StringBuffer busyMsg;
+
+    JobTriggerContext(JobGroup group, JobInfo jobInfo, String jobJson, String executorParam, int finalFailRetryCount,
+                      TriggerTypeEnum triggerType, int index, int total) {
+        this.group = group;
+        this.jobInfo = jobInfo;
+        this.jobJson = jobJson;
+        this.executorParam = executorParam;
+        this.finalFailRetryCount = finalFailRetryCount;
+        this.triggerType = triggerType;
+        this.index = index;
+        this.total = total;
+    }
+
+}
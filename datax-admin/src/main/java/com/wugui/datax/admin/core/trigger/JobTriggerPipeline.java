@@ -0,0 +1,285 @@
+package com.wugui.datax.admin.core.trigger;
+
+import com.wugui.datatx.core.biz.ExecutorBiz;
+import com.wugui.datatx.core.biz.model.ReturnT;
+import com.wugui.datax.admin.core.cache.ExecutorHealthCache;
+import com.wugui.datax.admin.core.conf.JobAdminConfig;
+import com.wugui.datax.admin.core.scheduler.JobScheduler;
+import com.wugui.datax.rpc.remoting.invoker.call.XxlRpcInvokeCallback;
+import com.wugui.datax.rpc.util.ThrowableUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * staged async trigger pipeline, each stage has its own bounded pool:
+ *
+ *      a、log stage: load job and group, save job_log by group commit;
+ *      b、route stage: build trigger param (incl. increment max id query), route executor address;
+ *      c、rpc stage: send run request with CallType.CALLBACK, no thread is held while the request is in flight,
+ *         in-flight requests are bounded by a semaphore and timed out by a scheduler, a busy executor is skipped for the next one;
+ *      d、persist stage: save trigger info to job_log, coalesced by the log writer.
+ *
+ * the log stage falls back to a synchronous trigger in the caller when full; the route and rpc stages never run in the caller,
+ * which may be completing log saves or be an rpc callback thread: when full, or no in-flight permit within the executor timeout, the trigger fails and its log is saved.
+ */
+public class JobTriggerPipeline {
+    private static Logger logger = LoggerFactory.getLogger(JobTriggerPipeline.class);
+
+    private static JobTriggerPipeline instance = new JobTriggerPipeline();
+
+    public static JobTriggerPipeline getInstance() {
+        return instance;
+    }
+
+    private ThreadPoolExecutor logStagePool;
+    private ThreadPoolExecutor routeStagePool;
+    private ThreadPoolExecutor rpcStagePool;
+    private ThreadPoolExecutor persistStagePool;
+    private ScheduledExecutorService rpcTimeoutScheduler;
+    private Semaphore rpcPermits;
+    private int rpcInFlightMax;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rpcTimeouts = new AtomicLong();
+    private final AtomicLong logStageRejected = new AtomicLong();
+    private final AtomicLong routeStageRejected = new AtomicLong();
+    private final AtomicLong rpcStageRejected = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public void start() {
+        JobAdminConfig adminConfig = JobAdminConfig.getAdminConfig();
+        logStagePool = newStagePool("log", adminConfig.getTriggerPipelineLogThreads(), 1000, new ThreadPoolExecutor.AbortPolicy());
+        routeStagePool = newStagePool("route", adminConfig.getTriggerPipelineRouteThreads(), 2000, new ThreadPoolExecutor.AbortPolicy());
+        rpcStagePool = newStagePool("rpc", adminConfig.getTriggerPipelineRpcThreads(), 2000, new ThreadPoolExecutor.AbortPolicy());
+        persistStagePool = newStagePool("persist", adminConfig.getTriggerPipelinePersistThreads(), 5000, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        rpcTimeoutScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "datax-web, admin JobTriggerPipeline-rpcTimeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rpcInFlightMax = adminConfig.getTriggerPipelineRpcInFlight();
+        rpcPermits = new Semaphore(rpcInFlightMax);
+
+        logger.info(">>>>>>>>> datax-web trigger pipeline start, rpcInFlight = {}", rpcInFlightMax);
+    }
+
+    private ThreadPoolExecutor newStagePool(final String stage, int threads, int queueSize, RejectedExecutionHandler rejectedHandler) {
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueSize),
+                r -> new Thread(r, "datax-web, admin JobTriggerPipeline-" + stage + "Stage-" + r.hashCode()),
+                rejectedHandler);
+    }
+
+    /**
+     * same params as JobTrigger.trigger, returns at once
+     */
+    public void trigger(int jobId, TriggerTypeEnum triggerType, int failRetryCount, String executorShardingParam, String executorParam) {
+        submitted.incrementAndGet();
+
+        // 1、log stage, log rows are saved by group commit
+        CompletableFuture<List<JobTriggerContext>> prepared;
+        try {
+            prepared = CompletableFuture.supplyAsync(() -> JobTrigger.prepare(jobId, triggerType, failRetryCount, executorShardingParam, executorParam), logStagePool);
+        } catch (RejectedExecutionException e) {
+            // log stage full, trigger synchronously in the caller, not dropped nor thrown into the schedule thread
+            logStageRejected.incrementAndGet();
+            try {
+                JobTrigger.trigger(jobId, triggerType, failRetryCount, executorShardingParam, executorParam);
+                completed.incrementAndGet();
+            } catch (Exception triggerError) {
+                failed.incrementAndGet();
+                logger.error(">>>>>>>>>>> datax-web trigger pipeline error, jobId:{}", jobId, triggerError);
+            }
+            return;
+        }
+        prepared
+                .whenComplete((contexts, e) -> {
+                    if (e != null) {
+                        failed.incrementAndGet();
+                        logger.error(">>>>>>>>>>> datax-web trigger pipeline error, jobId:{}", jobId, e);
+                        return;
+                    }
+                    for (JobTriggerContext context : contexts) {
+                        JobTrigger.saveLogAsync(context).whenComplete((v, saveError) -> {
+                            if (saveError != null) {
+                                failed.incrementAndGet();
+                                logger.error(">>>>>>>>>>> datax-web trigger pipeline save log error, jobId:{}", jobId, saveError);
+                                return;
+                            }
+                            process(context);
+                        });
+                    }
+                });
+    }
+
+    private void process(final JobTriggerContext context) {
+        inFlight.incrementAndGet();
+
+        // 2、route stage, 3、rpc stage
+        CompletableFuture<ReturnT<String>> triggered;
+        try {
+            triggered = CompletableFuture.runAsync(() -> JobTrigger.route(context), routeStagePool)
+                    .thenCompose(v -> runExecutor(context));
+        } catch (RejectedExecutionException e) {
+            // route stage full, not run here, the caller completes log saves: the trigger fails and its log is saved
+            routeStageRejected.incrementAndGet();
+            JobTrigger.initStrategy(context);
+            triggered = CompletableFuture.completedFuture(new ReturnT<String>(ReturnT.FAIL_CODE, "trigger pipeline route stage busy"));
+        }
+
+        // 4、persist stage
+        triggered
+                .handleAsync((triggerResult, e) -> {
+                    if (e != null) {
+                        failed.incrementAndGet();
+                        logger.error(">>>>>>>>>>> datax-web trigger pipeline error, logId:{}", context.jobLog.getId(), e);
+                        triggerResult = new ReturnT<String>(ReturnT.FAIL_CODE, ThrowableUtil.toString(e));
+                    }
+                    JobTrigger.saveTriggerInfo(context, triggerResult);
+                    return null;
+                }, persistStagePool)
+                .whenComplete((v, e) -> {
+                    inFlight.decrementAndGet();
+                    completed.incrementAndGet();
+                    if (e != null) {
+                        logger.error(">>>>>>>>>>> datax-web trigger pipeline persist error, logId:{}", context.jobLog.getId(), e);
+                    }
+                });
+    }
+
+    private CompletableFuture<ReturnT<String>> runExecutor(final JobTriggerContext context) {
+        if (context.address == null) {
+            return CompletableFuture.completedFuture(new ReturnT<String>(ReturnT.FAIL_CODE, null));
+        }
+        final String address = context.address;
+        final CompletableFuture<ReturnT<String>> future = new CompletableFuture<>();
+        try {
+            rpcStagePool.execute(() -> send(context, future));
+        } catch (RejectedExecutionException e) {
+            // rpc stage full, not run here, the caller may be an rpc callback thread
+            rpcStageRejected.incrementAndGet();
+            future.complete(new ReturnT<String>(ReturnT.FAIL_CODE, "trigger pipeline rpc stage busy, address:" + address));
+        }
+        return future.thenApply(runResult -> JobTrigger.runResultMsg(runResult, address))
+                // busy executor, sent again to the next one
+                .thenCompose(runResult -> JobTrigger.reroute(context, runResult)
+                        ? runExecutor(context)
+                        : CompletableFuture.completedFuture(runResult));
+    }
+
+    private void send(final JobTriggerContext context, final CompletableFuture<ReturnT<String>> future) {
+        final String address = context.address;
+
+        // in-flight limit, every in-flight request is answered or timed out within the executor timeout
+        try {
+            if (!rpcPermits.tryAcquire(JobScheduler.EXECUTOR_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                rpcStageRejected.incrementAndGet();
+                future.complete(new ReturnT<String>(ReturnT.FAIL_CODE, "trigger pipeline rpc in-flight limit busy, address:" + address));
+                return;
+            }
+        } catch (InterruptedException e) {
+            future.complete(new ReturnT<String>(ReturnT.FAIL_CODE, ThrowableUtil.toString(e)));
+            return;
+        }
+        final ScheduledFuture<?> timeout = rpcTimeoutScheduler.schedule(() -> {
+            if (future.complete(new ReturnT<String>(ReturnT.FAIL_CODE, "xxl-rpc, request timeout, address:" + address))) {
+                rpcTimeouts.incrementAndGet();
+            }
+        }, JobScheduler.EXECUTOR_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        future.whenComplete((runResult, e) -> {
+            timeout.cancel(false);
+            rpcPermits.release();
+        });
+
+        try {
+            ExecutorBiz executorBiz = JobScheduler.getCallbackExecutorBiz(address);
+            XxlRpcInvokeCallback.setCallback(new XxlRpcInvokeCallback<ReturnT<String>>() {
+                @Override
+                public void onSuccess(ReturnT<String> result) {
+                    ExecutorHealthCache.getInstance().alive(address);
+                    future.complete(result != null ? result : new ReturnT<String>(ReturnT.FAIL_CODE, null));
+                }
+
+                @Override
+                public void onFailure(Throwable exception) {
+                    ExecutorHealthCache.getInstance().failure(address, exception);
+                    JobTrigger.logRunError(address, exception);
+                    future.complete(new ReturnT<String>(JobTrigger.runErrorCode(exception), ThrowableUtil.toString(exception)));
+                }
+            });
+            executorBiz.run(context.triggerParam);
+        } catch (Exception e) {
+            ExecutorHealthCache.getInstance().failure(address, e);
+            JobTrigger.logRunError(address, e);
+            future.complete(new ReturnT<String>(JobTrigger.runErrorCode(e), ThrowableUtil.toString(e)));
+        } finally {
+            XxlRpcInvokeCallback.removeCallback();
+        }
+    }
+
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("submitted", submitted.get());
+        metrics.put("completed", completed.get());
+        metrics.put("failed", failed.get());
+        metrics.put("inFlight", inFlight.get());
+        metrics.put("rpcInFlight", rpcPermits != null ? rpcInFlightMax - rpcPermits.availablePermits() : 0);
+        metrics.put("rpcTimeouts", rpcTimeouts.get());
+        metrics.put("logStageRejected", logStageRejected.get());
+        metrics.put("routeStageRejected", routeStageRejected.get());
+        metrics.put("rpcStageRejected", rpcStageRejected.get());
+        metrics.put("logStageQueue", logStagePool != null ? logStagePool.getQueue().size() : 0);
+        metrics.put("routeStageQueue", routeStagePool != null ? routeStagePool.getQueue().size() : 0);
+        metrics.put("rpcStageQueue", rpcStagePool != null ? rpcStagePool.getQueue().size() : 0);
+        metrics.put("persistStageQueue", persistStagePool != null ? persistStagePool.getQueue().size() : 0);
+        return metrics;
+    }
+
+    public void toStop() {
+        // drain stage by stage, a stage is stopped after the stages feeding it
+        stopStage(logStagePool);
+        stopStage(routeStagePool);
+        stopStage(rpcStagePool);
+
+        long deadline = System.currentTimeMillis() + JobScheduler.EXECUTOR_TIMEOUT_MS * 2;
+        while (rpcInFlightMax - rpcPermits.availablePermits() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage(), e);
+                break;
+            }
+        }
+        rpcTimeoutScheduler.shutdownNow();
+        stopStage(persistStagePool);
+
+        logger.info(">>>>>>>>> datax-web trigger pipeline stop, inFlight = {}", inFlight.get());
+    }
+
+    private void stopStage(ThreadPoolExecutor stagePool) {
+        stagePool.shutdown();
+        try {
+            if (!stagePool.awaitTermination(5, TimeUnit.SECONDS)) {
+                stagePool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            logger.error(e.getMessage(), e);
+            stagePool.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,19 @@
+package com.wugui.datax.admin.entity;
+
+import lombok.Data;
+
+/**
+ * failed job log waiting for retry and alarm
+ */
+@Data
+public class JobFailEvent {
+
+    private long logId;
+    private int status;         // 0-待处理、1-处理中
+    private int retried;        // 1-失败重试已触发，日志告警状态已锁定
+    private int attempts;
+    private String alarmSent;   // 已告警成功的邮箱，逗号分隔
+    private long nextTime;
+    private long updateTime;
+
+}
@@ -1,14 +1,16 @@
 package com.wugui.datax.admin.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import io.swagger.annotations.ApiModelProperty;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Created by jingwk on 2019/11/17
  */
+@JsonIgnoreProperties(value = "registryList", allowGetters = true)
 public class JobGroup {
 
     @ApiModelProperty("执行器Id")
@@ -24,11 +26,11 @@ public class JobGroup {
     @ApiModelProperty("执行器地址列表，多地址逗号分隔(手动录入)")
     private String addressList;
 
-    // registry list
+    // registry list, split once per addressList, immutable
     private List<String> registryList;  // 执行器地址列表(系统注册)
     public List<String> getRegistryList() {
-        if (addressList!=null && addressList.trim().length()>0) {
-            registryList = new ArrayList<>(Arrays.asList(addressList.split(",")));
+        if (registryList == null && addressList!=null && addressList.trim().length()>0) {
+            registryList = Collections.unmodifiableList(Arrays.asList(addressList.split(",")));
         }
         return registryList;
     }
@@ -79,6 +81,7 @@ public class JobGroup {
 
     public void setAddressList(String addressList) {
         this.addressList = addressList;
+        this.registryList = null;
     }
 
 }
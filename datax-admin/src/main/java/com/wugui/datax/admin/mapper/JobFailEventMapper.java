@@ -0,0 +1,43 @@
+package com.wugui.datax.admin.mapper;
+
+import com.wugui.datax.admin.entity.JobFailEvent;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * fail event queue, used by the job fail monitor
+ */
+@Mapper
+public interface JobFailEventMapper {
+
+    int save(@Param("logId") long logId,
+             @Param("nowTime") long nowTime);
+
+    int saveBatch(@Param("logIds") List<Long> logIds,
+                  @Param("nowTime") long nowTime);
+
+    JobFailEvent load(@Param("logId") long logId);
+
+    List<Long> findDue(@Param("nowTime") long nowTime,
+                       @Param("pagesize") int pagesize);
+
+    int claim(@Param("logId") long logId,
+              @Param("nowTime") long nowTime);
+
+    int markRetried(@Param("logId") long logId,
+                    @Param("nowTime") long nowTime);
+
+    int reschedule(@Param("logId") long logId,
+                   @Param("retried") int retried,
+                   @Param("alarmSent") String alarmSent,
+                   @Param("nextTime") long nextTime,
+                   @Param("nowTime") long nowTime);
+
+    int delete(@Param("logId") long logId);
+
+    int resetStale(@Param("staleTime") long staleTime,
+                   @Param("nowTime") long nowTime);
+
+}
@@ -50,8 +50,15 @@ public interface JobInfoMapper {
 
     List<JobInfo> scheduleJobQuery(@Param("maxNextTime") long maxNextTime, @Param("pagesize") int pagesize);
 
+    List<JobInfo> scheduleJobQueryByPartition(@Param("maxNextTime") long maxNextTime,
+                                              @Param("pagesize") int pagesize,
+                                              @Param("partitionCount") int partitionCount,
+                                              @Param("partitionIds") int[] partitionIds);
+
     int scheduleUpdate(JobInfo xxlJobInfo);
 
+    int scheduleUpdateBatch(@Param("jobInfos") List<JobInfo> jobInfos);
+
     int incrementTimeUpdate(@Param("id") int id, @Param("incStartTime") Date incStartTime);
 
 	public int updateLastHandleCode(@Param("id") int id,@Param("lastHandleCode")int lastHandleCode);
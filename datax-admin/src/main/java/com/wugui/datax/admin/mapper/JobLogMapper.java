@@ -37,8 +37,12 @@ public interface JobLogMapper {
 
     long save(JobLog jobLog);
 
+    int saveBatch(@Param("jobLogs") List<JobLog> jobLogs);
+
     int updateTriggerInfo(JobLog jobLog);
 
+    int updateTriggerInfoBatch(@Param("jobLogs") List<JobLog> jobLogs);
+
     int updateHandleInfo(JobLog jobLog);
 
     int updateProcessId(@Param("id") long id,
@@ -42,4 +42,10 @@ public interface JobRegistryMapper extends BaseMapper<JobRegistry> {
                               @Param("registryKey") String registryKey,
                               @Param("registryValue") String registryValue);
 
+    public int registryDeleteDead(@Param("registryGroup") String registryGroup,
+                                  @Param("registryKey") String registryKey,
+                                  @Param("registryValue") String registryValue,
+                                  @Param("timeout") int timeout,
+                                  @Param("nowTime") Date nowTime);
+
 }
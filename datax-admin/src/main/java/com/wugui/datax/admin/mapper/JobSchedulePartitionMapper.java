@@ -0,0 +1,26 @@
+package com.wugui.datax.admin.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * schedule partition lease, used by partitioned multi-admin scheduling
+ */
+@Mapper
+public interface JobSchedulePartitionMapper {
+
+    int initPartition(@Param("partitionIds") List<Integer> partitionIds);
+
+    int acquireLease(@Param("partitionId") int partitionId,
+                     @Param("owner") String owner,
+                     @Param("nowTime") long nowTime,
+                     @Param("leaseExpireTime") long leaseExpireTime);
+
+    int releaseLease(@Param("partitionId") int partitionId,
+                     @Param("owner") String owner);
+
+    int releaseAll(@Param("owner") String owner);
+
+}
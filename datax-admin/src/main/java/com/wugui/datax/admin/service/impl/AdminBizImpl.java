@@ -6,8 +6,13 @@ import com.wugui.datatx.core.biz.model.HandleProcessCallbackParam;
 import com.wugui.datatx.core.biz.model.RegistryParam;
 import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datatx.core.enums.IncrementTypeEnum;
+import com.wugui.datatx.core.enums.RegistryConfig;
 import com.wugui.datatx.core.handler.IJobHandler;
+import com.wugui.datax.admin.core.cache.ExecutorHealthCache;
+import com.wugui.datax.admin.core.cache.ExecutorLoadCache;
 import com.wugui.datax.admin.core.kill.KillJob;
+import com.wugui.datax.admin.core.thread.JobFailMonitorHelper;
+import com.wugui.datax.admin.core.thread.JobRegistryMonitorHelper;
 import com.wugui.datax.admin.core.thread.JobTriggerPoolHelper;
 import com.wugui.datax.admin.core.trigger.TriggerTypeEnum;
 import com.wugui.datax.admin.core.util.I18nUtil;
@@ -15,7 +20,6 @@ import com.wugui.datax.admin.entity.JobInfo;
 import com.wugui.datax.admin.entity.JobLog;
 import com.wugui.datax.admin.mapper.JobInfoMapper;
 import com.wugui.datax.admin.mapper.JobLogMapper;
-import com.wugui.datax.admin.mapper.JobRegistryMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -37,8 +41,6 @@ public class AdminBizImpl implements AdminBiz {
     public JobLogMapper jobLogMapper;
     @Resource
     private JobInfoMapper jobInfoMapper;
-    @Resource
-    private JobRegistryMapper jobRegistryMapper;
 
     @Override
     public ReturnT<String> callback(List<HandleCallbackParam> callbackParamList) {
@@ -76,6 +78,7 @@ public class AdminBizImpl implements AdminBiz {
         if (log.getHandleCode() > 0) {
             return new ReturnT<String>(ReturnT.FAIL_CODE, "log repeate callback.");     // avoid repeat callback, trigger child job etc
         }
+        ExecutorLoadCache.getInstance().finish(log.getId());
 
         // trigger success, to trigger child job
         String callbackMsg = null;
@@ -145,6 +148,11 @@ public class AdminBizImpl implements AdminBiz {
         jobLogMapper.updateHandleInfo(log);
         jobInfoMapper.updateLastHandleCode(log.getJobId(), resultCode);
 
+        // retry and alarm
+        if (resultCode != ReturnT.SUCCESS_CODE) {
+            JobFailMonitorHelper.getInstance().fail(log.getId());
+        }
+
         return ReturnT.SUCCESS;
     }
 
@@ -175,15 +183,14 @@ public class AdminBizImpl implements AdminBiz {
             return new ReturnT<String>(ReturnT.FAIL_CODE, "Illegal Argument.");
         }
 
-        int ret = jobRegistryMapper.registryUpdate(registryParam.getRegistryGroup(), registryParam.getRegistryKey(),
-                registryParam.getRegistryValue(), registryParam.getCpuUsage(), registryParam.getMemoryUsage(), registryParam.getLoadAverage(), new Date());
-        if (ret < 1) {
-            jobRegistryMapper.registrySave(registryParam.getRegistryGroup(), registryParam.getRegistryKey(),
-                    registryParam.getRegistryValue(), registryParam.getCpuUsage(), registryParam.getMemoryUsage(), registryParam.getLoadAverage(), new Date());
-
-            // fresh
-            freshGroupRegistryInfo(registryParam);
+        // load snapshot for routing
+        if (RegistryConfig.RegistType.EXECUTOR.name().equals(registryParam.getRegistryGroup())) {
+            ExecutorLoadCache.getInstance().update(registryParam.getRegistryValue(),
+                    registryParam.getCpuUsage(), registryParam.getMemoryUsage(), registryParam.getLoadAverage(), System.currentTimeMillis());
         }
+
+        // in memory, db written on join / leave
+        JobRegistryMonitorHelper.getInstance().registry(registryParam);
         return ReturnT.SUCCESS;
     }
 
@@ -197,17 +204,13 @@ public class AdminBizImpl implements AdminBiz {
             return new ReturnT<String>(ReturnT.FAIL_CODE, "Illegal Argument.");
         }
 
-        int ret = jobRegistryMapper.registryDelete(registryParam.getRegistryGroup(), registryParam.getRegistryKey(), registryParam.getRegistryValue());
-        if (ret > 0) {
-
-            // fresh
-            freshGroupRegistryInfo(registryParam);
+        if (RegistryConfig.RegistType.EXECUTOR.name().equals(registryParam.getRegistryGroup())) {
+            ExecutorLoadCache.getInstance().remove(registryParam.getRegistryValue());
+            ExecutorHealthCache.getInstance().remove(registryParam.getRegistryValue());
         }
-        return ReturnT.SUCCESS;
-    }
 
-    private void freshGroupRegistryInfo(RegistryParam registryParam) {
-        // Under consideration, prevent affecting core tables
+        JobRegistryMonitorHelper.getInstance().registryRemove(registryParam);
+        return ReturnT.SUCCESS;
     }
 
 }
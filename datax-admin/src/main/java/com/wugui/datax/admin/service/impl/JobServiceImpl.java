@@ -4,6 +4,9 @@ import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datatx.core.enums.ExecutorBlockStrategyEnum;
 import com.wugui.datatx.core.glue.GlueTypeEnum;
 import com.wugui.datatx.core.util.DateUtil;
+import com.wugui.datax.admin.core.cache.JobJsonCache;
+import com.wugui.datax.admin.core.cache.JobSnapshotCache;
+import com.wugui.datax.admin.core.cron.CronCache;
 import com.wugui.datax.admin.core.cron.CronExpression;
 import com.wugui.datax.admin.core.route.ExecutorRouteStrategyEnum;
 import com.wugui.datax.admin.core.thread.JobScheduleHelper;
@@ -150,6 +153,7 @@ public class JobServiceImpl implements JobService {
         jobInfo.setUpdateTime(new Date());
         jobInfo.setGlueUpdatetime(new Date());
         jobInfoMapper.save(jobInfo);
+        JobSnapshotCache.getInstance().invalidateJobInfo(jobInfo.getId());
         if (jobInfo.getId() < 1) {
             return new ReturnT<>(ReturnT.FAIL_CODE, (I18nUtil.getString("jobinfo_field_add") + I18nUtil.getString("system_fail")));
         }
@@ -235,7 +239,7 @@ public class JobServiceImpl implements JobService {
         long nextTriggerTime = exists_jobInfo.getTriggerNextTime();
         if (exists_jobInfo.getTriggerStatus() == 1 && !jobInfo.getJobCron().equals(exists_jobInfo.getJobCron())) {
             try {
-                Date nextValidTime = new CronExpression(jobInfo.getJobCron()).getNextValidTimeAfter(new Date(System.currentTimeMillis() + JobScheduleHelper.PRE_READ_MS));
+                Date nextValidTime = CronCache.getInstance().compile(jobInfo.getJobCron()).getNextValidTimeAfter(new Date(System.currentTimeMillis() + JobScheduleHelper.PRE_READ_MS));
                 if (nextValidTime == null) {
                     return new ReturnT<String>(ReturnT.FAIL_CODE, I18nUtil.getString("jobinfo_field_cron_never_fire"));
                 }
@@ -262,6 +266,7 @@ public class JobServiceImpl implements JobService {
         }
         exists_jobInfo.setGlueUpdatetime(new Date());
         jobInfoMapper.update(exists_jobInfo);
+        JobSnapshotCache.getInstance().invalidateJobInfo(exists_jobInfo.getId());
 
 
         return ReturnT.SUCCESS;
@@ -275,6 +280,8 @@ public class JobServiceImpl implements JobService {
         }
 
         jobInfoMapper.delete(id);
+        JobSnapshotCache.getInstance().invalidateJobInfo(id);
+        JobJsonCache.getInstance().invalidate(id);
         jobLogMapper.delete(id);
         jobLogGlueMapper.deleteByJobId(id);
         return ReturnT.SUCCESS;
@@ -287,7 +294,7 @@ public class JobServiceImpl implements JobService {
         // next trigger time (5s后生效，避开预读周期)
         long nextTriggerTime = 0;
         try {
-            Date nextValidTime = new CronExpression(xxlJobInfo.getJobCron()).getNextValidTimeAfter(new Date(System.currentTimeMillis() + JobScheduleHelper.PRE_READ_MS));
+            Date nextValidTime = CronCache.getInstance().compile(xxlJobInfo.getJobCron()).getNextValidTimeAfter(new Date(System.currentTimeMillis() + JobScheduleHelper.PRE_READ_MS));
             if (nextValidTime == null) {
                 return new ReturnT<String>(ReturnT.FAIL_CODE, I18nUtil.getString("jobinfo_field_cron_never_fire"));
             }
@@ -303,6 +310,7 @@ public class JobServiceImpl implements JobService {
 
         xxlJobInfo.setUpdateTime(new Date());
         jobInfoMapper.update(xxlJobInfo);
+        JobSnapshotCache.getInstance().invalidateJobInfo(id);
         return ReturnT.SUCCESS;
     }
 
@@ -316,6 +324,7 @@ public class JobServiceImpl implements JobService {
 
         jobInfo.setUpdateTime(new Date());
         jobInfoMapper.update(jobInfo);
+        JobSnapshotCache.getInstance().invalidateJobInfo(id);
         return ReturnT.SUCCESS;
     }
 
@@ -0,0 +1,62 @@
+package com.wugui.admin.core.cache;
+
+import com.wugui.datax.admin.core.cache.JobJsonCache;
+import com.wugui.datax.admin.entity.JobInfo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * job json cache test, decrypt once per job version
+ */
+public class JobJsonCacheTest {
+
+    @Test
+    public void decryptOncePerVersion() {
+        AtomicInteger decrypts = new AtomicInteger();
+        JobJsonCache jobJsonCache = new JobJsonCache(16, jobJson -> {
+            decrypts.incrementAndGet();
+            return jobJson.toUpperCase();
+        });
+
+        JobInfo jobInfo = jobInfo(1, "{\"job\":\"a\"}", 1000);
+        Assert.assertEquals("{\"JOB\":\"A\"}", jobJsonCache.getJobJson(jobInfo));
+        Assert.assertEquals("{\"JOB\":\"A\"}", jobJsonCache.getJobJson(jobInfo));
+        Assert.assertEquals(1, decrypts.get());
+
+        // new version
+        jobInfo.setUpdateTime(new Date(2000));
+        Assert.assertEquals("{\"JOB\":\"A\"}", jobJsonCache.getJobJson(jobInfo));
+        Assert.assertEquals(2, decrypts.get());
+
+        // json changed without a new update time
+        jobInfo.setJobJson("{\"job\":\"b\"}");
+        Assert.assertEquals("{\"JOB\":\"B\"}", jobJsonCache.getJobJson(jobInfo));
+        Assert.assertEquals(3, decrypts.get());
+
+        jobJsonCache.invalidate(1);
+        Assert.assertEquals(0, jobJsonCache.size());
+    }
+
+    @Test
+    public void eviction() {
+        JobJsonCache jobJsonCache = new JobJsonCache(2, jobJson -> jobJson);
+        for (int jobId = 1; jobId <= 3; jobId++) {
+            jobJsonCache.getJobJson(jobInfo(jobId, "{}", 1000));
+        }
+        Assert.assertEquals(2, jobJsonCache.size());
+        Assert.assertEquals(1L, jobJsonCache.metrics().get("evictions"));
+    }
+
+    private static JobInfo jobInfo(int jobId, String jobJson, long updateTime) {
+        JobInfo jobInfo = new JobInfo();
+        jobInfo.setId(jobId);
+        jobInfo.setJobJson(jobJson);
+        jobInfo.setUpdateTime(new Date(updateTime));
+        jobInfo.setGlueUpdatetime(new Date(updateTime));
+        return jobInfo;
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.wugui.admin.core.cron;
+
+import com.wugui.datax.admin.core.cron.CompiledCron;
+import com.wugui.datax.admin.core.cron.CronCache;
+import com.wugui.datax.admin.core.cron.CronExpression;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.util.Date;
+import java.util.Random;
+
+/**
+ * compiled cron test, same fire times as CronExpression
+ */
+public class CompiledCronTest {
+
+    private static final String[] CRONS = {
+            "0 0 0 * * ? *",
+            "*/5 * * * * ?",
+            "0 */15 9-17 ? * MON-FRI",
+            "0 30 2 1,15 * ?",
+            "0 0 12 29 2 ?",
+            "15,45 10 */3 * 1-6 ? 2026-2030",
+            "0 0 0 31 * ?",
+            "0 0 1 ? * 1",
+            "0 0 23 L * ?",
+            "0 0 10 15W * ?",
+            "0 0 10 ? * 6#3",
+            "59 59 23 31 12 ? 2027",
+            "0 0 0 1 1 ? 2020"
+    };
+
+    @Test
+    public void sameAsCronExpression() throws ParseException {
+        Random random = new Random(1);
+        long baseTime = System.currentTimeMillis();
+        for (String cron : CRONS) {
+            CronExpression cronExpression = new CronExpression(cron);
+            CompiledCron compiledCron = CompiledCron.compile(cron);
+            for (int i = 0; i < 2000; i++) {
+                long fromTime = baseTime + (long) (random.nextDouble() * 5 * 365 * 24 * 3600 * 1000L);
+                Date expected = cronExpression.getNextValidTimeAfter(new Date(fromTime));
+                Assert.assertEquals(cron + " from " + new Date(fromTime), expected, compiledCron.getNextValidTimeAfter(new Date(fromTime)));
+            }
+        }
+    }
+
+    @Test
+    public void nextN() throws ParseException {
+        CompiledCron compiledCron = CompiledCron.compile("*/5 * * * * ?");
+        long fromTime = System.currentTimeMillis();
+        long[] nextTimes = compiledCron.nextN(fromTime, 5);
+        Assert.assertEquals(5, nextTimes.length);
+        for (int i = 1; i < nextTimes.length; i++) {
+            Assert.assertEquals(5000, nextTimes[i] - nextTimes[i - 1]);
+        }
+
+        Assert.assertEquals(0, CompiledCron.compile("0 0 0 1 1 ? 2020").nextN(fromTime, 5).length);
+    }
+
+    @Test
+    public void cacheEviction() throws ParseException {
+        CronCache cronCache = new CronCache(2);
+        CompiledCron first = cronCache.compile("0 0 1 * * ?");
+        Assert.assertSame(first, cronCache.compile("0 0 1 * * ?"));
+
+        cronCache.compile("0 0 2 * * ?");
+        cronCache.compile("0 0 3 * * ?");
+        Assert.assertEquals(2, cronCache.size());
+        Assert.assertNotSame(first, cronCache.compile("0 0 1 * * ?"));
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.wugui.admin.core.route;
+
+import com.wugui.datatx.core.biz.model.ReturnT;
+import com.wugui.datax.admin.core.cache.ExecutorHealthCache;
+import com.wugui.datax.admin.core.route.ExecutorBeatFanout;
+import com.wugui.datax.rpc.remoting.invoker.call.XxlRpcInvokeCallback;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * beat fan-out test, beats answered by a scheduler in place of the rpc client
+ */
+public class ExecutorBeatFanoutTest {
+
+    private final ScheduledExecutorService rpc = Executors.newScheduledThreadPool(4);
+    private final Set<String> beaten = ConcurrentHashMap.newKeySet();
+
+    @After
+    public void stop() {
+        rpc.shutdownNow();
+    }
+
+    /**
+     * answer delay by address, negative delay fails the rpc, no delay never answers
+     */
+    private ExecutorBeatFanout.Beat beat(final Map<String, Long> delays) {
+        return address -> {
+            beaten.add(address);
+            @SuppressWarnings("unchecked")
+            final XxlRpcInvokeCallback<ReturnT<String>> callback = XxlRpcInvokeCallback.getCallback();
+            Long delay = delays.get(address);
+            if (delay == null) {
+                return;
+            }
+            rpc.schedule(() -> {
+                if (delay < 0) {
+                    callback.onFailure(new RuntimeException("connect refused, " + address));
+                } else {
+                    callback.onSuccess(ReturnT.SUCCESS);
+                }
+            }, Math.abs(delay), TimeUnit.MILLISECONDS);
+        };
+    }
+
+    @Test
+    public void firstSuccessWinsBeforeDeadline() {
+        List<String> addressList = Arrays.asList("10.1.0.1:9999", "10.1.0.2:9999", "10.1.0.3:9999");
+        Map<String, Long> delays = new HashMap<>();
+        delays.put("10.1.0.2:9999", 50L);
+        delays.put("10.1.0.3:9999", 800L);
+
+        long start = System.currentTimeMillis();
+        ReturnT<String> result = ExecutorBeatFanout.probe(addressList, "beat", 3000, beat(delays));
+        long cost = System.currentTimeMillis() - start;
+
+        Assert.assertEquals(ReturnT.SUCCESS_CODE, result.getCode());
+        Assert.assertEquals("10.1.0.2:9999", result.getContent());
+        Assert.assertTrue("cost " + cost, cost < 500);
+        Assert.assertEquals(3, beaten.size());
+    }
+
+    @Test
+    public void globalDeadline() {
+        List<String> addressList = Arrays.asList("10.2.0.1:9999", "10.2.0.2:9999", "10.2.0.3:9999");
+
+        long start = System.currentTimeMillis();
+        ReturnT<String> result = ExecutorBeatFanout.probe(addressList, "beat", 300, beat(new HashMap<>()));
+        long cost = System.currentTimeMillis() - start;
+
+        Assert.assertEquals(ReturnT.FAIL_CODE, result.getCode());
+        Assert.assertTrue("cost " + cost, cost < 1000);
+        Assert.assertTrue(result.getMsg().contains("10.2.0.3:9999"));
+    }
+
+    @Test
+    public void deadExecutorSkipped() {
+        List<String> addressList = Arrays.asList("10.3.0.1:9999", "10.3.0.2:9999");
+        Map<String, Long> delays = new HashMap<>();
+        delays.put("10.3.0.1:9999", -10L);
+        delays.put("10.3.0.2:9999", 100L);
+
+        ReturnT<String> result = ExecutorBeatFanout.probe(addressList, "beat", 3000, beat(delays));
+        Assert.assertEquals("10.3.0.2:9999", result.getContent());
+        Assert.assertTrue(ExecutorHealthCache.getInstance().isDead("10.3.0.1:9999"));
+        Assert.assertTrue(ExecutorHealthCache.getInstance().isAlive("10.3.0.2:9999"));
+
+        // the failed executor is not beaten again while dead
+        beaten.clear();
+        result = ExecutorBeatFanout.probe(addressList, "beat", 3000, beat(delays));
+        Assert.assertEquals("10.3.0.2:9999", result.getContent());
+        Assert.assertFalse(beaten.contains("10.3.0.1:9999"));
+
+        // all dead, all beaten
+        ExecutorHealthCache.getInstance().failure("10.3.0.2:9999", new RuntimeException("timeout"));
+        beaten.clear();
+        ExecutorBeatFanout.probe(addressList, "beat", 3000, beat(delays));
+        Assert.assertEquals(2, beaten.size());
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.wugui.admin.core.route;
+
+import com.wugui.datax.admin.core.route.strategy.ExecutorRouteConsistentHash;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * consistent hash router test
+ */
+public class ExecutorRouteConsistentHashTest {
+
+    private static final int JOB_NUM = 10000;
+
+    private final ExecutorRouteConsistentHash router = new ExecutorRouteConsistentHash();
+
+    private static List<String> addressList(int size) {
+        List<String> addressList = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            addressList.add("10.0.0." + i + ":9999");
+        }
+        return addressList;
+    }
+
+    @Test
+    public void sameJobSameExecutor() {
+        List<String> addressList = addressList(5);
+        List<String> reordered = new ArrayList<>(addressList);
+        Collections.reverse(reordered);
+
+        for (int jobId = 1; jobId <= 1000; jobId++) {
+            String address = router.hashJob(jobId, addressList);
+            Assert.assertEquals(address, router.hashJob(jobId, addressList));
+            Assert.assertEquals(address, router.hashJob(jobId, new ArrayList<>(addressList)));
+            Assert.assertEquals(address, router.hashJob(jobId, reordered));
+        }
+    }
+
+    @Test
+    public void jobsSpreadEvenly() {
+        List<String> addressList = addressList(10);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int jobId = 1; jobId <= JOB_NUM; jobId++) {
+            counts.merge(router.hashJob(jobId, addressList), 1, Integer::sum);
+        }
+
+        Assert.assertEquals(10, counts.size());
+        for (int count : counts.values()) {
+            Assert.assertTrue("count " + count, count > JOB_NUM / 10 / 2 && count < JOB_NUM / 10 * 2);
+        }
+    }
+
+    @Test
+    public void newExecutorOnlyTakesJobs() {
+        List<String> addressList = addressList(4);
+        List<String> grown = addressList(5);
+        String added = grown.get(4);
+
+        int moved = 0;
+        for (int jobId = 1; jobId <= JOB_NUM; jobId++) {
+            String before = router.hashJob(jobId, addressList);
+            String after = router.hashJob(jobId, grown);
+            if (!before.equals(after)) {
+                Assert.assertEquals(added, after);
+                moved++;
+            }
+        }
+        Assert.assertTrue("moved " + moved, moved > JOB_NUM / 10 && moved < JOB_NUM / 3);
+    }
+
+    @Test
+    public void singleExecutor() {
+        List<String> addressList = Arrays.asList("10.0.9.1:9999");
+        Assert.assertEquals("10.0.9.1:9999", router.hashJob(Integer.MAX_VALUE, addressList));
+        Assert.assertEquals("10.0.9.1:9999", router.hashJob(-1, addressList));
+    }
+
+}
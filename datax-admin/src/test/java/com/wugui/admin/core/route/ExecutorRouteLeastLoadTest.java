@@ -0,0 +1,71 @@
+package com.wugui.admin.core.route;
+
+import com.wugui.datax.admin.core.cache.ExecutorLoadCache;
+import com.wugui.datax.admin.core.route.strategy.ExecutorRouteLeastLoad;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * weighted least load router test
+ */
+public class ExecutorRouteLeastLoadTest {
+
+    private final ExecutorLoadCache loadCache = ExecutorLoadCache.getInstance();
+    private final ExecutorRouteLeastLoad router = new ExecutorRouteLeastLoad();
+
+    @Test
+    public void leastLoadWins() {
+        List<String> addressList = Arrays.asList("10.0.0.1:9999", "10.0.0.2:9999", "10.0.0.3:9999");
+        long now = System.currentTimeMillis();
+        loadCache.update("10.0.0.1:9999", 90, 80, 8, now);
+        loadCache.update("10.0.0.2:9999", 10, 30, 1, now);
+        loadCache.update("10.0.0.3:9999", 50, 50, 4, now);
+
+        Assert.assertEquals("10.0.0.2:9999", router.route(addressList));
+
+        // a stale beat does not replace a newer one
+        loadCache.update("10.0.0.2:9999", 99, 99, 20, now - 1000);
+        Assert.assertEquals("10.0.0.2:9999", router.route(addressList));
+    }
+
+    @Test
+    public void inFlightSpreadsBurst() {
+        List<String> addressList = Arrays.asList("10.0.1.1:9999", "10.0.1.2:9999");
+        long now = System.currentTimeMillis();
+        loadCache.update("10.0.1.1:9999", 20, 40, 1, now);
+        loadCache.update("10.0.1.2:9999", 20, 40, 1, now);
+
+        Set<String> routed = new HashSet<>();
+        for (long logId = 1; logId <= 10; logId++) {
+            String address = router.route(addressList);
+            loadCache.dispatch(1000 + logId, address);
+            routed.add(address);
+        }
+        Assert.assertEquals(2, routed.size());
+        Assert.assertEquals(5, loadCache.getInFlight("10.0.1.1:9999"));
+        Assert.assertEquals(5, loadCache.getInFlight("10.0.1.2:9999"));
+
+        for (long logId = 1; logId <= 10; logId++) {
+            loadCache.finish(1000 + logId);
+        }
+        Assert.assertEquals(0, loadCache.getInFlight("10.0.1.1:9999"));
+        Assert.assertEquals(0, loadCache.getInFlight("10.0.1.2:9999"));
+    }
+
+    @Test
+    public void unknownExecutorScoresAverage() {
+        List<String> addressList = Arrays.asList("10.0.2.1:9999", "10.0.2.2:9999", "10.0.2.3:9999");
+        long now = System.currentTimeMillis();
+        loadCache.update("10.0.2.1:9999", 95, 90, 10, now);
+        loadCache.update("10.0.2.2:9999", 5, 10, 1, now);
+
+        // unknown 10.0.2.3 is average, the idle one still wins
+        Assert.assertEquals("10.0.2.2:9999", router.route(addressList));
+    }
+
+}
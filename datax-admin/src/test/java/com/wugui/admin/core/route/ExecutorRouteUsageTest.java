@@ -0,0 +1,127 @@
+package com.wugui.admin.core.route;
+
+import com.wugui.datax.admin.core.route.strategy.ExecutorRouteLFU;
+import com.wugui.datax.admin.core.route.strategy.ExecutorRouteLRU;
+import com.wugui.datax.rpc.remoting.invoker.route.XxlRpcRouteUsage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * lfu / lru router test
+ */
+public class ExecutorRouteUsageTest {
+
+    private static final List<String> ADDRESS_LIST = Arrays.asList("10.0.0.1:9999", "10.0.0.2:9999", "10.0.0.3:9999");
+
+    @Test
+    public void lruRotates() {
+        ExecutorRouteLRU router = new ExecutorRouteLRU();
+        String first = router.route(1, ADDRESS_LIST);
+        String second = router.route(1, ADDRESS_LIST);
+        String third = router.route(1, ADDRESS_LIST);
+
+        Assert.assertEquals(3, new HashSet<>(Arrays.asList(first, second, third)).size());
+        Assert.assertEquals(first, router.route(1, ADDRESS_LIST));
+
+        // a new executor is the least recent, routed next
+        List<String> grown = Arrays.asList("10.0.0.1:9999", "10.0.0.2:9999", "10.0.0.3:9999", "10.0.0.4:9999");
+        Assert.assertEquals("10.0.0.4:9999", router.route(1, grown));
+    }
+
+    @Test
+    public void lruNewKeysSpread() {
+        XxlRpcRouteUsage<Integer> usage = new XxlRpcRouteUsage<>(XxlRpcRouteUsage.Policy.LRU, 10000, TimeUnit.HOURS.toMillis(1));
+        Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+        for (int jobId = 0; jobId < 3000; jobId++) {
+            counts.computeIfAbsent(usage.route(jobId, ADDRESS_LIST), k -> new AtomicInteger()).incrementAndGet();
+        }
+
+        // first route of each new key, not all to the first address
+        Assert.assertEquals(ADDRESS_LIST.size(), counts.size());
+        for (AtomicInteger count : counts.values()) {
+            Assert.assertTrue("count " + count, count.get() > 800 && count.get() < 1200);
+        }
+    }
+
+    @Test
+    public void lfuConcurrentEven() throws InterruptedException {
+        final ExecutorRouteLFU router = new ExecutorRouteLFU();
+        final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+        final int threads = 8;
+        final int calls = 3000;
+
+        final CountDownLatch latch = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < calls; i++) {
+                    counts.computeIfAbsent(router.route(2, ADDRESS_LIST), k -> new AtomicInteger()).incrementAndGet();
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+
+        int total = 0;
+        for (AtomicInteger count : counts.values()) {
+            total += count.get();
+            Assert.assertTrue("count " + count, Math.abs(count.get() - threads * calls / 3) <= ADDRESS_LIST.size());
+        }
+        Assert.assertEquals(threads * calls, total);
+    }
+
+    @Test
+    public void lfuNewExecutorNoBurst() {
+        XxlRpcRouteUsage<Integer> usage = new XxlRpcRouteUsage<>(XxlRpcRouteUsage.Policy.LFU, 100, TimeUnit.HOURS.toMillis(1));
+        List<String> addressList = Arrays.asList("a", "b");
+        for (int i = 0; i < 1000; i++) {
+            usage.route(1, addressList);
+        }
+
+        // the new executor starts at the lowest frequency, not at zero
+        List<String> grown = Arrays.asList("a", "b", "c");
+        int newCount = 0;
+        for (int i = 0; i < 30; i++) {
+            if ("c".equals(usage.route(1, grown))) {
+                newCount++;
+            }
+        }
+        Assert.assertTrue("new " + newCount, newCount >= 9 && newCount <= 11);
+    }
+
+    @Test
+    public void lfuDecays() throws InterruptedException {
+        XxlRpcRouteUsage<Integer> usage = new XxlRpcRouteUsage<>(XxlRpcRouteUsage.Policy.LFU, 100, 20);
+        for (int i = 0; i < 1000; i++) {
+            usage.route(1, Arrays.asList("a"));
+        }
+        TimeUnit.MILLISECONDS.sleep(400);
+
+        // old frequency of "a" decayed to ~0, both are routed alike
+        int aCount = 0;
+        for (int i = 0; i < 20; i++) {
+            if ("a".equals(usage.route(1, Arrays.asList("a", "b")))) {
+                aCount++;
+            }
+        }
+        Assert.assertTrue("a " + aCount, aCount >= 8 && aCount <= 12);
+    }
+
+    @Test
+    public void boundedKeys() {
+        XxlRpcRouteUsage<Integer> usage = new XxlRpcRouteUsage<>(XxlRpcRouteUsage.Policy.LRU, 1000, TimeUnit.HOURS.toMillis(1));
+        for (int jobId = 0; jobId < 50000; jobId++) {
+            usage.route(jobId, ADDRESS_LIST);
+        }
+        Assert.assertTrue("size " + usage.size(), usage.size() <= 1001);
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.wugui.admin.core.thread;
+
+import com.wugui.datax.admin.core.thread.TriggerLatencyClassifier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+/**
+ * trigger latency classifier test
+ */
+public class TriggerLatencyClassifierTest {
+
+    @Test
+    public void hysteresis() {
+        TriggerLatencyClassifier classifier = new TriggerLatencyClassifier(500, 250, 60000);
+        long now = System.currentTimeMillis();
+
+        // one slow trigger does not move a fast job
+        classifier.record(1, 10, now);
+        classifier.record(1, 2000, now);
+        Assert.assertFalse(classifier.isSlow(1));
+
+        for (int i = 0; i < 10; i++) {
+            classifier.record(1, 2000, now);
+        }
+        Assert.assertTrue(classifier.isSlow(1));
+
+        // between the thresholds, stays slow
+        for (int i = 0; i < 30; i++) {
+            classifier.record(1, 400, now);
+        }
+        Assert.assertTrue(classifier.isSlow(1));
+
+        for (int i = 0; i < 30; i++) {
+            classifier.record(1, 10, now);
+        }
+        Assert.assertFalse(classifier.isSlow(1));
+    }
+
+    @Test
+    public void seededByFirstCost() {
+        TriggerLatencyClassifier classifier = new TriggerLatencyClassifier(500, 250, 60000);
+        long now = System.currentTimeMillis();
+
+        // slow from its first trigger, not averaged up from 0
+        classifier.record(1, 2000, now);
+        Assert.assertTrue(classifier.isSlow(1));
+        Assert.assertEquals(2000L, ((Map<?, ?>) classifier.metrics().get("slowJobs")).get(1));
+
+        classifier.record(2, 400, now);
+        Assert.assertFalse(classifier.isSlow(2));
+    }
+
+    @Test
+    public void concurrentRecord() throws InterruptedException {
+        final TriggerLatencyClassifier classifier = new TriggerLatencyClassifier(500, 250, 60000);
+        final long now = System.currentTimeMillis();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100000; i++) {
+                    int jobId = 1 + (i % 64);
+                    classifier.record(jobId, jobId % 2 == 0 ? 1000 : 10, now);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(64, classifier.size());
+        for (int jobId = 1; jobId <= 64; jobId++) {
+            Assert.assertEquals(jobId % 2 == 0, classifier.isSlow(jobId));
+        }
+        Assert.assertEquals(32, classifier.metrics().get("slowCount"));
+    }
+
+    @Test
+    public void growAndPrune() {
+        TriggerLatencyClassifier classifier = new TriggerLatencyClassifier(500, 250, 60000);
+        long now = System.currentTimeMillis();
+        for (int jobId = 1; jobId <= 10000; jobId++) {
+            for (int i = 0; i < 20; i++) {
+                classifier.record(jobId, jobId % 2 == 0 ? 1000 : 10, jobId <= 5000 ? now - 120000 : now);
+            }
+        }
+        Assert.assertEquals(10000, classifier.size());
+        Assert.assertTrue(classifier.isSlow(6000));
+        Assert.assertFalse(classifier.isSlow(6001));
+
+        classifier.prune(now);
+        Assert.assertEquals(5000, classifier.size());
+        Assert.assertFalse(classifier.isSlow(2000));
+        Assert.assertTrue(classifier.isSlow(6000));
+        Assert.assertEquals(2500, classifier.metrics().get("slowCount"));
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.wugui.admin.core.timer;
+
+import com.wugui.datax.admin.core.timer.WheelScheduleTimer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * timing wheel schedule timer test
+ */
+public class WheelScheduleTimerTest {
+
+    @Test
+    public void expireOnTimeInOrder() throws InterruptedException {
+        final long triggerTime = System.currentTimeMillis() + 300;
+        final AtomicLong firedAt = new AtomicLong();
+        final List<Integer> fired = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        WheelScheduleTimer timer = new WheelScheduleTimer(1, 64, jobId -> {
+            if (jobId == 1) {
+                firedAt.set(System.currentTimeMillis());
+            }
+            fired.add(jobId);
+            latch.countDown();
+        });
+        timer.start();
+        try {
+            timer.push(2, triggerTime + 300);
+            timer.push(1, triggerTime);
+            Assert.assertEquals(2, timer.pending());
+
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(Arrays.asList(1, 2), fired);
+            Assert.assertTrue(firedAt.get() >= triggerTime);
+            // never early, late bound generous for a loaded box
+            Assert.assertTrue(firedAt.get() - triggerTime < 2000);
+            Assert.assertEquals(0, timer.pending());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void slowTriggerNotBlockPush() throws InterruptedException {
+        final CountDownLatch inTrigger = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        WheelScheduleTimer timer = new WheelScheduleTimer(1, 64, jobId -> {
+            if (jobId == 1) {
+                inTrigger.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        timer.start();
+        try {
+            timer.push(1, System.currentTimeMillis() + 50);
+            Assert.assertTrue(inTrigger.await(3, TimeUnit.SECONDS));
+
+            // the worker is inside the trigger, a push must not wait for it
+            long start = System.nanoTime();
+            timer.push(2, System.currentTimeMillis() + 10000);
+            Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+            Assert.assertEquals(1, timer.pending());
+        } finally {
+            release.countDown();
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void expiredPushFiresDirectly() {
+        final AtomicInteger fired = new AtomicInteger();
+        WheelScheduleTimer timer = new WheelScheduleTimer(1, 64, jobId -> fired.incrementAndGet());
+
+        timer.push(1, System.currentTimeMillis() - 1000);
+        Assert.assertEquals(1, fired.get());
+        Assert.assertEquals(0, timer.pending());
+    }
+
+    /**
+     * 100k+ pending triggers spread over the 5s pre-read window, through several wheel levels: each fires once, never early
+     */
+    @Test
+    public void manyPendingFireOnceNotEarly() throws InterruptedException {
+        final int count = 200000;
+        final long base = System.currentTimeMillis() + 1000;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final AtomicIntegerArray fired = new AtomicIntegerArray(count);
+        final AtomicInteger early = new AtomicInteger();
+        WheelScheduleTimer timer = new WheelScheduleTimer(1, 64, jobId -> {
+            if (System.currentTimeMillis() < base + (jobId % 4000)) {
+                early.incrementAndGet();
+            }
+            fired.incrementAndGet(jobId);
+            latch.countDown();
+        });
+
+        for (int i = 0; i < count; i++) {
+            timer.push(i, base + (i % 4000));
+        }
+        Assert.assertEquals(count, timer.pending());
+
+        timer.start();
+        try {
+            Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+            Assert.assertEquals(0, timer.pending());
+            Assert.assertEquals(0, early.get());
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(1, fired.get(i));
+            }
+        } finally {
+            timer.stop();
+        }
+    }
+
+}
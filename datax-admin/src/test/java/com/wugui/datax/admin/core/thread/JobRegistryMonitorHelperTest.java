@@ -0,0 +1,256 @@
+package com.wugui.datax.admin.core.thread;
+
+import com.wugui.datatx.core.biz.model.RegistryParam;
+import com.wugui.datatx.core.enums.RegistryConfig;
+import com.wugui.datax.admin.core.cache.ExecutorLoadCache;
+import com.wugui.datax.admin.core.conf.JobAdminConfig;
+import com.wugui.datax.admin.entity.JobGroup;
+import com.wugui.datax.admin.entity.JobRegistry;
+import com.wugui.datax.admin.mapper.JobGroupMapper;
+import com.wugui.datax.admin.mapper.JobRegistryMapper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * in-memory registry test, job_registry and job_group stubbed in memory
+ */
+public class JobRegistryMonitorHelperTest {
+
+    private static final String APP_NAME = "datax-executor-test";
+
+    private final Map<String, JobRegistry> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger rowIds = new AtomicInteger();
+    private final AtomicInteger rowWrites = new AtomicInteger();
+    private final AtomicReference<String> addressList = new AtomicReference<>();
+    private final AtomicInteger failSaves = new AtomicInteger();
+
+    private JobRegistryMonitorHelper helper;
+
+    @Before
+    public void setUp() throws Exception {
+        JobAdminConfig adminConfig = new JobAdminConfig();
+        setField(adminConfig, "jobRegistryMapper", registryMapper());
+        setField(adminConfig, "jobGroupMapper", groupMapper());
+        setField(null, "adminConfig", adminConfig);
+
+        // dead after 1.5s without beat, row touched at most every 1s
+        helper = new JobRegistryMonitorHelper(1500, 1000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        helper.toStop();
+        setField(null, "adminConfig", null);
+    }
+
+    @Test
+    public void beatsWriteOnJoinAndLeaseOnly() throws InterruptedException {
+        helper.start();
+        for (int i = 0; i < 10; i++) {
+            helper.registry(param("10.0.0.1:9999"));
+        }
+        await(() -> "10.0.0.1:9999".equals(addressList.get()));
+        Assert.assertEquals(1, rowWrites.get());
+
+        // lease due, touched by the next beat
+        TimeUnit.MILLISECONDS.sleep(1100);
+        helper.registry(param("10.0.0.1:9999"));
+        await(() -> rowWrites.get() == 2);
+        Assert.assertEquals("10.0.0.1:9999", addressList.get());
+    }
+
+    @Test
+    public void deadWithoutBeat() {
+        helper.start();
+        helper.registry(param("10.0.0.1:9999"));
+        helper.registry(param("10.0.0.2:9999"));
+        await(() -> "10.0.0.1:9999,10.0.0.2:9999".equals(addressList.get()));
+
+        // only 10.0.0.2 keeps beating
+        long deadline = System.currentTimeMillis() + 4000;
+        while (System.currentTimeMillis() < deadline && !"10.0.0.2:9999".equals(addressList.get())) {
+            helper.registry(param("10.0.0.2:9999"));
+            sleep(200);
+        }
+        Assert.assertEquals("10.0.0.2:9999", addressList.get());
+        Assert.assertEquals(1, rows.size());
+    }
+
+    @Test
+    public void failedWriteRetried() {
+        failSaves.set(1);
+        helper.start();
+        helper.registry(param("10.0.0.1:9999"));
+        helper.registry(param("10.0.0.2:9999"));
+
+        // the write failed in the batch is retried, the rest of the batch still written
+        await(() -> "10.0.0.1:9999,10.0.0.2:9999".equals(addressList.get()));
+        Assert.assertEquals(2, rows.size());
+
+        // queued again on its next change
+        helper.registryRemove(param("10.0.0.1:9999"));
+        await(() -> "10.0.0.2:9999".equals(addressList.get()));
+    }
+
+    @Test
+    public void removedAtOnce() {
+        helper.start();
+        helper.registry(param("10.0.0.1:9999"));
+        await(() -> "10.0.0.1:9999".equals(addressList.get()));
+
+        helper.registryRemove(param("10.0.0.1:9999"));
+        await(() -> addressList.get() == null);
+        Assert.assertTrue(rows.isEmpty());
+    }
+
+    @Test
+    public void rowsNotWatchedHereOnStart() {
+        // left by an admin node that crashed with its executor, and beat to another live admin node
+        long nowTime = System.currentTimeMillis();
+        saveRow("10.0.0.8:9999", nowTime - TimeUnit.SECONDS.toMillis(JobRegistryMonitorHelper.LEASE_TIMEOUT_SECONDS + 10));
+        saveRow("10.0.0.9:9999", nowTime - TimeUnit.SECONDS.toMillis(JobRegistryMonitorHelper.LEASE_REFRESH_SECONDS + RegistryConfig.BEAT_TIMEOUT - 1));
+
+        helper.start();
+        await(() -> "10.0.0.9:9999".equals(addressList.get()));
+        Assert.assertEquals(1, rows.size());
+
+        // load of the other node's executor, as of its lease touch
+        Assert.assertNotNull(ExecutorLoadCache.getInstance().getLoad("10.0.0.9:9999"));
+    }
+
+
+    // ---------------------- stub ----------------------
+
+    private static RegistryParam param(String address) {
+        return new RegistryParam(RegistryConfig.RegistType.EXECUTOR.name(), APP_NAME, address, 0.1, 0.2, 0.3);
+    }
+
+    private static String rowKey(Object registryGroup, Object registryKey, Object registryValue) {
+        return registryGroup + "/" + registryKey + "/" + registryValue;
+    }
+
+    private void saveRow(String address, long updateTime) {
+        JobRegistry row = new JobRegistry();
+        row.setId(rowIds.incrementAndGet());
+        row.setRegistryGroup(RegistryConfig.RegistType.EXECUTOR.name());
+        row.setRegistryKey(APP_NAME);
+        row.setRegistryValue(address);
+        row.setUpdateTime(new Date(updateTime));
+        rows.put(rowKey(row.getRegistryGroup(), APP_NAME, address), row);
+    }
+
+    private static long before(Object nowTime, Object timeout) {
+        return ((Date) nowTime).getTime() - TimeUnit.SECONDS.toMillis((Integer) timeout);
+    }
+
+    private JobRegistryMapper registryMapper() {
+        return (JobRegistryMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{JobRegistryMapper.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "findDead": {
+                    List<Integer> ids = new ArrayList<>();
+                    for (JobRegistry row : rows.values()) {
+                        if (row.getUpdateTime().getTime() < before(args[1], args[0])) {
+                            ids.add(row.getId());
+                        }
+                    }
+                    return ids;
+                }
+                case "removeDead":
+                    rows.values().removeIf(row -> ((List<?>) args[0]).contains(row.getId()));
+                    return ((List<?>) args[0]).size();
+                case "findAll": {
+                    List<JobRegistry> list = new ArrayList<>();
+                    for (JobRegistry row : rows.values()) {
+                        if (row.getUpdateTime().getTime() >= before(args[1], args[0])) {
+                            list.add(row);
+                        }
+                    }
+                    return list;
+                }
+                case "registryUpdate": {
+                    JobRegistry row = rows.get(rowKey(args[0], args[1], args[2]));
+                    if (row == null) {
+                        return 0;
+                    }
+                    rowWrites.incrementAndGet();
+                    row.setUpdateTime((Date) args[6]);
+                    return 1;
+                }
+                case "registrySave":
+                    if (failSaves.getAndDecrement() > 0) {
+                        throw new IllegalStateException("db down");
+                    }
+                    rowWrites.incrementAndGet();
+                    saveRow((String) args[2], ((Date) args[6]).getTime());
+                    return 1;
+                case "registryDelete":
+                    return rows.remove(rowKey(args[0], args[1], args[2])) != null ? 1 : 0;
+                case "registryDeleteDead": {
+                    JobRegistry row = rows.get(rowKey(args[0], args[1], args[2]));
+                    if (row == null || row.getUpdateTime().getTime() >= before(args[4], args[3])) {
+                        return 0;
+                    }
+                    return rows.remove(rowKey(args[0], args[1], args[2]), row) ? 1 : 0;
+                }
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private JobGroupMapper groupMapper() {
+        final JobGroup group = new JobGroup();
+        group.setId(1);
+        group.setAppName(APP_NAME);
+        group.setAddressType(0);
+        return (JobGroupMapper) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{JobGroupMapper.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "findByAddressType":
+                    return Collections.singletonList(group);
+                case "update":
+                    addressList.set(((JobGroup) args[0]).getAddressList());
+                    return 1;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = JobAdminConfig.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            sleep(20);
+        }
+        Assert.assertTrue(condition.getAsBoolean());
+    }
+
+    private static void sleep(long ms) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
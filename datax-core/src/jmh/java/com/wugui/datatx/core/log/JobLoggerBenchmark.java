@@ -0,0 +1,101 @@
+package com.wugui.datatx.core.log;
+
+import com.wugui.datatx.core.thread.JobLogAppendThread;
+import com.wugui.datatx.core.util.DateUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lines/sec of the DataX stdout relay path into the job log, through the async appender:
+ * before (stack trace and a fresh date format per line) vs caller info vs no caller info vs logLine
+ *
+ * mvn -P benchmark -pl datax-core test-compile exec:exec -Dbenchmark=JobLoggerBenchmark
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class JobLoggerBenchmark {
+
+    private static final String LINE = "2020-05-09 10:00:01.234 [job-0] INFO  StandAloneJobContainerCommunicator - Total 1024 records, 65536 bytes";
+
+    private File logFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        logFile = File.createTempFile("job-logger-benchmark", ".log");
+        JobLogAppendThread.getInstance().start("interval", 200);
+        JobFileAppender.contextHolder.set(logFile.getPath());
+    }
+
+    @TearDown(Level.Iteration)
+    public void flush() throws IOException {
+        // written lines are part of the cost, the file is not kept
+        JobLogAppendThread.getInstance().flush(logFile.getPath());
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            file.setLength(0);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        JobLogger.setCallerInfo(true);
+        JobFileAppender.contextHolder.remove();
+        JobLogAppendThread.getInstance().close(logFile.getPath());
+        JobLogAppendThread.getInstance().toStop();
+        logFile.delete();
+    }
+
+    /**
+     * JobLogger.log as it was: stack trace and a date format per line
+     */
+    @Benchmark
+    public void before() {
+        String appendLog = MessageFormatter.arrayFormat(LINE, new Object[0]).getMessage();
+        StackTraceElement call = new Throwable().getStackTrace()[1];
+
+        StringBuffer buffer = new StringBuffer();
+        buffer.append(DateUtil.formatDateTime(new Date())).append(" ")
+                .append("[" + call.getFileName().replace("java", "") + call.getMethodName())
+                .append("-" + call.getLineNumber() + "]").append(" ")
+                .append(appendLog);
+        JobFileAppender.appendLog(JobFileAppender.contextHolder.get(), buffer.toString());
+    }
+
+    @Benchmark
+    public void callerInfo() {
+        JobLogger.setCallerInfo(true);
+        JobLogger.log(LINE);
+    }
+
+    @Benchmark
+    public void noCallerInfo() {
+        JobLogger.setCallerInfo(false);
+        JobLogger.log(LINE);
+    }
+
+    @Benchmark
+    public void logLine() {
+        JobLogger.logLine(LINE);
+    }
+
+}
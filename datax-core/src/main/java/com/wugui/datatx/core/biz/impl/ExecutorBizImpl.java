@@ -5,6 +5,7 @@ import com.wugui.datatx.core.biz.model.LogResult;
 import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datatx.core.biz.model.TriggerParam;
 import com.wugui.datatx.core.enums.ExecutorBlockStrategyEnum;
+import com.wugui.datatx.core.executor.ExecutorAdmission;
 import com.wugui.datatx.core.executor.JobExecutor;
 import com.wugui.datatx.core.glue.GlueFactory;
 import com.wugui.datatx.core.glue.GlueTypeEnum;
@@ -39,6 +40,12 @@ public class ExecutorBizImpl implements ExecutorBiz {
         if (jobThread != null && jobThread.isRunningOrHasQueue()) {
             return new ReturnT<>(ReturnT.FAIL_CODE, "job thread is running or has trigger queue.");
         }
+
+        // saturated executor, not idle for a new trigger
+        ReturnT<String> busyResult = ExecutorAdmission.getInstance().check();
+        if (busyResult != null) {
+            return busyResult;
+        }
         return ReturnT.SUCCESS;
     }
 
@@ -158,6 +165,13 @@ public class ExecutorBizImpl implements ExecutorBiz {
             }
         }
 
+        // admission, reject when the executor is saturated, before any old job thread is replaced
+        ReturnT<String> busyResult = ExecutorAdmission.getInstance().admit(triggerParam);
+        if (busyResult != null) {
+            logger.warn(">>>>>>>>>>> datax-web executor reject trigger, jobId:{}, logId:{}, {}", triggerParam.getJobId(), triggerParam.getLogId(), busyResult.getMsg());
+            return busyResult;
+        }
+
         // replace thread (new or exists invalid)
         if (jobThread == null) {
             jobThread = JobExecutor.registJobThread(triggerParam.getJobId(), jobHandler, removeOldReason);
@@ -165,6 +179,9 @@ public class ExecutorBizImpl implements ExecutorBiz {
 
         // push data to queue
         ReturnT<String> pushResult = jobThread.pushTriggerQueue(triggerParam);
+        if (pushResult.getCode() != ReturnT.SUCCESS_CODE) {
+            ExecutorAdmission.getInstance().release(triggerParam);
+        }
         return pushResult;
     }
 
@@ -12,6 +12,7 @@ public class ReturnT<T> implements Serializable {
 
 	public static final int SUCCESS_CODE = 200;
 	public static final int FAIL_CODE = 500;
+	public static final int BUSY_CODE = 503;		// executor busy, not run, may be routed to another executor
 
 	public static final ReturnT<String> SUCCESS = new ReturnT<>(null);
 	public static final ReturnT<String> FAIL = new ReturnT<>(FAIL_CODE, null);
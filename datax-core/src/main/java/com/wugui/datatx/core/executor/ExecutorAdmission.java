@@ -0,0 +1,128 @@
+package com.wugui.datatx.core.executor;
+
+import com.wugui.datatx.core.biz.model.ReturnT;
+import com.wugui.datatx.core.biz.model.TriggerParam;
+import com.wugui.datatx.core.util.OSUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * executor admission control, checked before a trigger is pushed to its job thread
+ *
+ *      a、max admitted jobs (running or queued, each runs one DataX process), 0 no limit;
+ *      b、reserved memory floor (G) and max load average, by OSUtils.checkResource, sampled at most once per second, 0 no limit;
+ *      c、rejected with ReturnT.BUSY_CODE, the admin routes the trigger to another executor.
+ *
+ * kill triggers (jobId -1) are never rejected and not counted.
+ */
+public class ExecutorAdmission {
+    private static Logger logger = LoggerFactory.getLogger(ExecutorAdmission.class);
+
+    private static ExecutorAdmission instance = new ExecutorAdmission();
+
+    public static ExecutorAdmission getInstance() {
+        return instance;
+    }
+
+    private static final long RESOURCE_CHECK_INTERVAL = 1000;
+
+    private volatile int maxProcesses = 0;
+    private volatile double reservedMemory = 0;
+    private volatile double maxLoad = 0;
+
+    private final AtomicInteger admittedJobs = new AtomicInteger();
+    private volatile long resourceCheckTime = 0;
+    private volatile boolean resourceEnough = true;
+
+    public void start(int maxProcesses, double reservedMemory, double maxLoad) {
+        this.maxProcesses = Math.max(0, maxProcesses);
+        this.reservedMemory = Math.max(0, reservedMemory);
+        this.maxLoad = Math.max(0, maxLoad);
+        logger.info(">>>>>>>>>>> datax-web executor admission, maxProcesses:{}, reservedMemory:{}G, maxLoad:{}", this.maxProcesses, this.reservedMemory, this.maxLoad);
+    }
+
+    /**
+     * admit a trigger, counted until its job thread is done with it
+     *
+     * @return null if admitted, else a busy result
+     */
+    public ReturnT<String> admit(TriggerParam triggerParam) {
+        if (!isCounted(triggerParam)) {
+            return null;
+        }
+
+        ReturnT<String> busyResult = checkResource();
+        if (busyResult != null) {
+            return busyResult;
+        }
+
+        int max = maxProcesses;
+        while (true) {
+            int admitted = admittedJobs.get();
+            if (max > 0 && admitted >= max) {
+                return new ReturnT<>(ReturnT.BUSY_CODE, "executor busy, max concurrent jobs reached: " + max);
+            }
+            if (admittedJobs.compareAndSet(admitted, admitted + 1)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * the job thread is done with the trigger, executed, discarded or rejected
+     */
+    public void release(TriggerParam triggerParam) {
+        if (isCounted(triggerParam)) {
+            admittedJobs.decrementAndGet();
+        }
+    }
+
+    /**
+     * would a new trigger be admitted now, nothing counted
+     *
+     * @return null if yes, else a busy result
+     */
+    public ReturnT<String> check() {
+        ReturnT<String> busyResult = checkResource();
+        if (busyResult != null) {
+            return busyResult;
+        }
+        int max = maxProcesses;
+        if (max > 0 && admittedJobs.get() >= max) {
+            return new ReturnT<>(ReturnT.BUSY_CODE, "executor busy, max concurrent jobs reached: " + max);
+        }
+        return null;
+    }
+
+    private ReturnT<String> checkResource() {
+        if (reservedMemory <= 0 && maxLoad <= 0) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - resourceCheckTime >= RESOURCE_CHECK_INTERVAL) {
+            resourceCheckTime = now;
+            try {
+                resourceEnough = OSUtils.checkResource(maxLoad > 0 ? maxLoad : Double.MAX_VALUE, reservedMemory);
+            } catch (Throwable e) {
+                logger.error(">>>>>>>>>>> datax-web executor admission, check resource error.", e);
+                resourceEnough = true;
+            }
+        }
+        if (!resourceEnough) {
+            return new ReturnT<>(ReturnT.BUSY_CODE, "executor busy, load over " + maxLoad + " or available memory under " + reservedMemory + "G");
+        }
+        return null;
+    }
+
+    private boolean isCounted(TriggerParam triggerParam) {
+        return triggerParam.getJobId() != -1;
+    }
+
+    public int getAdmittedJobs() {
+        return admittedJobs.get();
+    }
+
+}
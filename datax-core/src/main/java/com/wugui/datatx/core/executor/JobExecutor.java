@@ -6,9 +6,11 @@ import com.wugui.datatx.core.biz.client.AdminBizClient;
 import com.wugui.datatx.core.biz.impl.ExecutorBizImpl;
 import com.wugui.datatx.core.handler.IJobHandler;
 import com.wugui.datatx.core.log.JobFileAppender;
+import com.wugui.datatx.core.log.JobLogReader;
+import com.wugui.datatx.core.log.JobLogger;
 import com.wugui.datatx.core.thread.*;
 import com.wugui.datax.rpc.registry.ServiceRegistry;
-import com.wugui.datax.rpc.remoting.net.impl.netty_http.server.NettyHttpServer;
+import com.wugui.datax.rpc.remoting.net.NetEnum;
 import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
 import com.wugui.datax.rpc.serialize.Serializer;
 import com.wugui.datax.rpc.serialize.impl.HessianSerializer;
@@ -35,6 +37,14 @@ public class JobExecutor {
     private String accessToken;
     private String logPath;
     private int logRetentionDays;
+    private int logChunkSize;
+    private String logFlushPolicy;
+    private int logFlushInterval;
+    private boolean logCallerInfo = true;
+    private String transport;
+    private int maxProcesses;
+    private double reservedMemory;
+    private double maxLoad;
 
     public void setAdminAddresses(String adminAddresses) {
         this.adminAddresses = adminAddresses;
@@ -64,16 +74,56 @@ public class JobExecutor {
         this.logRetentionDays = logRetentionDays;
     }
 
+    public void setLogChunkSize(int logChunkSize) {
+        this.logChunkSize = logChunkSize;
+    }
+
+    public void setLogFlushPolicy(String logFlushPolicy) {
+        this.logFlushPolicy = logFlushPolicy;
+    }
+
+    public void setLogFlushInterval(int logFlushInterval) {
+        this.logFlushInterval = logFlushInterval;
+    }
+
+    public void setLogCallerInfo(boolean logCallerInfo) {
+        this.logCallerInfo = logCallerInfo;
+    }
+
+    public void setTransport(String transport) {
+        this.transport = transport;
+    }
+
+    public void setMaxProcesses(int maxProcesses) {
+        this.maxProcesses = maxProcesses;
+    }
+
+    public void setReservedMemory(double reservedMemory) {
+        this.reservedMemory = reservedMemory;
+    }
+
+    public void setMaxLoad(double maxLoad) {
+        this.maxLoad = maxLoad;
+    }
+
 
     // ---------------------- start + stop ----------------------
     public void start() throws Exception {
 
         // init logpath
         JobFileAppender.initLogPath(logPath);
+        JobLogReader.setMaxChunkSize(logChunkSize);
+        JobLogger.setCallerInfo(logCallerInfo);
+
+        // init JobLogAppendThread
+        JobLogAppendThread.getInstance().start(logFlushPolicy, logFlushInterval);
 
         // init invoker, admin-client
         initAdminBizList(adminAddresses, accessToken);
 
+        // init admission, before the executor-server accepts triggers
+        ExecutorAdmission.getInstance().start(maxProcesses, reservedMemory, maxLoad);
+
 
         // init JobLogFileCleanThread
         JobLogFileCleanThread.getInstance().start(logRetentionDays);
@@ -122,6 +172,9 @@ public class JobExecutor {
         // destory ProcessCallbackThread
         ProcessCallbackThread.getInstance().toStop();
 
+        // destory JobLogAppendThread, after the threads writing job log
+        JobLogAppendThread.getInstance().toStop();
+
     }
 
 
@@ -167,7 +220,7 @@ public class JobExecutor {
 
         xxlRpcProviderFactory = new XxlRpcProviderFactory();
 
-        xxlRpcProviderFactory.setServer(NettyHttpServer.class);
+        xxlRpcProviderFactory.setServer(NetEnum.autoMatch(transport, NetEnum.NETTY).serverClass);     // netty serves netty_http clients too
         xxlRpcProviderFactory.setSerializer(HessianSerializer.class);
         xxlRpcProviderFactory.setCorePoolSize(20);
         xxlRpcProviderFactory.setMaxPoolSize(200);
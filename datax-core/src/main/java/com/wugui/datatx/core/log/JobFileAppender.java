@@ -1,6 +1,7 @@
 package com.wugui.datatx.core.log;
 
 import com.wugui.datatx.core.biz.model.LogResult;
+import com.wugui.datatx.core.thread.JobLogAppendThread;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -97,6 +98,12 @@ public class JobFileAppender {
 		if (logFileName==null || logFileName.trim().length()==0) {
 			return;
 		}
+
+		// async append, written by JobLogAppendThread
+		if (JobLogAppendThread.getInstance().append(logFileName, appendLog)) {
+			return;
+		}
+
 		File logFile = new File(logFileName);
 
 		if (!logFile.exists()) {
@@ -135,60 +142,13 @@ public class JobFileAppender {
 	}
 
 	/**
-	 * support read log-file
+	 * support read log-file, seek by line index, see JobLogReader
 	 *
 	 * @param logFileName
 	 * @return log content
 	 */
 	public static LogResult readLog(String logFileName, int fromLineNum){
-
-		// valid log file
-		if (logFileName==null || logFileName.trim().length()==0) {
-            return new LogResult(fromLineNum, 0, "readLog fail, logFile not found", true);
-		}
-		File logFile = new File(logFileName);
-
-		if (!logFile.exists()) {
-            return new LogResult(fromLineNum, 0, "readLog fail, logFile not exists", true);
-		}
-
-		// read file
-		StringBuffer logContentBuffer = new StringBuffer();
-		int toLineNum = 0;
-		LineNumberReader reader = null;
-		try {
-			//reader = new LineNumberReader(new FileReader(logFile));
-			reader = new LineNumberReader(new InputStreamReader(new FileInputStream(logFile), "utf-8"));
-			String line;
-
-			while ((line = reader.readLine())!=null) {
-				toLineNum = reader.getLineNumber();		// [from, to], start as 1
-				if (toLineNum >= fromLineNum) {
-					logContentBuffer.append(line).append("\n");
-				}
-			}
-		} catch (IOException e) {
-			logger.error(e.getMessage(), e);
-		} finally {
-			if (reader != null) {
-				try {
-					reader.close();
-				} catch (IOException e) {
-					logger.error(e.getMessage(), e);
-				}
-			}
-		}
-
-		// result
-		LogResult logResult = new LogResult(fromLineNum, toLineNum, logContentBuffer.toString(), false);
-		return logResult;
-
-		/*
-        // it will return the number of characters actually skipped
-        reader.skip(Long.MAX_VALUE);
-        int maxLineNum = reader.getLineNumber();
-        maxLineNum++;	// 最大行号
-        */
+		return JobLogReader.readLog(logFileName, fromLineNum);
 	}
 
 	/**
@@ -0,0 +1,247 @@
+package com.wugui.datatx.core.log;
+
+import com.wugui.datatx.core.biz.model.LogResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * seekable job log reader
+ *
+ *      a、a sparse line offset index is kept per log file, one offset every 1000 lines, a poll seeks near fromLineNum instead of reading from line 1;
+ *      b、the index grows with the file, a tail poll only scans the bytes appended since the last poll;
+ *      c、the file is read by FileChannel positional reads, one response returns at most maxChunkSize bytes, the rest is left to the next poll.
+ *
+ * only complete lines are returned, a line still being written is returned by the next poll.
+ * buffers are used through Buffer, so a build on a newer jdk still runs on java 8.
+ */
+public class JobLogReader {
+    private static Logger logger = LoggerFactory.getLogger(JobLogReader.class);
+
+    private static final int INDEX_INTERVAL = 1000;
+    private static final int MAX_INDEXED_FILES = 256;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_MAX_CHUNK_SIZE = 1024 * 1024;
+
+    private static volatile int maxChunkSize = DEFAULT_MAX_CHUNK_SIZE;
+
+    // log file name : line index, lru
+    private static final Map<String, LineIndex> indexCache = new LinkedHashMap<String, LineIndex>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LineIndex> eldest) {
+            return size() > MAX_INDEXED_FILES;
+        }
+    };
+
+    /**
+     * max bytes of log content per read, default 1M
+     *
+     * @param chunkSize
+     */
+    public static void setMaxChunkSize(int chunkSize) {
+        maxChunkSize = chunkSize > 0 ? chunkSize : DEFAULT_MAX_CHUNK_SIZE;
+    }
+
+    public static int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    /**
+     * read log lines from fromLineNum, start as 1
+     *
+     * @param logFileName
+     * @param fromLineNum
+     * @return
+     */
+    public static LogResult readLog(String logFileName, int fromLineNum) {
+
+        // valid log file
+        if (logFileName == null || logFileName.trim().length() == 0) {
+            return new LogResult(fromLineNum, 0, "readLog fail, logFile not found", true);
+        }
+        File logFile = new File(logFileName);
+        if (!logFile.exists()) {
+            removeIndex(logFileName);
+            return new LogResult(fromLineNum, 0, "readLog fail, logFile not exists", true);
+        }
+
+        int fromLine = Math.max(fromLineNum, 1);
+        try (FileChannel channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+
+            // seek by the line index
+            LineIndex index = loadIndex(logFileName, fileSize);
+            synchronized (index) {
+                int seekLine = index.seekLine(fromLine);
+                return read(channel, index, index.offsetOf(seekLine), seekLine, fromLine, fromLineNum, fileSize);
+            }
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+            return new LogResult(fromLineNum, 0, "readLog fail, " + e.getMessage(), false);
+        }
+    }
+
+    /**
+     * scan lines from (offset, lineNum), return lines from fromLine within maxChunkSize bytes
+     */
+    private static LogResult read(FileChannel channel, LineIndex index, long offset, int lineNum,
+                                  int fromLine, int fromLineNum, long fileSize) throws IOException {
+        int chunkSize = maxChunkSize;
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        long position = offset;
+        long lineStart = offset;            // start offset of line lineNum
+        long contentStart = -1;
+        long contentEnd = -1;
+        int toLineNum = -1;
+
+        scan:
+        while (position < fileSize) {
+            ((Buffer) buffer).clear();
+            int count = channel.read(buffer, position);
+            if (count <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < count; i++) {
+                if (bytes[i] != '\n') {
+                    continue;
+                }
+                long lineEnd = position + i + 1;
+                if (lineNum >= fromLine) {
+                    if (contentStart < 0) {
+                        contentStart = lineStart;
+                    } else if (lineEnd - contentStart > chunkSize) {
+                        break scan;         // chunk full, at least one line is returned
+                    }
+                    contentEnd = lineEnd;
+                    toLineNum = lineNum;
+                }
+                index.lineEnd(lineNum, lineEnd);
+                lineNum++;
+                lineStart = lineEnd;
+            }
+            position += count;
+        }
+
+        // no new line, toLineNum is the last complete line, same as a full read
+        if (contentStart < 0) {
+            return new LogResult(fromLineNum, lineNum - 1, "", false);
+        }
+
+        // content, one positional read, an over sized single line is cut at chunkSize
+        long contentSize = contentEnd - contentStart;
+        boolean cut = contentSize > chunkSize;
+        ByteBuffer content = ByteBuffer.allocate((int) Math.min(contentSize, chunkSize));
+        while (content.hasRemaining()) {
+            if (channel.read(content, contentStart + ((Buffer) content).position()) <= 0) {
+                break;
+            }
+        }
+        int length = ((Buffer) content).position();
+        if (cut) {
+            length = charBoundary(content.array(), length);
+        }
+        String logContent = new String(content.array(), 0, length, StandardCharsets.UTF_8).replace("\r\n", "\n");
+        if (cut) {
+            logContent = logContent.concat(" ...\n");
+        }
+
+        return new LogResult(fromLineNum, toLineNum, logContent, false);
+    }
+
+    /**
+     * length of bytes[0, length) without a trailing partial utf-8 char
+     */
+    private static int charBoundary(byte[] bytes, int length) {
+        int lead = length - 1;
+        while (lead > 0 && lead > length - 4 && (bytes[lead] & 0xC0) == 0x80) {
+            lead--;
+        }
+        if (lead < 0) {
+            return length;
+        }
+        int b = bytes[lead] & 0xFF;
+        int charLength = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return lead + charLength > length ? lead : length;
+    }
+
+    private static LineIndex loadIndex(String logFileName, long fileSize) {
+        synchronized (indexCache) {
+            LineIndex index = indexCache.get(logFileName);
+            // log files are append only, a shorter file was rewritten
+            if (index == null || index.endOffset > fileSize) {
+                index = new LineIndex();
+                indexCache.put(logFileName, index);
+            }
+            return index;
+        }
+    }
+
+    private static void removeIndex(String logFileName) {
+        synchronized (indexCache) {
+            indexCache.remove(logFileName);
+        }
+    }
+
+    public static int indexedFiles() {
+        synchronized (indexCache) {
+            return indexCache.size();
+        }
+    }
+
+    /**
+     * sparse line offset index of one log file, guarded by itself
+     */
+    private static class LineIndex {
+        private long[] checkpoints = new long[8];   // checkpoints[k]: start offset of line k * INDEX_INTERVAL + 1
+        private int checkpointCount = 1;            // checkpoints[0] = 0, line 1
+        private int lineCount;                      // complete lines indexed
+        private long endOffset;                     // end offset of line lineCount
+
+        /**
+         * closest indexed line at or before lineNum
+         */
+        private int seekLine(int lineNum) {
+            if (lineNum > lineCount) {
+                return lineCount + 1;
+            }
+            return (lineNum - 1) / INDEX_INTERVAL * INDEX_INTERVAL + 1;
+        }
+
+        private long offsetOf(int seekLine) {
+            if (seekLine == lineCount + 1) {
+                return endOffset;
+            }
+            return checkpoints[(seekLine - 1) / INDEX_INTERVAL];
+        }
+
+        /**
+         * line lineNum ends at lineEnd, only the next unindexed line extends the index
+         */
+        private void lineEnd(int lineNum, long lineEnd) {
+            if (lineNum != lineCount + 1) {
+                return;
+            }
+            lineCount = lineNum;
+            endOffset = lineEnd;
+            if (lineCount % INDEX_INTERVAL == 0) {
+                if (checkpointCount == checkpoints.length) {
+                    checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                }
+                checkpoints[checkpointCount++] = lineEnd;
+            }
+        }
+    }
+
+}
@@ -16,22 +16,64 @@ import java.util.Date;
 public class JobLogger {
     private static Logger logger = LoggerFactory.getLogger("datax-web logger");
 
+    /**
+     * print "[fileName.MethodName-LineNumber]" of the caller, it costs a stack trace per line, false to skip
+     */
+    private static volatile boolean callerInfo = true;
+
+    // formatted time of the current second, shared by all job threads
+    private static volatile TimeText timeText = new TimeText(-1, null);
 
+    private static final class TimeText {
+        private final long second;
+        private final String text;
+
+        private TimeText(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
+    }
+
+    public static void setCallerInfo(boolean callerInfo) {
+        JobLogger.callerInfo = callerInfo;
+    }
+
+    public static boolean isCallerInfo() {
+        return callerInfo;
+    }
+
+    private static String formatTime(long nowTime) {
+        long second = nowTime / 1000;
+        TimeText cached = timeText;
+        if (cached.second == second) {
+            return cached.text;
+        }
+        String text = DateUtil.formatDateTime(new Date(nowTime));
+        timeText = new TimeText(second, text);
+        return text;
+    }
+
+    private static StackTraceElement callInfo() {
+        // [0] callInfo, [1] JobLogger.log, [2] caller
+        return callerInfo ? new Throwable().getStackTrace()[2] : null;
+    }
 
     /**
      * append log
      *
-     * @param call
+     * @param call  null to skip the caller
      * @param appendLog
      */
     private static void logDetail(StackTraceElement call, String appendLog) {
 
         // "yyyy-MM-dd HH:mm:ss [fileName.MethodName-LineNumber] log";
-        StringBuffer buffer = new StringBuffer();
-        buffer.append(DateUtil.formatDateTime(new Date())).append(" ")
-                .append("[" + call.getFileName().replace("java", "") + call.getMethodName())
-                .append("-" + call.getLineNumber() + "]").append(" ")
-                .append(appendLog != null ? appendLog : "");
+        StringBuilder buffer = new StringBuilder(32 + (appendLog != null ? appendLog.length() : 0));
+        buffer.append(formatTime(System.currentTimeMillis())).append(" ");
+        if (call != null) {
+            buffer.append("[").append(call.getFileName().replace("java", "")).append(call.getMethodName())
+                    .append("-").append(call.getLineNumber()).append("]").append(" ");
+        }
+        buffer.append(appendLog != null ? appendLog : "");
         String formatAppendLog = buffer.toString();
 
         String logFileName = JobFileAppender.contextHolder.get();
@@ -58,8 +100,16 @@ public class JobLogger {
             appendLog = MessageFormat.format(appendLogPattern, appendLogArguments);
         }*/
 
-        StackTraceElement callInfo = new Throwable().getStackTrace()[1];
-        logDetail(callInfo, appendLog);
+        logDetail(callInfo(), appendLog);
+    }
+
+    /**
+     * append one line as it is, no pattern and no caller, for relaying process output
+     *
+     * @param line
+     */
+    public static void logLine(String line) {
+        logDetail(null, line);
     }
 
     /**
@@ -73,8 +123,7 @@ public class JobLogger {
         e.printStackTrace(new PrintWriter(stringWriter));
         String appendLog = stringWriter.toString();
 
-        StackTraceElement callInfo = new Throwable().getStackTrace()[1];
-        logDetail(callInfo, appendLog);
+        logDetail(callInfo(), appendLog);
     }
 
 }
@@ -0,0 +1,356 @@
+package com.wugui.datatx.core.thread;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * async job log appender
+ *
+ *      a、job threads put log lines into a bounded ring buffer, a job thread only waits when the buffer is full;
+ *      b、one writer thread drains the buffer, lines of the same log file are written by one write call, in order;
+ *      c、one open channel per log file, closed when the job ends or after idle for a while.
+ *
+ * flush policy:
+ *      interval: lines are written when the batch is full or flushInterval ms after the first line, default;
+ *      line: lines are written as soon as the writer takes them, no linger;
+ *      sync: same as line, and each write is forced to disk.
+ *
+ * when the job ends, JobThread calls close(logFileName), it returns after all lines of the log file are written.
+ */
+public class JobLogAppendThread {
+    private static Logger logger = LoggerFactory.getLogger(JobLogAppendThread.class);
+
+    private static JobLogAppendThread instance = new JobLogAppendThread();
+
+    public static JobLogAppendThread getInstance() {
+        return instance;
+    }
+
+    public enum FlushPolicy {
+        INTERVAL, LINE, SYNC;
+
+        public static FlushPolicy match(String name, FlushPolicy defaultPolicy) {
+            for (FlushPolicy item : values()) {
+                if (item.name().equalsIgnoreCase(name)) {
+                    return item;
+                }
+            }
+            return defaultPolicy;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final int MAX_BATCH = 4096;
+    private static final int MAX_OPEN_CHANNELS = 256;
+    private static final long IDLE_CLOSE_MS = 30 * 1000;
+    private static final long FLUSH_TIMEOUT_MS = 10 * 1000;
+
+    private ArrayBlockingQueue<LogEntry> ringBuffer;
+    private FlushPolicy flushPolicy = FlushPolicy.INTERVAL;
+    private long flushInterval;
+
+    // log file name : open channel, writer thread only
+    private final LinkedHashMap<String, OpenChannel> channels = new LinkedHashMap<>(16, 0.75f, true);
+
+    private Thread writerThread;
+    private volatile boolean running = false;
+    private volatile boolean toStop = false;
+
+    private static class LogEntry {
+        private final String logFileName;
+        private final String line;              // null for flush marker
+        private final CountDownLatch flushed;
+        private final boolean close;
+
+        private LogEntry(String logFileName, String line, CountDownLatch flushed, boolean close) {
+            this.logFileName = logFileName;
+            this.line = line;
+            this.flushed = flushed;
+            this.close = close;
+        }
+    }
+
+    private static class OpenChannel {
+        private final FileChannel channel;
+        private long lastWriteTime;
+
+        private OpenChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    public void start(String flushPolicyName, long flushIntervalMs) {
+        flushPolicy = FlushPolicy.match(flushPolicyName, FlushPolicy.INTERVAL);
+        flushInterval = flushIntervalMs > 0 ? flushIntervalMs : 200;
+        ringBuffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        toStop = false;
+
+        writerThread = new Thread(() -> {
+            List<LogEntry> batch = new ArrayList<>(MAX_BATCH);
+            long lastIdleCheck = System.currentTimeMillis();
+
+            // drain all buffered lines before exit
+            while (!toStop || !ringBuffer.isEmpty()) {
+                try {
+                    LogEntry first = ringBuffer.poll(1, TimeUnit.SECONDS);
+                    if (first != null) {
+                        batch.add(first);
+                        collect(batch);
+                        write(batch);
+                        batch.clear();
+                    }
+
+                    // idle close
+                    long nowTime = System.currentTimeMillis();
+                    if (nowTime - lastIdleCheck >= 1000) {
+                        closeIdle(nowTime);
+                        lastIdleCheck = nowTime;
+                    }
+                } catch (InterruptedException e) {
+                    if (!toStop) {
+                        logger.error(e.getMessage(), e);
+                    }
+                } catch (Exception e) {
+                    logger.error(">>>>>>>>>>> datax-web, JobLogAppendThread error:{}", e);
+                    // release waiting job threads
+                    for (LogEntry entry : batch) {
+                        if (entry.flushed != null) {
+                            entry.flushed.countDown();
+                        }
+                    }
+                    batch.clear();
+                }
+            }
+
+            // close all channels
+            for (OpenChannel openChannel : channels.values()) {
+                closeQuietly(openChannel.channel);
+            }
+            channels.clear();
+            logger.info(">>>>>>>>>>> datax-web, executor JobLogAppendThread thread destory.");
+        });
+        writerThread.setDaemon(true);
+        writerThread.setName("datax-web, executor JobLogAppendThread");
+        writerThread.start();
+        running = true;
+
+        logger.info(">>>>>>>>>>> datax-web, executor JobLogAppendThread start, flushPolicy:{}, flushInterval:{}", flushPolicy, flushInterval);
+    }
+
+    /**
+     * append one log line
+     *
+     * @param logFileName
+     * @param line
+     * @return false when the appender is not running, the caller writes the line itself
+     */
+    public boolean append(String logFileName, String line) {
+        return put(new LogEntry(logFileName, line != null ? line : "", null, false));
+    }
+
+    /**
+     * wait until all lines appended before are written, the channel is kept open
+     *
+     * @param logFileName
+     */
+    public void flush(String logFileName) {
+        flush(logFileName, false);
+    }
+
+    /**
+     * wait until all lines appended before are written, then force and close the channel, called when the job ends
+     *
+     * @param logFileName
+     */
+    public void close(String logFileName) {
+        flush(logFileName, true);
+    }
+
+    private void flush(String logFileName, boolean close) {
+        if (logFileName == null || logFileName.trim().length() == 0) {
+            return;
+        }
+        CountDownLatch flushed = new CountDownLatch(1);
+        if (!put(new LogEntry(logFileName, null, flushed, close))) {
+            return;
+        }
+        try {
+            if (!flushed.await(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                logger.warn(">>>>>>>>>>> datax-web, job log flush timeout, logFileName:{}", logFileName);
+            }
+        } catch (InterruptedException e) {
+            // job thread interrupted by kill, lines are still written by the writer
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean put(LogEntry entry) {
+        try {
+            // buffer full, wait for the writer
+            while (running) {
+                if (ringBuffer.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            // keep the line, the interrupt is handled by the job thread
+            Thread.currentThread().interrupt();
+            return running && ringBuffer.offer(entry);
+        }
+        return false;
+    }
+
+    /**
+     * take more lines into the batch by the flush policy
+     */
+    private void collect(List<LogEntry> batch) throws InterruptedException {
+        if (flushPolicy != FlushPolicy.INTERVAL) {
+            ringBuffer.drainTo(batch, MAX_BATCH - batch.size());
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        while (batch.size() < MAX_BATCH) {
+            ringBuffer.drainTo(batch, MAX_BATCH - batch.size());
+            // a flush marker is written at once
+            if (batch.get(batch.size() - 1).flushed != null || toStop) {
+                return;
+            }
+            long remain = deadline - System.nanoTime();
+            if (batch.size() >= MAX_BATCH || remain <= 0) {
+                return;
+            }
+            LogEntry next = ringBuffer.poll(remain, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * write the batch, grouped by log file, lines of one file keep their order
+     */
+    private void write(List<LogEntry> batch) {
+        Map<String, StringBuilder> pending = new LinkedHashMap<>();
+        for (LogEntry entry : batch) {
+            if (entry.flushed == null) {
+                pending.computeIfAbsent(entry.logFileName, k -> new StringBuilder()).append(entry.line).append("\r\n");
+                continue;
+            }
+
+            // flush marker, write the lines before it
+            StringBuilder lines = pending.remove(entry.logFileName);
+            if (lines != null) {
+                writeFile(entry.logFileName, lines);
+            }
+            if (entry.close) {
+                OpenChannel openChannel = channels.remove(entry.logFileName);
+                if (openChannel != null) {
+                    force(entry.logFileName, openChannel);
+                    closeQuietly(openChannel.channel);
+                }
+            }
+            entry.flushed.countDown();
+        }
+        for (Map.Entry<String, StringBuilder> item : pending.entrySet()) {
+            writeFile(item.getKey(), item.getValue());
+        }
+    }
+
+    private void writeFile(String logFileName, StringBuilder lines) {
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        for (int retry = 0; retry < 2; retry++) {
+            OpenChannel openChannel = null;
+            try {
+                openChannel = openChannel(logFileName);
+                while (buffer.hasRemaining()) {
+                    openChannel.channel.write(buffer);
+                }
+                openChannel.lastWriteTime = System.currentTimeMillis();
+                if (flushPolicy == FlushPolicy.SYNC) {
+                    force(logFileName, openChannel);
+                }
+                return;
+            } catch (IOException e) {
+                // log file removed or channel broken, reopen once
+                logger.error(">>>>>>>>>>> datax-web, job log write error, logFileName:{}", logFileName, e);
+                channels.remove(logFileName);
+                if (openChannel != null) {
+                    closeQuietly(openChannel.channel);
+                }
+            }
+        }
+    }
+
+    private OpenChannel openChannel(String logFileName) throws IOException {
+        OpenChannel openChannel = channels.get(logFileName);
+        if (openChannel != null) {
+            return openChannel;
+        }
+
+        // keep the open channel count bounded, close the least recently written
+        if (channels.size() >= MAX_OPEN_CHANNELS) {
+            Iterator<OpenChannel> iterator = channels.values().iterator();
+            closeQuietly(iterator.next().channel);
+            iterator.remove();
+        }
+        FileChannel channel = FileChannel.open(Paths.get(logFileName),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        openChannel = new OpenChannel(channel);
+        channels.put(logFileName, openChannel);
+        return openChannel;
+    }
+
+    private void closeIdle(long nowTime) {
+        Iterator<OpenChannel> iterator = channels.values().iterator();
+        while (iterator.hasNext()) {
+            OpenChannel openChannel = iterator.next();
+            if (nowTime - openChannel.lastWriteTime > IDLE_CLOSE_MS) {
+                closeQuietly(openChannel.channel);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void force(String logFileName, OpenChannel openChannel) {
+        try {
+            openChannel.channel.force(false);
+        } catch (IOException e) {
+            logger.error(">>>>>>>>>>> datax-web, job log force error, logFileName:{}", logFileName, e);
+        }
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    public void toStop() {
+        // new lines are written directly by the caller, buffered lines are drained by the writer thread
+        running = false;
+        toStop = true;
+        if (writerThread != null) {
+            // no interrupt, an interrupted write closes the channel
+            try {
+                writerThread.join(FLUSH_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+}
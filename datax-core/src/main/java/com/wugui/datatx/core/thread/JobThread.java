@@ -3,6 +3,7 @@ package com.wugui.datatx.core.thread;
 import com.wugui.datatx.core.biz.model.HandleCallbackParam;
 import com.wugui.datatx.core.biz.model.ReturnT;
 import com.wugui.datatx.core.biz.model.TriggerParam;
+import com.wugui.datatx.core.executor.ExecutorAdmission;
 import com.wugui.datatx.core.executor.JobExecutor;
 import com.wugui.datatx.core.handler.IJobHandler;
 import com.wugui.datatx.core.log.JobFileAppender;
@@ -183,6 +184,12 @@ public class JobThread extends Thread {
 
                 JobLogger.log("<br>----------- JobThread Exception:" + errorMsg + "<br>----------- datax-web job execute end(error) -----------");
             } finally {
+                // flush job log before callback, the log is complete when the job is marked end
+                if (tgParam != null) {
+                    JobLogAppendThread.getInstance().close(JobFileAppender.contextHolder.get());
+                    ExecutorAdmission.getInstance().release(tgParam);
+                }
+
                 // 终止操作暂不监控状态
                 if (tgParam != null && tgParam.getJobId() != -1) {
                     // callback handler info
@@ -202,6 +209,8 @@ public class JobThread extends Thread {
         while (triggerQueue != null && triggerQueue.size() > 0) {
             TriggerParam triggerParam = triggerQueue.poll();
             if (triggerParam != null) {
+                ExecutorAdmission.getInstance().release(triggerParam);
+
                 // is killed
                 ReturnT<String> stopResult = new ReturnT<String>(ReturnT.FAIL_CODE, stopReason + " [job not executed, in the job queue, killed.]");
                 TriggerCallbackThread.pushCallBack(new HandleCallbackParam(triggerParam.getLogId(), triggerParam.getLogDateTime(), stopResult));
@@ -3,6 +3,7 @@ package com.wugui.datatx.core.util;
 
 import com.wugui.datatx.core.biz.model.HandleProcessCallbackParam;
 import com.wugui.datatx.core.log.JobLogger;
+import com.wugui.datatx.core.thread.JobLogAppendThread;
 import com.wugui.datatx.core.thread.ProcessCallbackThread;
 
 import java.io.FileOutputStream;
@@ -60,7 +61,8 @@ public class ScriptUtil {
         Thread inputThread = null;
         Thread errThread = null;
         try {
-            // file
+            // file, buffered job log lines go first
+            JobLogAppendThread.getInstance().flush(logFile);
             fileOutputStream = new FileOutputStream(logFile, true);
 
             // command
@@ -0,0 +1,68 @@
+package com.wugui.datax.executor;
+
+import com.wugui.datatx.core.biz.model.ReturnT;
+import com.wugui.datatx.core.biz.model.TriggerParam;
+import com.wugui.datatx.core.executor.ExecutorAdmission;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * executor admission test, max admitted jobs
+ */
+public class ExecutorAdmissionTest {
+
+    private final ExecutorAdmission admission = ExecutorAdmission.getInstance();
+
+    @After
+    public void after() {
+        admission.start(0, 0, 0);
+    }
+
+    @Test
+    public void rejectOverMaxProcesses() {
+        admission.start(2, 0, 0);
+        int admitted = admission.getAdmittedJobs();
+
+        TriggerParam first = trigger(1);
+        TriggerParam second = trigger(2);
+        Assert.assertNull(admission.admit(first));
+        Assert.assertNull(admission.admit(second));
+
+        ReturnT<String> busyResult = admission.admit(trigger(3));
+        Assert.assertNotNull(busyResult);
+        Assert.assertEquals(ReturnT.BUSY_CODE, busyResult.getCode());
+        Assert.assertNotNull(admission.check());
+
+        // kill trigger, never rejected
+        Assert.assertNull(admission.admit(trigger(-1)));
+
+        admission.release(first);
+        Assert.assertNull(admission.check());
+        Assert.assertNull(admission.admit(trigger(3)));
+
+        admission.release(second);
+        admission.release(trigger(3));
+        admission.release(trigger(-1));
+        Assert.assertEquals(admitted, admission.getAdmittedJobs());
+    }
+
+    @Test
+    public void noLimit() {
+        admission.start(0, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNull(admission.admit(trigger(i)));
+        }
+        for (int i = 0; i < 100; i++) {
+            admission.release(trigger(i));
+        }
+        Assert.assertNull(admission.check());
+    }
+
+    private TriggerParam trigger(int jobId) {
+        TriggerParam triggerParam = new TriggerParam();
+        triggerParam.setJobId(jobId);
+        return triggerParam;
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.wugui.datax.log;
+
+import com.wugui.datatx.core.log.JobFileAppender;
+import com.wugui.datatx.core.thread.JobLogAppendThread;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * async job log appender test, lines of each log file keep their order and are all written on close
+ */
+public class JobLogAppendThreadTest {
+
+    @Test
+    public void appendAndClose() throws IOException, InterruptedException {
+        final File first = File.createTempFile("job-log-append", ".log");
+        final File second = File.createTempFile("job-log-append", ".log");
+        final int lines = 20000;
+
+        JobLogAppendThread.getInstance().start("interval", 200);
+        try {
+            Thread firstThread = new Thread(() -> append(first, lines));
+            Thread secondThread = new Thread(() -> append(second, lines));
+            firstThread.start();
+            secondThread.start();
+            firstThread.join();
+            secondThread.join();
+
+            // job end, all lines are written when close returns
+            JobLogAppendThread.getInstance().close(first.getPath());
+            JobLogAppendThread.getInstance().close(second.getPath());
+            assertLines(first, lines);
+            assertLines(second, lines);
+        } finally {
+            JobLogAppendThread.getInstance().toStop();
+            first.delete();
+            second.delete();
+        }
+    }
+
+    private static void append(File logFile, int lines) {
+        for (int i = 1; i <= lines; i++) {
+            JobFileAppender.appendLog(logFile.getPath(), "line " + i);
+        }
+    }
+
+    private static void assertLines(File logFile, int lines) {
+        String[] content = JobFileAppender.readLines(logFile).split("\n");
+        Assert.assertEquals(lines, content.length);
+        for (int i = 0; i < lines; i++) {
+            Assert.assertEquals("line " + (i + 1), content[i]);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.wugui.datax.log;
+
+import com.wugui.datatx.core.biz.model.LogResult;
+import com.wugui.datatx.core.log.JobFileAppender;
+import com.wugui.datatx.core.log.JobLogReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * job log reader test, same lines as a full read
+ */
+public class JobLogReaderTest {
+
+    private File logFile;
+
+    @Before
+    public void before() throws IOException {
+        logFile = File.createTempFile("job-log-reader", ".log");
+        JobLogReader.setMaxChunkSize(0);
+    }
+
+    @After
+    public void after() {
+        logFile.delete();
+        JobLogReader.setMaxChunkSize(0);
+    }
+
+    @Test
+    public void seekByLineIndex() {
+        for (int i = 1; i <= 3500; i++) {
+            JobFileAppender.appendLog(logFile.getPath(), "line " + i);
+        }
+
+        LogResult logResult = JobLogReader.readLog(logFile.getPath(), 2999);
+        Assert.assertEquals(3500, logResult.getToLineNum());
+        Assert.assertTrue(logResult.getLogContent().startsWith("line 2999\nline 3000\n"));
+
+        // earlier lines, seek by checkpoint
+        logResult = JobLogReader.readLog(logFile.getPath(), 1001);
+        Assert.assertTrue(logResult.getLogContent().startsWith("line 1001\n"));
+
+        // no new line
+        logResult = JobLogReader.readLog(logFile.getPath(), 3501);
+        Assert.assertEquals(3500, logResult.getToLineNum());
+        Assert.assertEquals("", logResult.getLogContent());
+    }
+
+    @Test
+    public void tailPoll() {
+        JobFileAppender.appendLog(logFile.getPath(), "a");
+        JobFileAppender.appendLog(logFile.getPath(), "b");
+        LogResult logResult = JobLogReader.readLog(logFile.getPath(), 1);
+        Assert.assertEquals("a\nb\n", logResult.getLogContent());
+
+        JobFileAppender.appendLog(logFile.getPath(), "c");
+        logResult = JobLogReader.readLog(logFile.getPath(), logResult.getToLineNum() + 1);
+        Assert.assertEquals(3, logResult.getFromLineNum());
+        Assert.assertEquals(3, logResult.getToLineNum());
+        Assert.assertEquals("c\n", logResult.getLogContent());
+    }
+
+    @Test
+    public void chunkSize() {
+        for (int i = 1; i <= 100; i++) {
+            JobFileAppender.appendLog(logFile.getPath(), "0123456789");     // 12 bytes per line
+        }
+        JobLogReader.setMaxChunkSize(120);
+
+        int fromLineNum = 1;
+        int polls = 0;
+        while (fromLineNum <= 100) {
+            LogResult logResult = JobLogReader.readLog(logFile.getPath(), fromLineNum);
+            Assert.assertEquals(fromLineNum + 9, logResult.getToLineNum());
+            fromLineNum = logResult.getToLineNum() + 1;
+            polls++;
+        }
+        Assert.assertEquals(10, polls);
+
+        // an over sized line is cut, the next read starts at the next line
+        JobLogReader.setMaxChunkSize(4);
+        LogResult logResult = JobLogReader.readLog(logFile.getPath(), 1);
+        Assert.assertEquals(1, logResult.getToLineNum());
+        Assert.assertEquals("0123 ...\n", logResult.getLogContent());
+    }
+
+    @Test
+    public void cutAtCharBoundary() {
+        JobFileAppender.appendLog(logFile.getPath(), "ab\u4e2d\u6587");      // 2 + 3 + 3 bytes
+        JobLogReader.setMaxChunkSize(4);
+        Assert.assertEquals("ab ...\n", JobLogReader.readLog(logFile.getPath(), 1).getLogContent());
+
+        JobLogReader.setMaxChunkSize(5);
+        Assert.assertEquals("ab\u4e2d ...\n", JobLogReader.readLog(logFile.getPath(), 1).getLogContent());
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.wugui.datax.log;
+
+import com.wugui.datatx.core.log.JobFileAppender;
+import com.wugui.datatx.core.log.JobLogger;
+import com.wugui.datatx.core.thread.JobLogAppendThread;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * job logger test, line format with and without caller info, async append
+ */
+public class JobLoggerTest {
+
+    private static final String LINE = "2020-05-09 10:00:01.234 [job-0] INFO  StandAloneJobContainerCommunicator - Total 1024 records, 65536 bytes";
+
+    @Test
+    public void format() throws IOException {
+        File logFile = File.createTempFile("job-logger", ".log");
+        JobFileAppender.contextHolder.set(logFile.getPath());
+        try {
+            JobLogger.setCallerInfo(true);
+            JobLogger.log("with caller {}", 1);
+            JobLogger.setCallerInfo(false);
+            JobLogger.log("without caller {}", 2);
+            JobLogger.logLine("raw {}");
+
+            String[] lines = JobFileAppender.readLines(logFile).split("\n");
+            Assert.assertTrue(lines[0], lines[0].matches("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2} \\[JobLoggerTest\\.format-\\d+] with caller 1"));
+            Assert.assertTrue(lines[1], lines[1].matches("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2} without caller 2"));
+            Assert.assertTrue(lines[2], lines[2].endsWith(" raw {}"));
+        } finally {
+            JobLogger.setCallerInfo(true);
+            JobFileAppender.contextHolder.remove();
+            logFile.delete();
+        }
+    }
+
+    /**
+     * the DataX stdout relay path through the async appender, caller info on and off: every line written once, in order
+     */
+    @Test
+    public void asyncAppendKeepsEveryLine() throws IOException {
+        File logFile = File.createTempFile("job-logger", ".log");
+        int count = 20000;
+
+        JobLogAppendThread.getInstance().start("interval", 200);
+        JobFileAppender.contextHolder.set(logFile.getPath());
+        try {
+            JobLogger.setCallerInfo(true);
+            for (int i = 0; i < count; i++) {
+                JobLogger.log("{} {}", LINE, i);
+            }
+            JobLogger.setCallerInfo(false);
+            for (int i = 0; i < count; i++) {
+                JobLogger.log("{} {}", LINE, count + i);
+            }
+            for (int i = 0; i < count; i++) {
+                JobLogger.logLine(LINE + " " + (2 * count + i));
+            }
+            JobLogAppendThread.getInstance().flush(logFile.getPath());
+
+            String[] lines = JobFileAppender.readLines(logFile).split("\n");
+            Assert.assertEquals(3 * count, lines.length);
+            for (int i = 0; i < lines.length; i++) {
+                Assert.assertTrue(lines[i], lines[i].endsWith(" " + LINE + " " + i));
+                Assert.assertEquals(lines[i], i < count, lines[i].contains("[JobLoggerTest.asyncAppendKeepsEveryLine-"));
+            }
+        } finally {
+            JobLogger.setCallerInfo(true);
+            JobFileAppender.contextHolder.remove();
+            JobLogAppendThread.getInstance().close(logFile.getPath());
+            JobLogAppendThread.getInstance().toStop();
+            logFile.delete();
+        }
+    }
+
+}
@@ -41,6 +41,30 @@ public class DataXConfig {
     @Value("${datax.job.executor.logretentiondays}")
     private int logRetentionDays;
 
+    @Value("${datax.job.executor.logchunksize:1048576}")
+    private int logChunkSize;
+
+    @Value("${datax.job.executor.logflushpolicy:interval}")
+    private String logFlushPolicy;
+
+    @Value("${datax.job.executor.logflushinterval:200}")
+    private int logFlushInterval;
+
+    @Value("${datax.job.executor.logcallerinfo:true}")
+    private boolean logCallerInfo;
+
+    @Value("${datax.job.executor.transport:netty}")
+    private String transport;
+
+    @Value("${datax.job.executor.maxprocesses:0}")
+    private int maxProcesses;
+
+    @Value("${datax.job.executor.reservedmemory:0}")
+    private double reservedMemory;
+
+    @Value("${datax.job.executor.maxload:0}")
+    private double maxLoad;
+
 
     @Bean
     public JobSpringExecutor JobExecutor() {
@@ -57,6 +81,14 @@ public class DataXConfig {
         }
         jobSpringExecutor.setLogPath(logPath);
         jobSpringExecutor.setLogRetentionDays(logRetentionDays);
+        jobSpringExecutor.setLogChunkSize(logChunkSize);
+        jobSpringExecutor.setLogFlushPolicy(logFlushPolicy);
+        jobSpringExecutor.setLogFlushInterval(logFlushInterval);
+        jobSpringExecutor.setLogCallerInfo(logCallerInfo);
+        jobSpringExecutor.setTransport(transport);
+        jobSpringExecutor.setMaxProcesses(maxProcesses);
+        jobSpringExecutor.setReservedMemory(reservedMemory);
+        jobSpringExecutor.setMaxLoad(maxLoad);
 
         return jobSpringExecutor;
     }
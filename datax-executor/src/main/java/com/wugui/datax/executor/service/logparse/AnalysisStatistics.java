@@ -50,7 +50,7 @@ public class AnalysisStatistics {
                 } else if (line.contains(TASK_RECORD_WRITING_NUM_SUFFIX)) {
                     logStatistics.setTaskRecordWriteFailNum(Integer.parseInt(subResult(line)));
                 }
-                JobLogger.log(line);
+                JobLogger.logLine(line);
             }
             reader.close();
             inputStream = null;
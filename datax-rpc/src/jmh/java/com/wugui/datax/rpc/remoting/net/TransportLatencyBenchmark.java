@@ -0,0 +1,102 @@
+package com.wugui.datax.rpc.remoting.net;
+
+import com.wugui.datax.rpc.remoting.invoker.XxlRpcInvokerFactory;
+import com.wugui.datax.rpc.remoting.invoker.call.CallType;
+import com.wugui.datax.rpc.remoting.invoker.reference.XxlRpcReferenceBean;
+import com.wugui.datax.rpc.remoting.invoker.route.LoadBalance;
+import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
+import com.wugui.datax.rpc.serialize.impl.HessianSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sync echo latency over one client per transport on localhost, netty vs netty_http,
+ * sampled from 16 concurrent callers, see the p99 / p99.9 of the sample time
+ *
+ * mvn -P benchmark -pl datax-rpc test-compile exec:exec -Dbenchmark=TransportLatencyBenchmark
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(16)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TransportLatencyBenchmark {
+
+    public interface EchoService {
+        String echo(String message);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+        @Override
+        public String echo(String message) {
+            return message;
+        }
+    }
+
+    private static final String MESSAGE = "{\"jobId\":1,\"executorHandler\":\"\",\"executorParams\":\"{\\\"job\\\":{}}\",\"logId\":1}";
+
+    @Param({"NETTY", "NETTY_HTTP"})
+    private NetEnum netEnum;
+
+    private XxlRpcProviderFactory providerFactory;
+    private EchoService echoService;
+
+    @Setup
+    public void setUp() throws Exception {
+        int port = 7181 + netEnum.ordinal();
+
+        // provider
+        providerFactory = new XxlRpcProviderFactory();
+        providerFactory.setServer(netEnum.serverClass);
+        providerFactory.setSerializer(HessianSerializer.class);
+        providerFactory.setCorePoolSize(16);
+        providerFactory.setMaxPoolSize(32);
+        providerFactory.setIp("127.0.0.1");
+        providerFactory.setPort(port);
+        providerFactory.addService(EchoService.class.getName(), null, new EchoServiceImpl());
+        providerFactory.start();
+        Thread.sleep(1000);
+
+        // invoker
+        XxlRpcReferenceBean referenceBean = new XxlRpcReferenceBean();
+        referenceBean.setClient(netEnum.clientClass);
+        referenceBean.setSerializer(HessianSerializer.class);
+        referenceBean.setCallType(CallType.SYNC);
+        referenceBean.setLoadBalance(LoadBalance.ROUND);
+        referenceBean.setIface(EchoService.class);
+        referenceBean.setVersion(null);
+        referenceBean.setTimeout(3000);
+        referenceBean.setAddress("127.0.0.1:" + port);
+        referenceBean.setAccessToken(null);
+        referenceBean.setInvokeCallback(null);
+        referenceBean.setInvokerFactory(null);
+        echoService = (EchoService) referenceBean.getObject();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        providerFactory.stop();
+        XxlRpcInvokerFactory.getInstance().stop();
+    }
+
+    @Benchmark
+    public String echo() {
+        return echoService.echo(MESSAGE);
+    }
+
+}
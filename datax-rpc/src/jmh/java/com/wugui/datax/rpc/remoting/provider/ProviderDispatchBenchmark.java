@@ -0,0 +1,77 @@
+package com.wugui.datax.rpc.remoting.provider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * provider dispatch cost per call: getMethod + setAccessible + Method.invoke, as invokeService did,
+ * vs Method.invoke on a cached Method vs the pre-bound MethodHandle of XxlRpcServiceMethod
+ *
+ * mvn -P benchmark -pl datax-rpc test-compile exec:exec -Dbenchmark=ProviderDispatchBenchmark
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ProviderDispatchBenchmark {
+
+    public static class DemoService {
+        public String run(String jobParam, Integer logId) {
+            return jobParam;
+        }
+    }
+
+    private static final String METHOD_NAME = "run";
+    private static final Class<?>[] PARAMETER_TYPES = new Class<?>[]{String.class, Integer.class};
+
+    private final Object[] parameters = new Object[]{"{\"job\":{}}", 1};
+
+    private DemoService serviceBean;
+    private Method method;
+    private XxlRpcServiceMethod serviceMethod;
+
+    @Setup
+    public void setUp() throws Exception {
+        serviceBean = new DemoService();
+        method = DemoService.class.getMethod(METHOD_NAME, PARAMETER_TYPES);
+        method.setAccessible(true);
+        serviceMethod = new XxlRpcServiceMethod(serviceBean, method);
+    }
+
+    /**
+     * invokeService as it was
+     */
+    @Benchmark
+    public Object getMethodPerCall() throws Exception {
+        Method method = serviceBean.getClass().getMethod(METHOD_NAME, PARAMETER_TYPES);
+        method.setAccessible(true);
+        return method.invoke(serviceBean, parameters);
+    }
+
+    @Benchmark
+    public Object cachedMethod() throws Exception {
+        return method.invoke(serviceBean, parameters);
+    }
+
+    @Benchmark
+    public Object serviceMethod() throws Throwable {
+        if (!serviceMethod.match(PARAMETER_TYPES)) {
+            throw new IllegalStateException();
+        }
+        return serviceMethod.invoke(parameters);
+    }
+
+}
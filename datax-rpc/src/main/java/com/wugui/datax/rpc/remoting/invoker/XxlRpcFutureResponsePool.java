@@ -0,0 +1,87 @@
+package com.wugui.datax.rpc.remoting.invoker;
+
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcFutureResponse;
+import io.netty.util.collection.LongObjectHashMap;
+
+/**
+ * future-response pool, keyed by the long request id
+ *
+ *      a、request id is "node prefix + counter" in hex, the string form stays on the wire for old peers;
+ *      b、primitive long keys in striped open-addressing maps, no String hash / equals and no boxed entry per request;
+ *      c、ids are sequential, so the low bits spread them evenly over the segments.
+ */
+public class XxlRpcFutureResponsePool {
+
+    private static final int SEGMENTS = 16;
+
+    private final LongObjectHashMap<XxlRpcFutureResponse>[] segments;
+
+    @SuppressWarnings("unchecked")
+    public XxlRpcFutureResponsePool() {
+        segments = new LongObjectHashMap[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new LongObjectHashMap<XxlRpcFutureResponse>();
+        }
+    }
+
+    private LongObjectHashMap<XxlRpcFutureResponse> segment(long requestId) {
+        return segments[(int) requestId & (SEGMENTS - 1)];
+    }
+
+    public void put(long requestId, XxlRpcFutureResponse futureResponse) {
+        LongObjectHashMap<XxlRpcFutureResponse> segment = segment(requestId);
+        synchronized (segment) {
+            segment.put(requestId, futureResponse);
+        }
+    }
+
+    public XxlRpcFutureResponse get(long requestId) {
+        LongObjectHashMap<XxlRpcFutureResponse> segment = segment(requestId);
+        synchronized (segment) {
+            return segment.get(requestId);
+        }
+    }
+
+    public XxlRpcFutureResponse remove(long requestId) {
+        LongObjectHashMap<XxlRpcFutureResponse> segment = segment(requestId);
+        synchronized (segment) {
+            return segment.remove(requestId);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (LongObjectHashMap<XxlRpcFutureResponse> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+
+    // ---------------------- request id ----------------------
+
+    public static String formatRequestId(long requestId) {
+        return Long.toHexString(requestId);
+    }
+
+    /**
+     * parse a hex request id, -1 if not a valid id (beat, or made by an old peer), no exception thrown
+     */
+    public static long parseRequestId(String requestId) {
+        if (requestId == null || requestId.length() == 0 || requestId.length() > 16) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < requestId.length(); i++) {
+            int digit = Character.digit(requestId.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value < 0 ? -1 : value;
+    }
+
+}
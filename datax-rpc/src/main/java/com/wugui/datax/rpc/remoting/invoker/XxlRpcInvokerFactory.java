@@ -6,6 +6,8 @@ import com.wugui.datax.rpc.remoting.net.params.BaseCallback;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcFutureResponse;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
 import com.wugui.datax.rpc.util.XxlRpcException;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,6 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * xxl-rpc invoker factory, init service-registry
@@ -73,6 +77,9 @@ public class XxlRpcInvokerFactory {
             }
         }
 
+        // stop timeout wheel
+        stopTimeoutWheel();
+
         // stop CallbackThreadPool
         stopCallbackThreadPool();
     }
@@ -100,25 +107,79 @@ public class XxlRpcInvokerFactory {
 
     // XxlRpcFutureResponseFactory
 
-    private ConcurrentMap<String, XxlRpcFutureResponse> futureResponsePool = new ConcurrentHashMap<String, XxlRpcFutureResponse>();
+    /**
+     * request id: 15 bit random node prefix + 48 bit counter, positive, hex on the wire (at most 16 chars)
+     */
+    private final long requestIdPrefix = ((long) ThreadLocalRandom.current().nextInt(1 << 15)) << 48;
+    private final AtomicLong requestIdCounter = new AtomicLong();
+
+    private final XxlRpcFutureResponsePool futureResponsePool = new XxlRpcFutureResponsePool();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    public String nextRequestId() {
+        return XxlRpcFutureResponsePool.formatRequestId(requestIdPrefix | (requestIdCounter.incrementAndGet() & 0xFFFFFFFFFFFFL));
+    }
 
     public void setInvokerFuture(String requestId, XxlRpcFutureResponse futureResponse) {
-        futureResponsePool.put(requestId, futureResponse);
+        final long id = XxlRpcFutureResponsePool.parseRequestId(requestId);
+        if (id < 0) {
+            throw new XxlRpcException("xxl-rpc request id invalid, requestId:" + requestId);
+        }
+        futureResponsePool.put(id, futureResponse);
+
+        // future and callback, nobody waits on them, failed by the timeout wheel
+        if (futureResponse.getTimeoutMillis() > 0) {
+            futureResponse.setTimeout(timeoutWheel().newTimeout(timeout -> expireInvokerFuture(id),
+                    futureResponse.getTimeoutMillis(), TimeUnit.MILLISECONDS));
+        }
     }
 
     public void removeInvokerFuture(String requestId) {
-        futureResponsePool.remove(requestId);
+        long id = XxlRpcFutureResponsePool.parseRequestId(requestId);
+        if (id < 0) {
+            return;
+        }
+        XxlRpcFutureResponse futureResponse = futureResponsePool.remove(id);
+        if (futureResponse != null) {
+            futureResponse.cancelTimeout();
+        }
+    }
+
+    public boolean hasInvokerFuture(String requestId) {
+        long id = XxlRpcFutureResponsePool.parseRequestId(requestId);
+        return id >= 0 && futureResponsePool.get(id) != null;
     }
 
     public void notifyInvokerFuture(String requestId, final XxlRpcResponse xxlRpcResponse) {
+        long id = XxlRpcFutureResponsePool.parseRequestId(requestId);
+        if (id < 0) {
+            return;
+        }
+
+        // remove first, only one of response / timeout / close notifies the future
+        final XxlRpcFutureResponse futureResponse = futureResponsePool.remove(id);
+        if (futureResponse == null) {
+            return;
+        }
+        futureResponse.cancelTimeout();
+
+        notifyFuture(futureResponse, xxlRpcResponse);
+    }
 
-        // get
-        final XxlRpcFutureResponse futureResponse = futureResponsePool.get(requestId);
+    private void expireInvokerFuture(long id) {
+        XxlRpcFutureResponse futureResponse = futureResponsePool.remove(id);
         if (futureResponse == null) {
             return;
         }
+        timeoutCount.increment();
+
+        XxlRpcResponse xxlRpcResponse = new XxlRpcResponse();
+        xxlRpcResponse.setRequestId(futureResponse.getRequest().getRequestId());
+        xxlRpcResponse.setErrorMsg("xxl-rpc, request timeout at:" + System.currentTimeMillis() + ", request:" + futureResponse.getRequest().toString());
+        notifyFuture(futureResponse, xxlRpcResponse);
+    }
 
-        // notify
+    private void notifyFuture(final XxlRpcFutureResponse futureResponse, final XxlRpcResponse xxlRpcResponse) {
         if (futureResponse.getInvokeCallback() != null) {
 
             // callback type
@@ -138,10 +199,43 @@ public class XxlRpcInvokerFactory {
             // other nomal type
             futureResponse.setResponse(xxlRpcResponse);
         }
+    }
+
+    public int getPendingCount() {
+        return futureResponsePool.size();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+
+    // ---------------------- timeout wheel ----------------------
 
-        // do remove
-        futureResponsePool.remove(requestId);
+    private volatile HashedWheelTimer timeoutWheel = null;
 
+    private HashedWheelTimer timeoutWheel() {
+        if (timeoutWheel == null) {
+            synchronized (this) {
+                if (timeoutWheel == null) {
+                    timeoutWheel = new HashedWheelTimer(
+                            new DefaultThreadFactory("xxl-rpc, XxlRpcInvokerFactory-timeoutWheel", true),
+                            100,
+                            TimeUnit.MILLISECONDS,
+                            512);
+                }
+            }
+        }
+        return timeoutWheel;
+    }
+
+    public void stopTimeoutWheel() {
+        synchronized (this) {
+            if (timeoutWheel != null) {
+                timeoutWheel.stop();
+                timeoutWheel = null;
+            }
+        }
     }
 
 
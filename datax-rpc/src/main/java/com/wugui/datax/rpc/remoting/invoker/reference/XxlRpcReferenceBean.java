@@ -23,7 +23,6 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.TreeSet;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -231,7 +230,7 @@ public class XxlRpcReferenceBean {
 
                     // request
                     XxlRpcRequest xxlRpcRequest = new XxlRpcRequest();
-                    xxlRpcRequest.setRequestId(UUID.randomUUID().toString());
+                    xxlRpcRequest.setRequestId(invokerFactory.nextRequestId());
                     xxlRpcRequest.setCreateMillisTime(System.currentTimeMillis());
                     xxlRpcRequest.setAccessToken(accessToken);
                     xxlRpcRequest.setClassName(className);
@@ -264,7 +263,7 @@ public class XxlRpcReferenceBean {
                         }
                     } else if (CallType.FUTURE == callType) {
                         // future-response set
-                        XxlRpcFutureResponse futureResponse = new XxlRpcFutureResponse(invokerFactory, xxlRpcRequest, null);
+                        XxlRpcFutureResponse futureResponse = new XxlRpcFutureResponse(invokerFactory, xxlRpcRequest, null, timeout);
                         try {
                             // invoke future set
                             XxlRpcInvokeFuture invokeFuture = new XxlRpcInvokeFuture(futureResponse);
@@ -296,7 +295,7 @@ public class XxlRpcReferenceBean {
                         }
 
                         // future-response set
-                        XxlRpcFutureResponse futureResponse = new XxlRpcFutureResponse(invokerFactory, xxlRpcRequest, finalInvokeCallback);
+                        XxlRpcFutureResponse futureResponse = new XxlRpcFutureResponse(invokerFactory, xxlRpcRequest, finalInvokeCallback, timeout);
                         try {
                             clientInstance.asyncSend(finalAddress, xxlRpcRequest);
                         } catch (Exception e) {
@@ -0,0 +1,229 @@
+package com.wugui.datax.rpc.remoting.invoker.route;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * route usage by key (job id / service key), for lfu and lru routing, shared by admin and rpc
+ *
+ *      a、per key, one score per address slot in a primitive array, the lowest score is routed, updated under the key lock;
+ *      b、lfu score is a frequency halved every half-life, no daily clear; lru score is the sequence of the last use;
+ *      c、bounded key count, when full the least recently routed quarter of keys is evicted.
+ */
+public class XxlRpcRouteUsage<K> {
+
+    public enum Policy {
+        /**
+         * least frequently used
+         */
+        LFU,
+        /**
+         * least recently used
+         */
+        LRU
+    }
+
+    private static class Usage {
+        private String[] addresses;
+        private double[] scores;
+        private long sequence;
+        private long decayTime;
+        private volatile long accessTime;
+    }
+
+    private final Policy policy;
+    private final int maxSize;
+    private final long halfLife;
+
+    private final ConcurrentMap<K, Usage> usages = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * @param maxSize   max key count
+     * @param halfLife  lfu frequency half-life, ms
+     */
+    public XxlRpcRouteUsage(Policy policy, int maxSize, long halfLife) {
+        this.policy = policy;
+        this.maxSize = maxSize;
+        this.halfLife = halfLife;
+    }
+
+    public int size() {
+        return usages.size();
+    }
+
+    /**
+     * address of the lowest score, its score updated
+     */
+    public String route(K key, Collection<String> addresses) {
+        if (addresses == null || addresses.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+
+        Usage usage = usages.get(key);
+        if (usage == null) {
+            usage = new Usage();
+            usage.accessTime = now;
+            Usage exist = usages.putIfAbsent(key, usage);
+            if (exist != null) {
+                usage = exist;
+            } else {
+                evictIfFull();
+            }
+        }
+        usage.accessTime = now;
+
+        synchronized (usage) {
+            align(usage, addresses, now);
+
+            double[] scores = usage.scores;
+            if (policy == Policy.LFU) {
+                decay(usage, now);
+            }
+
+            int min = 0;
+            for (int i = 1; i < scores.length; i++) {
+                if (scores[i] < scores[min]) {
+                    min = i;
+                }
+            }
+
+            if (policy == Policy.LFU) {
+                scores[min] += 1;
+            } else {
+                scores[min] = ++usage.sequence;
+            }
+            return usage.addresses[min];
+        }
+    }
+
+    /**
+     * address slots follow the address list, scores of remained addresses are kept;
+     * lfu: a new key starts at random scores to spread the first burst, a new address at the lowest score;
+     * lru: a new key starts at a random order of use, so keys do not all go to the first address first, a new address is the least recent
+     */
+    private void align(Usage usage, Collection<String> addresses, long now) {
+        if (matches(usage.addresses, addresses)) {
+            return;
+        }
+
+        String[] newAddresses = addresses.toArray(new String[0]);
+        double[] newScores = new double[newAddresses.length];
+        boolean newKey = usage.addresses == null;
+
+        double lowest = 0;
+        if (!newKey && policy == Policy.LFU) {
+            decay(usage, now);
+            lowest = Double.MAX_VALUE;
+            for (double score : usage.scores) {
+                lowest = Math.min(lowest, score);
+            }
+        }
+
+        for (int i = 0; i < newAddresses.length; i++) {
+            int slot = newKey ? -1 : indexOf(usage.addresses, newAddresses[i]);
+            if (slot >= 0) {
+                newScores[i] = usage.scores[slot];
+            } else if (policy == Policy.LFU) {
+                newScores[i] = newKey ? ThreadLocalRandom.current().nextInt(newAddresses.length) : lowest;
+            }
+        }
+
+        if (newKey && policy == Policy.LRU) {
+            // shuffled sequences 1..n, as if each address was used once
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < newScores.length; i++) {
+                int j = random.nextInt(i + 1);
+                newScores[i] = newScores[j];
+                newScores[j] = i + 1;
+            }
+            usage.sequence = newScores.length;
+        }
+
+        usage.addresses = newAddresses;
+        usage.scores = newScores;
+        if (newKey) {
+            usage.decayTime = now;
+        }
+    }
+
+    private void decay(Usage usage, long now) {
+        long elapsed = now - usage.decayTime;
+        if (elapsed <= 0) {
+            return;
+        }
+        double factor = Math.pow(0.5, (double) elapsed / halfLife);
+        double[] scores = usage.scores;
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] *= factor;
+        }
+        usage.decayTime = now;
+    }
+
+    private static boolean matches(String[] slots, Collection<String> addresses) {
+        if (slots == null || slots.length != addresses.size()) {
+            return false;
+        }
+        int i = 0;
+        for (String address : addresses) {
+            if (!slots[i++].equals(address)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(String[] slots, String address) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].equals(address)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * over the max key count, evict keys routed least recently, by one thread
+     */
+    private void evictIfFull() {
+        if (usages.size() <= maxSize || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long[] accessTimes = new long[usages.size()];
+            int n = 0;
+            for (Usage usage : usages.values()) {
+                if (n == accessTimes.length) {
+                    break;
+                }
+                accessTimes[n++] = usage.accessTime;
+            }
+            Arrays.sort(accessTimes, 0, n);
+
+            int keep = maxSize * 3 / 4;
+            long evictBefore = accessTimes[Math.min(n - 1, n - keep)];
+            for (Map.Entry<K, Usage> item : usages.entrySet()) {
+                if (item.getValue().accessTime < evictBefore) {
+                    usages.remove(item.getKey(), item.getValue());
+                }
+            }
+
+            // keys routed in the same ms, still over
+            Iterator<K> keys = usages.keySet().iterator();
+            while (usages.size() > keep && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+}
@@ -72,6 +72,7 @@ public abstract class ConnectClient {
                                 }
                                 connectClientMap.clear();
                             }
+                            NettyClientEventLoop.shutdown();
                         }
                     });
                 }
@@ -0,0 +1,57 @@
+package com.wugui.datax.rpc.remoting.net.common;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * process-wide netty client event loop, shared by all connect clients
+ *
+ *      a、epoll when the native transport is available, nio otherwise;
+ *      b、fixed thread count, not growing with the number of server addresses;
+ *      c、shutdown by the invoker stop callback, created again on next use.
+ */
+public class NettyClientEventLoop {
+    private static Logger logger = LoggerFactory.getLogger(NettyClientEventLoop.class);
+
+    public static int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static EventLoopGroup group;
+    private static Class<? extends Channel> channelClass;
+
+    public static synchronized EventLoopGroup group() {
+        if (group == null || group.isShuttingDown()) {
+            DefaultThreadFactory threadFactory = new DefaultThreadFactory("xxl-rpc, netty client", true);
+            if (Epoll.isAvailable()) {
+                group = new EpollEventLoopGroup(THREADS, threadFactory);
+                channelClass = EpollSocketChannel.class;
+            } else {
+                group = new NioEventLoopGroup(THREADS, threadFactory);
+                channelClass = NioSocketChannel.class;
+            }
+            logger.info(">>>>>>>>>>> xxl-rpc netty client event loop start, transport:{}, threads:{}", channelClass.getSimpleName(), THREADS);
+        }
+        return group;
+    }
+
+    public static synchronized Class<? extends Channel> channelClass() {
+        group();
+        return channelClass;
+    }
+
+    public static synchronized void shutdown() {
+        if (group != null && !group.isShuttingDown()) {
+            group.shutdownGracefully();
+            logger.info(">>>>>>>>>>> xxl-rpc netty client event loop shutdown.");
+        }
+        group = null;
+    }
+
+}
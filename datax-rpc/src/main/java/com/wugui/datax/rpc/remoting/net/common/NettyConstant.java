@@ -3,4 +3,37 @@ package com.wugui.datax.rpc.remoting.net.common;
 public class NettyConstant {
 
     public static int MAX_LENGTH = 20 * 1024 * 1024;
+
+    /**
+     * netty frame: magic(2) + length(4) + body, body length limited by MAX_LENGTH
+     */
+    public static final short FRAME_MAGIC = (short) 0xDA7A;
+    public static final int FRAME_HEADER_LENGTH = 6;
+
+    /**
+     * server stop, max time waiting for in-flight requests
+     */
+    public static int SERVER_DRAIN_TIMEOUT = 10 * 1000;
+
+    /**
+     * client channels per server address
+     */
+    public static int CLIENT_POOL_SIZE = 4;
+
+    /**
+     * client in-flight requests per channel
+     */
+    public static int CLIENT_MAX_PENDING = 128;
+
+    /**
+     * server handler pool queue size, reads are paused at the high water mark and resumed at the low water mark
+     */
+    public static int SERVER_QUEUE_SIZE = 1000;
+    public static int SERVER_QUEUE_HIGH_WATER = 900;
+    public static int SERVER_QUEUE_LOW_WATER = 500;
+
+    /**
+     * server in-flight requests per connection, more are answered busy
+     */
+    public static int SERVER_CONNECTION_MAX_IN_FLIGHT = 256;
 }
@@ -0,0 +1,164 @@
+package com.wugui.datax.rpc.remoting.net.common;
+
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
+import com.wugui.datax.rpc.util.ThreadPoolUtil;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * server handler pool, with admission control
+ *
+ *      a、in-flight requests per connection are limited, more are answered busy at once;
+ *      b、queue above the high water mark, the connection stops reading (autoRead off), resumed below the low water mark;
+ *      c、pool full, answered busy at once, the event loop never throws;
+ *      d、metrics: queue depth, accepted / busy / rejected count, queue wait time.
+ */
+public class ServerHandlerPool {
+
+    private static final AttributeKey<AtomicInteger> IN_FLIGHT = AttributeKey.valueOf("xxl-rpc.inFlight");
+
+    private final ThreadPoolExecutor executor;
+    private final Set<Channel> pausedChannels = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder busy = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder paused = new LongAdder();
+    private final LongAdder waitMicros = new LongAdder();
+    private final AtomicLong maxWaitMicros = new AtomicLong();
+
+    public ServerHandlerPool(String serverType, int corePoolSize, int maxPoolSize) {
+        this.executor = ThreadPoolUtil.makeServerThreadPool(serverType, corePoolSize, maxPoolSize, NettyConstant.SERVER_QUEUE_SIZE);
+    }
+
+    /**
+     * run the task for a request of the channel, called on the event loop
+     *
+     * @return false if not accepted, the caller answers with busyMsg()
+     */
+    public boolean execute(final Channel channel, final Runnable task) {
+        final AtomicInteger inFlight = inFlight(channel);
+        if (inFlight.get() >= NettyConstant.SERVER_CONNECTION_MAX_IN_FLIGHT) {
+            busy.increment();
+            return false;
+        }
+
+        inFlight.incrementAndGet();
+        final long submitTime = System.nanoTime();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    recordWait((System.nanoTime() - submitTime) / 1000);
+                    try {
+                        task.run();
+                    } finally {
+                        inFlight.decrementAndGet();
+                        resume();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        accepted.increment();
+
+        // saturated, stop reading this connection until the queue drains
+        if (executor.getQueue().size() >= NettyConstant.SERVER_QUEUE_HIGH_WATER) {
+            pause(channel);
+        }
+        return true;
+    }
+
+    private AtomicInteger inFlight(Channel channel) {
+        AtomicInteger inFlight = channel.attr(IN_FLIGHT).get();
+        if (inFlight == null) {
+            inFlight = new AtomicInteger();
+            AtomicInteger old = channel.attr(IN_FLIGHT).setIfAbsent(inFlight);
+            if (old != null) {
+                inFlight = old;
+            }
+        }
+        return inFlight;
+    }
+
+    private void pause(Channel channel) {
+        if (pausedChannels.add(channel)) {
+            channel.config().setAutoRead(false);
+            paused.increment();
+        }
+        // drained meanwhile, nobody left to resume it
+        resume();
+    }
+
+    private void resume() {
+        if (pausedChannels.isEmpty() || executor.getQueue().size() > NettyConstant.SERVER_QUEUE_LOW_WATER) {
+            return;
+        }
+        for (Channel channel : pausedChannels) {
+            if (pausedChannels.remove(channel)) {
+                channel.config().setAutoRead(true);
+            }
+        }
+    }
+
+    private void recordWait(long costMicros) {
+        waitMicros.add(costMicros);
+        long max = maxWaitMicros.get();
+        while (costMicros > max && !maxWaitMicros.compareAndSet(max, costMicros)) {
+            max = maxWaitMicros.get();
+        }
+    }
+
+    /**
+     * error msg of a request not accepted, busy or server stopping
+     */
+    public String busyMsg() {
+        if (executor.isShutdown()) {
+            return "xxl-rpc server is stopping.";
+        }
+        return XxlRpcResponse.SERVER_BUSY + ", queue:" + executor.getQueue().size() + ", active:" + executor.getActiveCount();
+    }
+
+    public Map<String, Object> metrics() {
+        long acceptedCount = accepted.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", executor.getPoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queue", executor.getQueue().size());
+        metrics.put("accepted", acceptedCount);
+        metrics.put("busy", busy.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("paused", paused.sum());
+        metrics.put("pausedConnections", pausedChannels.size());
+        metrics.put("avgWaitUs", acceptedCount > 0 ? waitMicros.sum() / acceptedCount : 0);
+        metrics.put("maxWaitUs", maxWaitMicros.get());
+        return metrics;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+}
@@ -5,6 +5,7 @@ import com.wugui.datax.rpc.remoting.net.params.Beat;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,8 +30,21 @@ public class NettyClientHandler extends SimpleChannelInboundHandler<XxlRpcRespon
 	@Override
 	protected void channelRead0(ChannelHandlerContext ctx, XxlRpcResponse xxlRpcResponse) throws Exception {
 
+		// filter beat
+		if (Beat.BEAT_ID.equalsIgnoreCase(xxlRpcResponse.getRequestId())) {
+			logger.debug(">>>>>>>>>>> xxl-rpc netty client read beat-pong.");
+			return;
+		}
+
 		// notify response
-		xxlRpcInvokerFactory.notifyInvokerFuture(xxlRpcResponse.getRequestId(), xxlRpcResponse);
+		nettyConnectClient.onResponse(xxlRpcResponse);
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		// fail pending requests, not left to their timeout
+		nettyConnectClient.onClosed();
+		super.channelInactive(ctx);
 	}
 
 	@Override
@@ -42,10 +56,13 @@ public class NettyClientHandler extends SimpleChannelInboundHandler<XxlRpcRespon
 	@Override
 	public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
 		if (evt instanceof IdleStateEvent){
-			/*ctx.channel().close();      // close idle channel
-			logger.debug(">>>>>>>>>>> xxl-rpc netty client close an idle channel.");*/
+			if (((IdleStateEvent) evt).state() == IdleState.READER_IDLE) {
+				ctx.channel().close();      // no pong in 3N, close
+				logger.debug(">>>>>>>>>>> xxl-rpc netty client close a dead channel.");
+				return;
+			}
 
-			nettyConnectClient.send(Beat.BEAT_PING);	// beat N, close if fail(may throw error)
+			nettyConnectClient.sendBeat();	// beat N, close if fail
 			logger.debug(">>>>>>>>>>> xxl-rpc netty client send beat-ping.");
 
 		} else {
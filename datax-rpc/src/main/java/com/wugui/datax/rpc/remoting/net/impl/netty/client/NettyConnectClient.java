@@ -2,6 +2,8 @@ package com.wugui.datax.rpc.remoting.net.impl.netty.client;
 
 import com.wugui.datax.rpc.remoting.invoker.XxlRpcInvokerFactory;
 import com.wugui.datax.rpc.remoting.net.common.ConnectClient;
+import com.wugui.datax.rpc.remoting.net.common.NettyClientEventLoop;
+import com.wugui.datax.rpc.remoting.net.common.NettyConstant;
 import com.wugui.datax.rpc.remoting.net.impl.netty.codec.NettyDecoder;
 import com.wugui.datax.rpc.remoting.net.impl.netty.codec.NettyEncoder;
 import com.wugui.datax.rpc.remoting.net.params.Beat;
@@ -9,48 +11,60 @@ import com.wugui.datax.rpc.remoting.net.params.XxlRpcRequest;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
 import com.wugui.datax.rpc.serialize.Serializer;
 import com.wugui.datax.rpc.util.IpUtil;
+import com.wugui.datax.rpc.util.ThrowableUtil;
+import com.wugui.datax.rpc.util.XxlRpcException;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.timeout.IdleStateHandler;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
- * netty pooled client
+ * netty pooled client, one multiplexed channel per address
+ *
+ *      a、requests are pipelined on the channel and matched by request id;
+ *      b、send does not wait for the write, a failed write fails the invoker future at once;
+ *      c、pending requests are failed at once when the channel closes, not left to their timeout;
+ *      d、beat every N idle seconds, the server answers a pong, close if nothing read for 3N.
  *
  * @author xuxueli
  */
 public class NettyConnectClient extends ConnectClient {
 
 
-    private EventLoopGroup group;
     private Channel channel;
 
+    private XxlRpcInvokerFactory xxlRpcInvokerFactory;
+    private String address;
+    private final Set<String> pendingRequests = ConcurrentHashMap.newKeySet();
+
 
     @Override
     public void init(String address, final Serializer serializer, final XxlRpcInvokerFactory xxlRpcInvokerFactory) throws Exception {
         final NettyConnectClient thisClient = this;
 
+        this.address = address;
+        this.xxlRpcInvokerFactory = xxlRpcInvokerFactory;
+
         Object[] array = IpUtil.parseIpPort(address);
         String host = (String) array[0];
         int port = (int) array[1];
 
 
-        this.group = new NioEventLoopGroup();
         Bootstrap bootstrap = new Bootstrap();
-        bootstrap.group(group)
-                .channel(NioSocketChannel.class)
-                .handler(new ChannelInitializer<SocketChannel>() {
+        bootstrap.group(NettyClientEventLoop.group())
+                .channel(NettyClientEventLoop.channelClass())
+                .handler(new ChannelInitializer<Channel>() {
                     @Override
-                    public void initChannel(SocketChannel channel) throws Exception {
+                    public void initChannel(Channel channel) throws Exception {
                         channel.pipeline()
-                                .addLast(new IdleStateHandler(0,0, Beat.BEAT_INTERVAL, TimeUnit.SECONDS))    // beat N, close if fail
+                                .addLast(new IdleStateHandler(Beat.BEAT_INTERVAL * 3, 0, Beat.BEAT_INTERVAL, TimeUnit.SECONDS))    // beat N, close if no pong in 3N
                                 .addLast(new NettyEncoder(XxlRpcRequest.class, serializer))
                                 .addLast(new NettyDecoder(XxlRpcResponse.class, serializer))
                                 .addLast(new NettyClientHandler(xxlRpcInvokerFactory, thisClient));
@@ -84,15 +98,64 @@ public class NettyConnectClient extends ConnectClient {
         if (this.channel != null && this.channel.isActive()) {
             this.channel.close();        // if this.channel.isOpen()
         }
-        if (this.group != null && !this.group.isShutdown()) {
-            this.group.shutdownGracefully();
-        }
         logger.debug(">>>>>>>>>>> xxl-rpc netty client close.");
     }
 
 
     @Override
-    public void send(XxlRpcRequest xxlRpcRequest) throws Exception {
-        this.channel.writeAndFlush(xxlRpcRequest).sync();
+    public void send(final XxlRpcRequest xxlRpcRequest) throws Exception {
+        if (pendingRequests.size() >= NettyConstant.CLIENT_MAX_PENDING) {
+            // timeout or oneway requests, no future waiting for them
+            pendingRequests.removeIf(requestId -> !xxlRpcInvokerFactory.hasInvokerFuture(requestId));
+        }
+        if (pendingRequests.size() >= NettyConstant.CLIENT_MAX_PENDING) {
+            throw new XxlRpcException("xxl-rpc netty client busy, pending limit reached, address:" + address);
+        }
+
+        pendingRequests.add(xxlRpcRequest.getRequestId());
+        this.channel.writeAndFlush(xxlRpcRequest).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    logger.error(">>>>>>>>>>> xxl-rpc netty client write fail, address:{}, requestId:{}", address, xxlRpcRequest.getRequestId(), future.cause());
+                    future.channel().close();
+                    fail(xxlRpcRequest.getRequestId(), future.cause() != null ? ThrowableUtil.toString(future.cause()) : "xxl-rpc netty client write fail.");
+                }
+            }
+        });
+    }
+
+    /**
+     * beat, not counted as pending, close if fail
+     */
+    void sendBeat() {
+        this.channel.writeAndFlush(Beat.BEAT_PING).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+    }
+
+    /**
+     * response arrived, notify the invoker future of the request id
+     */
+    void onResponse(XxlRpcResponse xxlRpcResponse) {
+        pendingRequests.remove(xxlRpcResponse.getRequestId());
+        xxlRpcInvokerFactory.notifyInvokerFuture(xxlRpcResponse.getRequestId(), xxlRpcResponse);
+    }
+
+    /**
+     * channel closed, fail all pending requests
+     */
+    void onClosed() {
+        for (String requestId : pendingRequests) {
+            fail(requestId, "xxl-rpc netty client channel closed, address:" + address);
+        }
+    }
+
+    private void fail(String requestId, String errorMsg) {
+        if (!pendingRequests.remove(requestId)) {
+            return;
+        }
+        XxlRpcResponse xxlRpcResponse = new XxlRpcResponse();
+        xxlRpcResponse.setRequestId(requestId);
+        xxlRpcResponse.setErrorMsg(errorMsg);
+        xxlRpcInvokerFactory.notifyInvokerFuture(requestId, xxlRpcResponse);
     }
 }
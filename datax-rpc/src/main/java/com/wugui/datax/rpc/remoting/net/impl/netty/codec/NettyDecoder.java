@@ -1,14 +1,20 @@
 package com.wugui.datax.rpc.remoting.net.impl.netty.codec;
 
+import com.wugui.datax.rpc.remoting.net.common.NettyConstant;
 import com.wugui.datax.rpc.serialize.Serializer;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
 
 import java.util.List;
 
 /**
- * decoder
+ * decoder, frame = magic(2) + length(4) + body
+ *
+ * a bad magic or a length out of [0, MAX_LENGTH] closes the channel, before the body is buffered;
+ * the body is deserialized in place from the cumulation buffer, no copy to a heap array
  *
  * @author xuxueli 2015-10-29 19:02:36
  */
@@ -24,20 +30,27 @@ public class NettyDecoder extends ByteToMessageDecoder {
 
     @Override
     public final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-        if (in.readableBytes() < 4) {
+        if (in.readableBytes() < NettyConstant.FRAME_HEADER_LENGTH) {
             return;
         }
-        in.markReaderIndex();
-        int dataLength = in.readInt();
-        if (dataLength < 0) {
+        int readerIndex = in.readerIndex();
+        short magic = in.getShort(readerIndex);
+        if (magic != NettyConstant.FRAME_MAGIC) {
+            in.skipBytes(in.readableBytes());
+            ctx.close();
+            throw new CorruptedFrameException("xxl-rpc netty frame magic invalid: " + magic);
+        }
+        int dataLength = in.getInt(readerIndex + 2);
+        if (dataLength < 0 || dataLength > NettyConstant.MAX_LENGTH) {
+            in.skipBytes(in.readableBytes());
             ctx.close();
+            throw new TooLongFrameException("xxl-rpc netty frame length invalid: " + dataLength + ", max:" + NettyConstant.MAX_LENGTH);
         }
-        if (in.readableBytes() < dataLength) {
-            in.resetReaderIndex();
+        if (in.readableBytes() < NettyConstant.FRAME_HEADER_LENGTH + dataLength) {
             return;	// fix 1024k buffer splice limix
         }
-        byte[] data = new byte[dataLength];
-        in.readBytes(data);
+        ByteBuf data = in.slice(readerIndex + NettyConstant.FRAME_HEADER_LENGTH, dataLength);
+        in.skipBytes(NettyConstant.FRAME_HEADER_LENGTH + dataLength);
 
         Object obj = serializer.deserialize(data, genericClass);
         out.add(obj);
@@ -1,12 +1,16 @@
 package com.wugui.datax.rpc.remoting.net.impl.netty.codec;
 
+import com.wugui.datax.rpc.remoting.net.common.NettyConstant;
 import com.wugui.datax.rpc.serialize.Serializer;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
 
 /**
- * encoder
+ * encoder, frame = magic(2) + length(4) + body
+ *
+ * the body is serialized straight into the frame buffer from ctx.alloc(), the length is set after it
  *
  * @author xuxueli 2015-10-29 19:43:00
  */
@@ -23,9 +27,16 @@ public class NettyEncoder extends MessageToByteEncoder<Object> {
     @Override
     public void encode(ChannelHandlerContext ctx, Object in, ByteBuf out) throws Exception {
         if (genericClass.isInstance(in)) {
-            byte[] data = serializer.serialize(in);
-            out.writeInt(data.length);
-            out.writeBytes(data);
+            int frameIndex = out.writerIndex();
+            out.writeShort(NettyConstant.FRAME_MAGIC);
+            out.writeInt(0);
+            serializer.serialize(in, out);
+
+            int dataLength = out.writerIndex() - frameIndex - NettyConstant.FRAME_HEADER_LENGTH;
+            if (dataLength > NettyConstant.MAX_LENGTH) {
+                throw new EncoderException("xxl-rpc netty frame too long, length:" + dataLength + ", max:" + NettyConstant.MAX_LENGTH);
+            }
+            out.setInt(frameIndex + 2, dataLength);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.wugui.datax.rpc.remoting.net.impl.netty.server;
+
+import com.wugui.datax.rpc.remoting.net.common.NettyConstant;
+import com.wugui.datax.rpc.remoting.net.common.ServerHandlerPool;
+import com.wugui.datax.rpc.remoting.net.impl.netty.codec.NettyDecoder;
+import com.wugui.datax.rpc.remoting.net.impl.netty.codec.NettyEncoder;
+import com.wugui.datax.rpc.remoting.net.impl.netty_http.server.NettyHttpServerHandler;
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcRequest;
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
+import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+
+import java.util.List;
+
+/**
+ * netty server protocol detector, one port for both transports
+ *
+ *      a、frame magic first, netty binary pipeline;
+ *      b、otherwise netty_http pipeline, for clients still on netty_http.
+ *
+ * the detector removes itself, the bytes already read go to the chosen pipeline.
+ */
+public class NettyProtocolDetector extends ByteToMessageDecoder {
+
+    private XxlRpcProviderFactory xxlRpcProviderFactory;
+    private ServerHandlerPool serverHandlerPool;
+
+    public NettyProtocolDetector(final XxlRpcProviderFactory xxlRpcProviderFactory, final ServerHandlerPool serverHandlerPool) {
+        this.xxlRpcProviderFactory = xxlRpcProviderFactory;
+        this.serverHandlerPool = serverHandlerPool;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (in.readableBytes() < 2) {
+            return;
+        }
+
+        ChannelPipeline pipeline = ctx.pipeline();
+        if (in.getShort(in.readerIndex()) == NettyConstant.FRAME_MAGIC) {
+            pipeline.addLast(new NettyDecoder(XxlRpcRequest.class, xxlRpcProviderFactory.getSerializerInstance()))
+                    .addLast(new NettyEncoder(XxlRpcResponse.class, xxlRpcProviderFactory.getSerializerInstance()))
+                    .addLast(new NettyServerHandler(xxlRpcProviderFactory, serverHandlerPool));
+        } else {
+            pipeline.addLast(new HttpServerCodec())
+                    .addLast(new HttpObjectAggregator(NettyConstant.MAX_LENGTH))  // merge request & reponse to FULL
+                    .addLast(new NettyHttpServerHandler(xxlRpcProviderFactory, serverHandlerPool));
+        }
+        pipeline.remove(this);
+    }
+
+}
@@ -1,14 +1,12 @@
 package com.wugui.datax.rpc.remoting.net.impl.netty.server;
 
-import com.wugui.datax.rpc.remoting.net.impl.netty.codec.NettyDecoder;
-import com.wugui.datax.rpc.remoting.net.impl.netty.codec.NettyEncoder;
+import com.wugui.datax.rpc.remoting.net.common.NettyConstant;
+import com.wugui.datax.rpc.remoting.net.common.ServerHandlerPool;
 import com.wugui.datax.rpc.remoting.net.params.Beat;
-import com.wugui.datax.rpc.remoting.net.params.XxlRpcRequest;
-import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
 import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
-import com.wugui.datax.rpc.util.ThreadPoolUtil;
 import com.wugui.datax.rpc.remoting.net.Server;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
@@ -18,17 +16,20 @@ import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.timeout.IdleStateHandler;
 
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * netty rpc server
  *
+ *      a、binary frames and netty_http on the same port, chosen per connection by NettyProtocolDetector;
+ *      b、stop: remove from registry, stop accepting, drain in-flight requests, then close connections.
+ *
  * @author xuxueli 2015-10-29 18:17:14
  */
 public class NettyServer extends Server {
 
     private Thread thread;
+    private volatile Channel serverChannel;
 
     @Override
     public void start(final XxlRpcProviderFactory xxlRpcProviderFactory) throws Exception {
@@ -38,10 +39,11 @@ public class NettyServer extends Server {
             public void run() {
 
                 // param
-                final ThreadPoolExecutor serverHandlerPool = ThreadPoolUtil.makeServerThreadPool(
+                final ServerHandlerPool serverHandlerPool = new ServerHandlerPool(
                         NettyServer.class.getSimpleName(),
                         xxlRpcProviderFactory.getCorePoolSize(),
                         xxlRpcProviderFactory.getMaxPoolSize());
+                xxlRpcProviderFactory.setServerHandlerPool(serverHandlerPool);
                 EventLoopGroup bossGroup = new NioEventLoopGroup();
                 EventLoopGroup workerGroup = new NioEventLoopGroup();
 
@@ -55,9 +57,7 @@ public class NettyServer extends Server {
                                 public void initChannel(SocketChannel channel) throws Exception {
                                     channel.pipeline()
                                             .addLast(new IdleStateHandler(0,0, Beat.BEAT_INTERVAL*3, TimeUnit.SECONDS))     // beat 3N, close if idle
-                                            .addLast(new NettyDecoder(XxlRpcRequest.class, xxlRpcProviderFactory.getSerializerInstance()))
-                                            .addLast(new NettyEncoder(XxlRpcResponse.class, xxlRpcProviderFactory.getSerializerInstance()))
-                                            .addLast(new NettyServerHandler(xxlRpcProviderFactory, serverHandlerPool));
+                                            .addLast(new NettyProtocolDetector(xxlRpcProviderFactory, serverHandlerPool));
                                 }
                             })
                             .childOption(ChannelOption.TCP_NODELAY, true)
@@ -65,6 +65,7 @@ public class NettyServer extends Server {
 
                     // bind
                     ChannelFuture future = bootstrap.bind(xxlRpcProviderFactory.getPort()).sync();
+                    serverChannel = future.channel();
 
                     logger.info(">>>>>>>>>>> xxl-rpc remoting server start success, nettype = {}, port = {}", NettyServer.class.getName(), xxlRpcProviderFactory.getPort());
                     onStarted();
@@ -80,9 +81,12 @@ public class NettyServer extends Server {
                     }
                 } finally {
 
-                    // stop
+                    // stop, drain in-flight requests, new requests are answered with a rejected error
                     try {
                         serverHandlerPool.shutdown();    // shutdownNow
+                        if (!serverHandlerPool.awaitTermination(NettyConstant.SERVER_DRAIN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                            logger.warn(">>>>>>>>>>> xxl-rpc remoting server drain timeout, active requests = {}", serverHandlerPool.getActiveCount());
+                        }
                     } catch (Exception e) {
                         logger.error(e.getMessage(), e);
                     }
@@ -104,13 +108,21 @@ public class NettyServer extends Server {
     @Override
     public void stop() throws Exception {
 
+        // on stop, remove from registry first
+        onStopped();
+
+        // stop accepting, the server thread drains in-flight requests
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+
         // destroy server thread
         if (thread != null && thread.isAlive()) {
-            thread.interrupt();
+            thread.join(NettyConstant.SERVER_DRAIN_TIMEOUT + 1000);
+            if (thread.isAlive()) {
+                thread.interrupt();
+            }
         }
-
-        // on stop
-        onStopped();
         logger.info(">>>>>>>>>>> xxl-rpc remoting server destroy success.");
     }
 
@@ -1,31 +1,31 @@
 package com.wugui.datax.rpc.remoting.net.impl.netty.server;
 
+import com.wugui.datax.rpc.remoting.net.common.ServerHandlerPool;
 import com.wugui.datax.rpc.remoting.net.params.Beat;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcRequest;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
 import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
-import com.wugui.datax.rpc.util.ThrowableUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.timeout.IdleStateEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ThreadPoolExecutor;
-
 
 /**
  * netty server handler
  *
+ * requests run in the server handler pool, those not accepted are answered busy on the event loop
+ *
  * @author xuxueli 2015-10-29 20:07:37
  */
 public class NettyServerHandler extends SimpleChannelInboundHandler<XxlRpcRequest> {
     private static final Logger logger = LoggerFactory.getLogger(NettyServerHandler.class);
 
     private XxlRpcProviderFactory xxlRpcProviderFactory;
-    private ThreadPoolExecutor serverHandlerPool;
+    private ServerHandlerPool serverHandlerPool;
 
-    public NettyServerHandler(final XxlRpcProviderFactory xxlRpcProviderFactory, final ThreadPoolExecutor serverHandlerPool) {
+    public NettyServerHandler(final XxlRpcProviderFactory xxlRpcProviderFactory, final ServerHandlerPool serverHandlerPool) {
         this.xxlRpcProviderFactory = xxlRpcProviderFactory;
         this.serverHandlerPool = serverHandlerPool;
     }
@@ -34,28 +34,27 @@ public class NettyServerHandler extends SimpleChannelInboundHandler<XxlRpcReques
     @Override
     public void channelRead0(final ChannelHandlerContext ctx, final XxlRpcRequest xxlRpcRequest) throws Exception {
 
-        // filter beat
+        // filter beat, pong to let the client know the server is alive
         if (Beat.BEAT_ID.equalsIgnoreCase(xxlRpcRequest.getRequestId())){
+            ctx.writeAndFlush(Beat.BEAT_PONG);
             logger.debug(">>>>>>>>>>> xxl-rpc provider netty server read beat-ping.");
             return;
         }
 
-        // do invoke
-        try {
-            serverHandlerPool.execute(new Runnable() {
-                @Override
-                public void run() {
-                    // invoke + response
-                    XxlRpcResponse xxlRpcResponse = xxlRpcProviderFactory.invokeService(xxlRpcRequest);
-
-                    ctx.writeAndFlush(xxlRpcResponse);
-                }
-            });
-        } catch (Exception e) {
-            // catch error
+        // do invoke, not accepted when the pool or this connection is saturated, answered busy at once
+        boolean accepted = serverHandlerPool.execute(ctx.channel(), new Runnable() {
+            @Override
+            public void run() {
+                // invoke + response
+                XxlRpcResponse xxlRpcResponse = xxlRpcProviderFactory.invokeService(xxlRpcRequest);
+
+                ctx.writeAndFlush(xxlRpcResponse);
+            }
+        });
+        if (!accepted) {
             XxlRpcResponse xxlRpcResponse = new XxlRpcResponse();
             xxlRpcResponse.setRequestId(xxlRpcRequest.getRequestId());
-            xxlRpcResponse.setErrorMsg(ThrowableUtil.toString(e));
+            xxlRpcResponse.setErrorMsg(serverHandlerPool.busyMsg());
 
             ctx.writeAndFlush(xxlRpcResponse);
         }
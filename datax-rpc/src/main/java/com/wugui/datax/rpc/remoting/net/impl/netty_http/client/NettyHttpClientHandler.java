@@ -1,11 +1,8 @@
 package com.wugui.datax.rpc.remoting.net.impl.netty_http.client;
 
 import com.wugui.datax.rpc.remoting.invoker.XxlRpcInvokerFactory;
-import com.wugui.datax.rpc.remoting.net.params.Beat;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
 import com.wugui.datax.rpc.serialize.Serializer;
-import com.wugui.datax.rpc.util.XxlRpcException;
-import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.FullHttpResponse;
@@ -26,33 +23,37 @@ public class NettyHttpClientHandler extends SimpleChannelInboundHandler<FullHttp
     private XxlRpcInvokerFactory xxlRpcInvokerFactory;
     private Serializer serializer;
     private NettyHttpConnectClient nettyHttpConnectClient;
-    public NettyHttpClientHandler(final XxlRpcInvokerFactory xxlRpcInvokerFactory, Serializer serializer, final NettyHttpConnectClient nettyHttpConnectClient) {
+    private NettyHttpConnectClient.PooledChannel pooledChannel;
+    public NettyHttpClientHandler(final XxlRpcInvokerFactory xxlRpcInvokerFactory, Serializer serializer, final NettyHttpConnectClient nettyHttpConnectClient, final NettyHttpConnectClient.PooledChannel pooledChannel) {
         this.xxlRpcInvokerFactory = xxlRpcInvokerFactory;
         this.serializer = serializer;
         this.nettyHttpConnectClient = nettyHttpConnectClient;
+        this.pooledChannel = pooledChannel;
     }
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) throws Exception {
 
-        // valid status
+        // valid status and length; no request id to match, responses of pipelined requests may come out of order,
+        // so fail all pending requests of the channel with the error, and close it
+        String errorMsg = null;
         if (!HttpResponseStatus.OK.equals(msg.status())) {
-            throw new XxlRpcException("xxl-rpc response status invalid.");
+            errorMsg = "xxl-rpc response status invalid, status:" + msg.status();
+        } else if (msg.content().readableBytes() == 0) {
+            errorMsg = "xxl-rpc response data empty.";
         }
-
-        // response parse
-        byte[] responseBytes = ByteBufUtil.getBytes(msg.content());
-
-        // valid length
-        if (responseBytes.length == 0) {
-            throw new XxlRpcException("xxl-rpc response data empty.");
+        if (errorMsg != null) {
+            logger.error(">>>>>>>>>>> xxl-rpc netty_http client {}", errorMsg);
+            nettyHttpConnectClient.onClosed(pooledChannel, errorMsg);
+            ctx.close();
+            return;
         }
 
-        // response deserialize
-        XxlRpcResponse xxlRpcResponse = (XxlRpcResponse) serializer.deserialize(responseBytes, XxlRpcResponse.class);
+        // response deserialize, in place from the response buffer
+        XxlRpcResponse xxlRpcResponse = (XxlRpcResponse) serializer.deserialize(msg.content(), XxlRpcResponse.class);
 
         // notify response
-        xxlRpcInvokerFactory.notifyInvokerFuture(xxlRpcResponse.getRequestId(), xxlRpcResponse);
+        nettyHttpConnectClient.onResponse(pooledChannel, xxlRpcResponse);
 
     }
 
@@ -63,11 +64,12 @@ public class NettyHttpClientHandler extends SimpleChannelInboundHandler<FullHttp
         ctx.close();
     }
 
-    /*@Override
+    @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        // retry
+        // fail pending requests, not left to their timeout
+        nettyHttpConnectClient.onClosed(pooledChannel, "xxl-rpc netty_http client channel closed");
         super.channelInactive(ctx);
-    }*/
+    }
 
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
@@ -75,7 +77,7 @@ public class NettyHttpClientHandler extends SimpleChannelInboundHandler<FullHttp
             /*ctx.channel().close();      // close idle channel
             logger.debug(">>>>>>>>>>> xxl-rpc netty_http client close an idle channel.");*/
 
-            nettyHttpConnectClient.send(Beat.BEAT_PING);    // beat N, close if fail(may throw error)
+            nettyHttpConnectClient.sendBeat(ctx.channel());    // beat N, close if fail
             logger.debug(">>>>>>>>>>> xxl-rpc netty_http client send beat-ping.");
         } else {
             super.userEventTriggered(ctx, evt);
@@ -2,44 +2,82 @@ package com.wugui.datax.rpc.remoting.net.impl.netty_http.client;
 
 import com.wugui.datax.rpc.remoting.invoker.XxlRpcInvokerFactory;
 import com.wugui.datax.rpc.remoting.net.common.ConnectClient;
+import com.wugui.datax.rpc.remoting.net.common.NettyClientEventLoop;
 import com.wugui.datax.rpc.remoting.net.common.NettyConstant;
 import com.wugui.datax.rpc.remoting.net.params.Beat;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcRequest;
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
 import com.wugui.datax.rpc.serialize.Serializer;
+import com.wugui.datax.rpc.util.ThrowableUtil;
+import com.wugui.datax.rpc.util.XxlRpcException;
 import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.timeout.IdleStateHandler;
 
 import java.net.URI;
 import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * netty_http
  *
+ *      a、channels run on the shared client event loop, no event loop per address;
+ *      b、each address keeps a small pool of keep-alive channels, a new channel is connected only when all are busy;
+ *      c、requests of one channel are pipelined and matched by request id, in-flight requests per channel are limited;
+ *      d、send does not wait for the write, a failed write fails the invoker future at once;
+ *      e、in-flight request ids are kept per channel, they are failed at once when the channel closes or answers a non-200 status.
+ *
  * @author xuxueli 2015-11-24 22:25:15
  */
 public class NettyHttpConnectClient extends ConnectClient {
 
-    private EventLoopGroup group;
-    private Channel channel;
+    /**
+     * pooled channel, with its in-flight request ids and count
+     */
+    static class PooledChannel {
+        private volatile Channel channel;
+        private final Set<String> pendingRequests = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private boolean isActive() {
+            return channel != null && channel.isActive();
+        }
+
+        private void add(String requestId) {
+            pendingRequests.add(requestId);
+            pending.incrementAndGet();
+        }
+
+        private boolean remove(String requestId) {
+            if (requestId != null && pendingRequests.remove(requestId)) {
+                pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private Bootstrap bootstrap;
+    private PooledChannel[] channels;
 
     private Serializer serializer;
+    private XxlRpcInvokerFactory xxlRpcInvokerFactory;
     private String address;
     private String host;
-    private DefaultFullHttpRequest beatRequest;
+    private int port;
+    private String path;
 
     @Override
     public void init(String address, final Serializer serializer, final XxlRpcInvokerFactory xxlRpcInvokerFactory) throws Exception {
-        final NettyHttpConnectClient thisClient = this;
 
         if (!address.toLowerCase().startsWith("http")) {
             address = "http://" + address;    // IP:PORT, need parse to url
@@ -48,28 +86,22 @@ public class NettyHttpConnectClient extends ConnectClient {
         this.address = address;
         URL url = new URL(address);
         this.host = url.getHost();
-        int port = url.getPort() > -1 ? url.getPort() : 80;
-
-
-        this.group = new NioEventLoopGroup();
-        Bootstrap bootstrap = new Bootstrap();
-        bootstrap.group(group)
-                .channel(NioSocketChannel.class)
-                .handler(new ChannelInitializer<SocketChannel>() {
-                    @Override
-                    public void initChannel(SocketChannel channel) throws Exception {
-                        channel.pipeline()
-                                .addLast(new IdleStateHandler(0, 0, Beat.BEAT_INTERVAL, TimeUnit.SECONDS))   // beat N, close if fail
-                                .addLast(new HttpClientCodec())
-                                .addLast(new HttpObjectAggregator(NettyConstant.MAX_LENGTH))
-                                .addLast(new NettyHttpClientHandler(xxlRpcInvokerFactory, serializer, thisClient));
-                    }
-                })
+        this.port = url.getPort() > -1 ? url.getPort() : 80;
+        this.path = new URI(address).getRawPath();
+
+        this.serializer = serializer;
+        this.xxlRpcInvokerFactory = xxlRpcInvokerFactory;
+
+        this.bootstrap = new Bootstrap();
+        this.bootstrap.group(NettyClientEventLoop.group())
+                .channel(NettyClientEventLoop.channelClass())
+                .option(ChannelOption.TCP_NODELAY, true)
                 .option(ChannelOption.SO_KEEPALIVE, true)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10000);
-        this.channel = bootstrap.connect(host, port).sync().channel();
 
-        this.serializer = serializer;
+        // first channel, connect fail fast
+        this.channels = new PooledChannel[Math.max(1, NettyConstant.CLIENT_POOL_SIZE)];
+        connect(0);
 
         // valid
         if (!isValidate()) {
@@ -80,10 +112,93 @@ public class NettyHttpConnectClient extends ConnectClient {
         logger.debug(">>>>>>>>>>> xxl-rpc netty client proxy, connect to server success at host:{}, port:{}", host, port);
     }
 
+    private PooledChannel connect(int index) throws Exception {
+        synchronized (channels) {
+            // connected by other thread, avoid repeat
+            PooledChannel pooledChannel = channels[index];
+            if (pooledChannel != null && pooledChannel.isActive()) {
+                return pooledChannel;
+            }
+
+            final NettyHttpConnectClient thisClient = this;
+            final PooledChannel newChannel = new PooledChannel();
+            newChannel.channel = bootstrap.clone()
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        public void initChannel(Channel channel) throws Exception {
+                            channel.pipeline()
+                                    .addLast(new IdleStateHandler(0, 0, Beat.BEAT_INTERVAL, TimeUnit.SECONDS))   // beat N, close if fail
+                                    .addLast(new HttpClientCodec())
+                                    .addLast(new HttpObjectAggregator(NettyConstant.MAX_LENGTH))
+                                    .addLast(new NettyHttpClientHandler(xxlRpcInvokerFactory, serializer, thisClient, newChannel));
+                        }
+                    })
+                    .connect(host, port).sync().channel();
+            channels[index] = newChannel;
+            return newChannel;
+        }
+    }
+
+    /**
+     * least pending channel, connect a new one when all channels are busy
+     */
+    private PooledChannel select() throws Exception {
+        PooledChannel best = null;
+        int emptyIndex = -1;
+        for (int i = 0; i < channels.length; i++) {
+            PooledChannel pooledChannel = channels[i];
+            if (pooledChannel == null || !pooledChannel.isActive()) {
+                if (emptyIndex < 0) {
+                    emptyIndex = i;
+                }
+                continue;
+            }
+            if (pooledChannel.channel.isWritable()
+                    && (best == null || pooledChannel.pending.get() < best.pending.get())) {
+                best = pooledChannel;
+            }
+        }
+
+        // 1、idle channel
+        if (best != null && best.pending.get() == 0) {
+            return best;
+        }
+
+        // 2、all busy, grow the pool
+        if (emptyIndex >= 0) {
+            try {
+                return connect(emptyIndex);
+            } catch (Exception e) {
+                if (best == null) {
+                    throw e;
+                }
+                logger.warn(">>>>>>>>>>> xxl-rpc netty_http client connect fail, address:{}", address, e);
+            }
+        }
+
+        // 3、busy channel, under the pending limit
+        if (best != null && best.pending.get() >= NettyConstant.CLIENT_MAX_PENDING) {
+            // timeout or oneway requests, no future waiting for them
+            for (String requestId : best.pendingRequests) {
+                if (!xxlRpcInvokerFactory.hasInvokerFuture(requestId)) {
+                    best.remove(requestId);
+                }
+            }
+        }
+        if (best != null && best.pending.get() < NettyConstant.CLIENT_MAX_PENDING) {
+            return best;
+        }
+        throw new XxlRpcException("xxl-rpc netty_http client busy, pending limit reached, address:" + address);
+    }
+
     @Override
     public boolean isValidate() {
-        if (this.channel != null) {
-            return this.channel.isActive();
+        if (this.channels != null) {
+            for (PooledChannel pooledChannel : this.channels) {
+                if (pooledChannel != null && pooledChannel.isActive()) {
+                    return true;
+                }
+            }
         }
         return false;
     }
@@ -91,26 +206,99 @@ public class NettyHttpConnectClient extends ConnectClient {
 
     @Override
     public void close() {
-        if (this.channel != null && this.channel.isActive()) {
-            this.channel.close();        // if this.channel.isOpen()
-        }
-        if (this.group != null && !this.group.isShutdown()) {
-            this.group.shutdownGracefully();
+        if (this.channels != null) {
+            for (PooledChannel pooledChannel : this.channels) {
+                if (pooledChannel != null && pooledChannel.isActive()) {
+                    pooledChannel.channel.close();
+                }
+            }
         }
         logger.debug(">>>>>>>>>>> xxl-rpc netty client close.");
     }
 
 
     @Override
-    public void send(XxlRpcRequest xxlRpcRequest) throws Exception {
-        byte[] requestBytes = serializer.serialize(xxlRpcRequest);
+    public void send(final XxlRpcRequest xxlRpcRequest) throws Exception {
+        final PooledChannel pooledChannel = select();
+
+        pooledChannel.add(xxlRpcRequest.getRequestId());
+        ChannelFuture writeFuture;
+        try {
+            writeFuture = write(pooledChannel.channel, xxlRpcRequest);
+        } catch (RuntimeException e) {
+            pooledChannel.remove(xxlRpcRequest.getRequestId());
+            throw e;
+        }
+        writeFuture.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) throws Exception {
+                if (!future.isSuccess()) {
+                    writeFail(pooledChannel, xxlRpcRequest, future);
+                }
+            }
+        });
+    }
+
+    /**
+     * response arrived, notify the invoker future of the request id
+     */
+    void onResponse(PooledChannel pooledChannel, XxlRpcResponse xxlRpcResponse) {
+        pooledChannel.remove(xxlRpcResponse.getRequestId());
+        xxlRpcInvokerFactory.notifyInvokerFuture(xxlRpcResponse.getRequestId(), xxlRpcResponse);
+    }
+
+    /**
+     * channel closed, or its response can not be matched to a request id, fail all its pending requests
+     */
+    void onClosed(PooledChannel pooledChannel, String errorMsg) {
+        for (String requestId : pooledChannel.pendingRequests) {
+            fail(pooledChannel, requestId, errorMsg + ", address:" + address);
+        }
+    }
 
-        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, new URI(address).getRawPath(), Unpooled.wrappedBuffer(requestBytes));
+    private void fail(PooledChannel pooledChannel, String requestId, String errorMsg) {
+        if (!pooledChannel.remove(requestId)) {
+            return;
+        }
+        XxlRpcResponse xxlRpcResponse = new XxlRpcResponse();
+        xxlRpcResponse.setRequestId(requestId);
+        xxlRpcResponse.setErrorMsg(errorMsg);
+        xxlRpcInvokerFactory.notifyInvokerFuture(requestId, xxlRpcResponse);
+    }
+
+    /**
+     * beat on the idle channel itself, not counted as pending, close if fail
+     */
+    void sendBeat(Channel channel) throws Exception {
+        write(channel, Beat.BEAT_PING).addListener(ChannelFutureListener.CLOSE_ON_FAILURE);
+    }
+
+    /**
+     * request serialized straight into a buffer from the channel allocator
+     */
+    private ChannelFuture write(Channel channel, XxlRpcRequest xxlRpcRequest) {
+        ByteBuf requestContent = channel.alloc().buffer();
+        try {
+            serializer.serialize(xxlRpcRequest, requestContent);
+        } catch (RuntimeException e) {
+            requestContent.release();
+            throw e;
+        }
+
+        DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, path, requestContent);
         request.headers().set(HttpHeaderNames.HOST, host);
         request.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
         request.headers().set(HttpHeaderNames.CONTENT_LENGTH, request.content().readableBytes());
 
-        this.channel.writeAndFlush(request).sync();
+        return channel.writeAndFlush(request);
+    }
+
+    private void writeFail(PooledChannel pooledChannel, XxlRpcRequest xxlRpcRequest, ChannelFuture future) {
+        logger.error(">>>>>>>>>>> xxl-rpc netty_http client write fail, address:{}, requestId:{}", address, xxlRpcRequest.getRequestId(), future.cause());
+
+        // fail this request with its cause first, the close fails the rest
+        fail(pooledChannel, xxlRpcRequest.getRequestId(), future.cause() != null ? ThrowableUtil.toString(future.cause()) : "xxl-rpc netty_http client write fail.");
+        future.channel().close();
     }
 
 }
@@ -2,9 +2,9 @@ package com.wugui.datax.rpc.remoting.net.impl.netty_http.server;
 
 import com.wugui.datax.rpc.remoting.net.Server;
 import com.wugui.datax.rpc.remoting.net.common.NettyConstant;
+import com.wugui.datax.rpc.remoting.net.common.ServerHandlerPool;
 import com.wugui.datax.rpc.remoting.net.params.Beat;
 import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
-import com.wugui.datax.rpc.util.ThreadPoolUtil;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
@@ -17,7 +17,6 @@ import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.timeout.IdleStateHandler;
 
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -34,10 +33,11 @@ public class NettyHttpServer extends Server {
 
         thread = new Thread(() -> {
             // param
-            final ThreadPoolExecutor serverHandlerPool = ThreadPoolUtil.makeServerThreadPool(
+            final ServerHandlerPool serverHandlerPool = new ServerHandlerPool(
                     NettyHttpServer.class.getSimpleName(),
                     xxlRpcProviderFactory.getCorePoolSize(),
                     xxlRpcProviderFactory.getMaxPoolSize());
+            xxlRpcProviderFactory.setServerHandlerPool(serverHandlerPool);
             EventLoopGroup bossGroup = new NioEventLoopGroup();
             EventLoopGroup workerGroup = new NioEventLoopGroup();
 
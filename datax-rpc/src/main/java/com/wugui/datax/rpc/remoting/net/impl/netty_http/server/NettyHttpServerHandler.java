@@ -1,12 +1,13 @@
 package com.wugui.datax.rpc.remoting.net.impl.netty_http.server;
 
+import com.wugui.datax.rpc.remoting.net.common.ServerHandlerPool;
 import com.wugui.datax.rpc.remoting.net.params.Beat;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcRequest;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
 import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
 import com.wugui.datax.rpc.util.ThrowableUtil;
 import com.wugui.datax.rpc.util.XxlRpcException;
-import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
@@ -15,12 +16,14 @@ import io.netty.handler.timeout.IdleStateEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.Map;
 
 
 /**
  * netty_http
  *
+ * requests run in the server handler pool, those not accepted are answered busy on the event loop
+ *
  * @author xuxueli 2015-11-24 22:25:15
  */
 public class NettyHttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
@@ -28,9 +31,9 @@ public class NettyHttpServerHandler extends SimpleChannelInboundHandler<FullHttp
 
 
     private XxlRpcProviderFactory xxlRpcProviderFactory;
-    private ThreadPoolExecutor serverHandlerPool;
+    private ServerHandlerPool serverHandlerPool;
 
-    public NettyHttpServerHandler(final XxlRpcProviderFactory xxlRpcProviderFactory, final ThreadPoolExecutor serverHandlerPool) {
+    public NettyHttpServerHandler(final XxlRpcProviderFactory xxlRpcProviderFactory, final ServerHandlerPool serverHandlerPool) {
         this.xxlRpcProviderFactory = xxlRpcProviderFactory;
         this.serverHandlerPool = serverHandlerPool;
     }
@@ -38,47 +41,84 @@ public class NettyHttpServerHandler extends SimpleChannelInboundHandler<FullHttp
     @Override
     protected void channelRead0(final ChannelHandlerContext ctx, FullHttpRequest msg) throws Exception {
 
-        // request parse
-        final byte[] requestBytes = ByteBufUtil.getBytes(msg.content());    // byteBuf.toString(io.netty.util.CharsetUtil.UTF_8);
+        // request parse, content retained for the handler thread, no copy to a heap array
+        final ByteBuf requestContent = msg.content().retain();
         final String uri = msg.uri();
         final boolean keepAlive = HttpUtil.isKeepAlive(msg);
 
-        // do invoke
-        serverHandlerPool.execute(new Runnable() {
+        // do invoke, not accepted when the pool or this connection is saturated, answered busy at once
+        boolean accepted = serverHandlerPool.execute(ctx.channel(), new Runnable() {
             @Override
             public void run() {
-                process(ctx, uri, requestBytes, keepAlive);
+                try {
+                    process(ctx, uri, requestContent, keepAlive);
+                } finally {
+                    requestContent.release();
+                }
             }
         });
+        if (!accepted) {
+            try {
+                writeBusy(ctx, uri, requestContent, keepAlive);
+            } finally {
+                requestContent.release();
+            }
+        }
+    }
+
+    /**
+     * busy response, the request is deserialized on the event loop only for its request id
+     */
+    private void writeBusy(ChannelHandlerContext ctx, String uri, ByteBuf requestContent, boolean keepAlive){
+        String requestId = null;
+        if (!"/services".equals(uri) && requestContent.readableBytes() > 0) {
+            try {
+                XxlRpcRequest xxlRpcRequest = (XxlRpcRequest) xxlRpcProviderFactory.getSerializerInstance().deserialize(requestContent, XxlRpcRequest.class);
+                if (Beat.BEAT_ID.equalsIgnoreCase(xxlRpcRequest.getRequestId())) {
+                    return;
+                }
+                requestId = xxlRpcRequest.getRequestId();
+            } catch (Exception e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+
+        XxlRpcResponse xxlRpcResponse = new XxlRpcResponse();
+        xxlRpcResponse.setRequestId(requestId);
+        xxlRpcResponse.setErrorMsg(serverHandlerPool.busyMsg());
+        writeResponse(ctx, keepAlive, xxlRpcResponse);
     }
 
-    private void process(ChannelHandlerContext ctx, String uri, byte[] requestBytes, boolean keepAlive){
+    private void process(ChannelHandlerContext ctx, String uri, ByteBuf requestContent, boolean keepAlive){
         String requestId = null;
         try {
             if ("/services".equals(uri)) {	// services mapping
 
                 // request
+                Map<String, Object> serviceMetrics = xxlRpcProviderFactory.getServiceMetrics();
                 StringBuffer stringBuffer = new StringBuffer("<ui>");
                 for (String serviceKey: xxlRpcProviderFactory.getServiceData().keySet()) {
-                    stringBuffer.append("<li>").append(serviceKey).append(": ").append(xxlRpcProviderFactory.getServiceData().get(serviceKey)).append("</li>");
+                    stringBuffer.append("<li>").append(serviceKey).append(": ").append(xxlRpcProviderFactory.getServiceData().get(serviceKey))
+                            .append("<br>").append(serviceMetrics.get(serviceKey)).append("</li>");
                 }
+                stringBuffer.append("<li>server: ").append(xxlRpcProviderFactory.getServerMetrics()).append("</li>");
                 stringBuffer.append("</ui>");
 
                 // response serialize
                 byte[] responseBytes = stringBuffer.toString().getBytes("UTF-8");
 
                 // response-write
-                writeResponse(ctx, keepAlive, responseBytes);
+                writeResponse(ctx, keepAlive, Unpooled.wrappedBuffer(responseBytes));
 
             } else {
 
                 // valid
-                if (requestBytes.length == 0) {
+                if (requestContent.readableBytes() == 0) {
                     throw new XxlRpcException("xxl-rpc request data empty.");
                 }
 
                 // request deserialize
-                XxlRpcRequest xxlRpcRequest = (XxlRpcRequest) xxlRpcProviderFactory.getSerializerInstance().deserialize(requestBytes, XxlRpcRequest.class);
+                XxlRpcRequest xxlRpcRequest = (XxlRpcRequest) xxlRpcProviderFactory.getSerializerInstance().deserialize(requestContent, XxlRpcRequest.class);
                 requestId = xxlRpcRequest.getRequestId();
 
                 // filter beat
@@ -90,11 +130,8 @@ public class NettyHttpServerHandler extends SimpleChannelInboundHandler<FullHttp
                 // invoke + response
                 XxlRpcResponse xxlRpcResponse = xxlRpcProviderFactory.invokeService(xxlRpcRequest);
 
-                // response serialize
-                byte[] responseBytes = xxlRpcProviderFactory.getSerializerInstance().serialize(xxlRpcResponse);
-
                 // response-write
-                writeResponse(ctx, keepAlive, responseBytes);
+                writeResponse(ctx, keepAlive, xxlRpcResponse);
             }
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
@@ -104,20 +141,31 @@ public class NettyHttpServerHandler extends SimpleChannelInboundHandler<FullHttp
             xxlRpcResponse.setRequestId(requestId);
             xxlRpcResponse.setErrorMsg(ThrowableUtil.toString(e));
 
-            // response serialize
-            byte[] responseBytes = xxlRpcProviderFactory.getSerializerInstance().serialize(xxlRpcResponse);
-
             // response-write
-            writeResponse(ctx, keepAlive, responseBytes);
+            writeResponse(ctx, keepAlive, xxlRpcResponse);
         }
 
     }
 
+    /**
+     * write response, serialized straight into a buffer from ctx.alloc()
+     */
+    private void writeResponse(ChannelHandlerContext ctx, boolean keepAlive, XxlRpcResponse xxlRpcResponse){
+        ByteBuf responseContent = ctx.alloc().buffer();
+        try {
+            xxlRpcProviderFactory.getSerializerInstance().serialize(xxlRpcResponse, responseContent);
+        } catch (RuntimeException e) {
+            responseContent.release();
+            throw e;
+        }
+        writeResponse(ctx, keepAlive, responseContent);
+    }
+
     /**
      * write response
      */
-    private void writeResponse(ChannelHandlerContext ctx, boolean keepAlive, byte[] responseBytes){
-        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(responseBytes));
+    private void writeResponse(ChannelHandlerContext ctx, boolean keepAlive, ByteBuf responseContent){
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, responseContent);
         response.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/html;charset=UTF-8");       // HttpHeaderValues.TEXT_PLAIN.toString()
         response.headers().set(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
         if (keepAlive) {
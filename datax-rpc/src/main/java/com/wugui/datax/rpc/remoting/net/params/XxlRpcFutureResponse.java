@@ -3,6 +3,7 @@ package com.wugui.datax.rpc.remoting.net.params;
 import com.wugui.datax.rpc.remoting.invoker.XxlRpcInvokerFactory;
 import com.wugui.datax.rpc.remoting.invoker.call.XxlRpcInvokeCallback;
 import com.wugui.datax.rpc.util.XxlRpcException;
+import io.netty.util.Timeout;
 
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -29,11 +30,20 @@ public class XxlRpcFutureResponse implements Future<XxlRpcResponse> {
     // callback, can be null
     private XxlRpcInvokeCallback invokeCallback;
 
+    // failed by the timeout wheel after timeoutMillis, 0 when the caller waits itself (sync)
+    private long timeoutMillis;
+    private volatile Timeout timeout;
+
 
     public XxlRpcFutureResponse(final XxlRpcInvokerFactory invokerFactory, XxlRpcRequest request, XxlRpcInvokeCallback invokeCallback) {
+        this(invokerFactory, request, invokeCallback, 0);
+    }
+
+    public XxlRpcFutureResponse(final XxlRpcInvokerFactory invokerFactory, XxlRpcRequest request, XxlRpcInvokeCallback invokeCallback, long timeoutMillis) {
         this.invokerFactory = invokerFactory;
         this.request = request;
         this.invokeCallback = invokeCallback;
+        this.timeoutMillis = timeoutMillis;
 
         // set-InvokerFuture
         setInvokerFuture();
@@ -51,6 +61,22 @@ public class XxlRpcFutureResponse implements Future<XxlRpcResponse> {
     }
 
 
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeout(Timeout timeout) {
+        this.timeout = timeout;
+    }
+
+    public void cancelTimeout() {
+        Timeout timeout = this.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+
     // ---------------------- get ----------------------
 
     public XxlRpcRequest getRequest() {
@@ -10,6 +10,15 @@ import java.io.Serializable;
 public class XxlRpcResponse implements Serializable {
 	private static final long serialVersionUID = 42L;
 
+	/**
+	 * error msg prefix of a request the server did not accept, the caller may route it to another server
+	 */
+	public static final String SERVER_BUSY = "xxl-rpc server busy";
+
+	public static boolean isServerBusy(String errorMsg) {
+		return errorMsg != null && errorMsg.contains(SERVER_BUSY);
+	}
+
 
 	private String requestId;
     private String errorMsg;
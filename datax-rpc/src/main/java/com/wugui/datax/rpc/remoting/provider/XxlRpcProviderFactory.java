@@ -2,6 +2,7 @@ package com.wugui.datax.rpc.remoting.provider;
 
 import com.wugui.datax.rpc.registry.ServiceRegistry;
 import com.wugui.datax.rpc.remoting.net.Server;
+import com.wugui.datax.rpc.remoting.net.common.ServerHandlerPool;
 import com.wugui.datax.rpc.remoting.net.impl.netty.server.NettyServer;
 import com.wugui.datax.rpc.remoting.net.params.BaseCallback;
 import com.wugui.datax.rpc.remoting.net.params.XxlRpcRequest;
@@ -16,7 +17,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -183,6 +188,11 @@ public class XxlRpcProviderFactory {
 		return serviceKey;
 	}
 
+	/**
+	 * service method dispatch table, serviceKey : methodName : overloads, built once in addService
+	 */
+	private Map<String, Map<String, XxlRpcServiceMethod[]>> serviceMethodData = new HashMap<>();
+
 	/**
 	 * add service
 	 *
@@ -193,10 +203,100 @@ public class XxlRpcProviderFactory {
 	public void addService(String iface, String version, Object serviceBean){
 		String serviceKey = makeServiceKey(iface, version);
 		serviceData.put(serviceKey, serviceBean);
+		serviceMethodData.put(serviceKey, makeServiceMethods(serviceBean));
 
 		logger.info(">>>>>>>>>>> xxl-rpc, provider factory add service success. serviceKey = {}, serviceBean = {}", serviceKey, serviceBean.getClass());
 	}
 
+	/**
+	 * every public method getMethod could resolve, bridge methods included: a client may send the erased
+	 * parameter types of a generic interface (e.g. Object); a bridge only differing in return type is dropped
+	 */
+	private static Map<String, XxlRpcServiceMethod[]> makeServiceMethods(Object serviceBean) {
+		Map<String, List<XxlRpcServiceMethod>> methodListMap = new HashMap<>();
+		List<Method> bridgeMethods = new ArrayList<>();
+		for (Method method : serviceBean.getClass().getMethods()) {
+			if (Modifier.isStatic(method.getModifiers()) || method.getDeclaringClass() == Object.class) {
+				continue;
+			}
+			if (method.isBridge()) {
+				bridgeMethods.add(method);
+				continue;
+			}
+			addServiceMethod(methodListMap, serviceBean, method);
+		}
+		for (Method method : bridgeMethods) {
+			boolean covered = false;
+			for (XxlRpcServiceMethod serviceMethod : methodListMap.getOrDefault(method.getName(), new ArrayList<>())) {
+				if (serviceMethod.match(method.getParameterTypes())) {
+					covered = true;
+					break;
+				}
+			}
+			if (!covered) {
+				addServiceMethod(methodListMap, serviceBean, method);
+			}
+		}
+
+		Map<String, XxlRpcServiceMethod[]> methodMap = new HashMap<>();
+		for (Map.Entry<String, List<XxlRpcServiceMethod>> item : methodListMap.entrySet()) {
+			methodMap.put(item.getKey(), item.getValue().toArray(new XxlRpcServiceMethod[0]));
+		}
+		return methodMap;
+	}
+
+	private static void addServiceMethod(Map<String, List<XxlRpcServiceMethod>> methodListMap, Object serviceBean, Method method) {
+		try {
+			methodListMap.computeIfAbsent(method.getName(), k -> new ArrayList<>()).add(new XxlRpcServiceMethod(serviceBean, method));
+		} catch (IllegalAccessException e) {
+			throw new XxlRpcException(e);
+		}
+	}
+
+	private XxlRpcServiceMethod matchServiceMethod(String serviceKey, String methodName, Class<?>[] parameterTypes) {
+		Map<String, XxlRpcServiceMethod[]> methodMap = serviceMethodData.get(serviceKey);
+		XxlRpcServiceMethod[] serviceMethods = methodMap != null ? methodMap.get(methodName) : null;
+		if (serviceMethods != null) {
+			for (XxlRpcServiceMethod serviceMethod : serviceMethods) {
+				if (serviceMethod.match(parameterTypes)) {
+					return serviceMethod;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * server handler pool, set by the server on start
+	 */
+	private volatile ServerHandlerPool serverHandlerPool;
+
+	public void setServerHandlerPool(ServerHandlerPool serverHandlerPool) {
+		this.serverHandlerPool = serverHandlerPool;
+	}
+
+	public Map<String, Object> getServerMetrics() {
+		ServerHandlerPool serverHandlerPool = this.serverHandlerPool;
+		return serverHandlerPool != null ? serverHandlerPool.metrics() : new LinkedHashMap<String, Object>();
+	}
+
+	/**
+	 * service method metrics, serviceKey : method signature : metrics
+	 */
+	public Map<String, Object> getServiceMetrics() {
+		Map<String, Object> metrics = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, XxlRpcServiceMethod[]>> service : serviceMethodData.entrySet()) {
+			Map<String, Object> methodMetrics = new LinkedHashMap<>();
+			for (XxlRpcServiceMethod[] serviceMethods : service.getValue().values()) {
+				for (XxlRpcServiceMethod serviceMethod : serviceMethods) {
+					methodMetrics.put(serviceMethod.getSignature(), serviceMethod.metrics());
+				}
+			}
+			metrics.put(service.getKey(), methodMetrics);
+		}
+		return metrics;
+	}
+
 	/**
 	 * invoke service
 	 *
@@ -228,20 +328,16 @@ public class XxlRpcProviderFactory {
 			return xxlRpcResponse;
 		}
 
+		// match service method
+		XxlRpcServiceMethod serviceMethod = matchServiceMethod(serviceKey, xxlRpcRequest.getMethodName(), xxlRpcRequest.getParameterTypes());
+		if (serviceMethod == null) {
+			xxlRpcResponse.setErrorMsg("The method[" + xxlRpcRequest.getMethodName() + "] of serviceKey[" + serviceKey + "] not found.");
+			return xxlRpcResponse;
+		}
+
 		try {
 			// invoke
-			Class<?> serviceClass = serviceBean.getClass();
-			String methodName = xxlRpcRequest.getMethodName();
-			Class<?>[] parameterTypes = xxlRpcRequest.getParameterTypes();
-			Object[] parameters = xxlRpcRequest.getParameters();
-
-            Method method = serviceClass.getMethod(methodName, parameterTypes);
-            method.setAccessible(true);
-			Object result = method.invoke(serviceBean, parameters);
-
-			/*FastClass serviceFastClass = FastClass.create(serviceClass);
-			FastMethod serviceFastMethod = serviceFastClass.getMethod(methodName, parameterTypes);
-			Object result = serviceFastMethod.invoke(serviceBean, parameters);*/
+			Object result = serviceMethod.invoke(xxlRpcRequest.getParameters());
 
 			xxlRpcResponse.setResult(result);
 		} catch (Throwable t) {
@@ -0,0 +1,116 @@
+package com.wugui.datax.rpc.remoting.provider;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * service method, pre-bound to the service bean once in addService
+ *
+ *      a、invoke by MethodHandle (Object[]) -> Object, no getMethod / setAccessible / Method.invoke per call;
+ *      b、call count, error count, total and max cost, latency histogram.
+ */
+public class XxlRpcServiceMethod {
+
+    /**
+     * latency histogram upper bounds, micro second
+     */
+    private static final long[] LATENCY_BOUNDS = {100, 1000, 10 * 1000, 100 * 1000, 1000 * 1000, 10 * 1000 * 1000};
+    private static final String[] LATENCY_NAMES = {"<=100us", "<=1ms", "<=10ms", "<=100ms", "<=1s", "<=10s", ">10s"};
+    private static final Class<?>[] NO_PARAMETER_TYPES = new Class<?>[0];
+
+    private final String name;
+    private final Class<?>[] parameterTypes;
+    private final MethodHandle methodHandle;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_NAMES.length);
+
+    public XxlRpcServiceMethod(Object serviceBean, Method method) throws IllegalAccessException {
+        this.name = method.getName();
+        this.parameterTypes = method.getParameterTypes();
+
+        method.setAccessible(true);
+        this.methodHandle = MethodHandles.lookup().unreflect(method)
+                .bindTo(serviceBean)
+                .asSpreader(Object[].class, parameterTypes.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean match(Class<?>[] parameterTypes) {
+        return Arrays.equals(this.parameterTypes, parameterTypes == null ? NO_PARAMETER_TYPES : parameterTypes);
+    }
+
+    public Object invoke(Object[] parameters) throws Throwable {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = (Object) methodHandle.invokeExact(parameters);
+            success = true;
+            return result;
+        } finally {
+            record((System.nanoTime() - start) / 1000, success);
+        }
+    }
+
+    private void record(long costMicros, boolean success) {
+        calls.increment();
+        if (!success) {
+            errors.increment();
+        }
+        totalMicros.add(costMicros);
+
+        long max = maxMicros.get();
+        while (costMicros > max && !maxMicros.compareAndSet(max, costMicros)) {
+            max = maxMicros.get();
+        }
+
+        int bucket = 0;
+        while (bucket < LATENCY_BOUNDS.length && costMicros > LATENCY_BOUNDS[bucket]) {
+            bucket++;
+        }
+        latencies.incrementAndGet(bucket);
+    }
+
+    public String getSignature() {
+        StringBuilder signature = new StringBuilder(name).append("(");
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                signature.append(",");
+            }
+            signature.append(parameterTypes[i].getSimpleName());
+        }
+        return signature.append(")").toString();
+    }
+
+    public Map<String, Object> metrics() {
+        long callCount = calls.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("calls", callCount);
+        metrics.put("errors", errors.sum());
+        metrics.put("avgUs", callCount > 0 ? totalMicros.sum() / callCount : 0);
+        metrics.put("maxUs", maxMicros.get());
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < LATENCY_NAMES.length; i++) {
+            histogram.put(LATENCY_NAMES[i], latencies.get(i));
+        }
+        metrics.put("latency", histogram);
+        return metrics;
+    }
+
+}
@@ -1,5 +1,15 @@
 package com.wugui.datax.rpc.serialize;
 
+import com.wugui.datax.rpc.util.XxlRpcException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 /**
  * serializer
  *
@@ -14,6 +24,48 @@ public abstract class Serializer {
 	public abstract <T> byte[] serialize(T obj);
 	public abstract <T> Object deserialize(byte[] bytes, Class<T> clazz);
 
+	/**
+	 * serialize into the stream, override to skip the intermediate byte array
+	 */
+	public <T> void serialize(T obj, OutputStream os) {
+		try {
+			os.write(serialize(obj));
+		} catch (IOException e) {
+			throw new XxlRpcException(e);
+		}
+	}
+
+	/**
+	 * deserialize from the stream, override to skip the intermediate byte array
+	 */
+	public <T> Object deserialize(InputStream is, Class<T> clazz) {
+		try {
+			ByteArrayOutputStream os = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int length;
+			while ((length = is.read(buffer)) != -1) {
+				os.write(buffer, 0, length);
+			}
+			return deserialize(os.toByteArray(), clazz);
+		} catch (IOException e) {
+			throw new XxlRpcException(e);
+		}
+	}
+
+	/**
+	 * serialize into the buffer, written at its writer index
+	 */
+	public <T> void serialize(T obj, ByteBuf out) {
+		serialize(obj, new ByteBufOutputStream(out));
+	}
+
+	/**
+	 * deserialize the readable bytes of the buffer, pooled direct buffers are read in place
+	 */
+	public <T> Object deserialize(ByteBuf in, Class<T> clazz) {
+		return deserialize(new ByteBufInputStream(in), clazz);
+	}
+
 	/*public enum SerializeEnum {
 		HESSIAN(HessianSerializer.class),
 		HESSIAN1(Hessian1Serializer.class);
@@ -8,60 +8,62 @@ import com.wugui.datax.rpc.util.XxlRpcException;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * hessian serialize
+ *
+ * Hessian2Input/Hessian2Output are reused per thread, re-init on each call, their stream is released after it;
+ * an instance that failed may hold half a message in its buffer, it is dropped
+ *
  * @author xuxueli 2015-9-26 02:53:29
  */
 public class HessianSerializer extends Serializer {
 
+	private static final ThreadLocal<Hessian2Output> hessianOutput = ThreadLocal.withInitial(() -> new Hessian2Output(null));
+	private static final ThreadLocal<Hessian2Input> hessianInput = ThreadLocal.withInitial(() -> new Hessian2Input(null));
+
 	@Override
 	public <T> byte[] serialize(T obj){
 		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		Hessian2Output ho = new Hessian2Output(os);
+		serialize(obj, os);
+		return os.toByteArray();
+	}
+
+	@Override
+	public <T> Object deserialize(byte[] bytes, Class<T> clazz) {
+		return deserialize(new ByteArrayInputStream(bytes), clazz);
+	}
+
+	@Override
+	public <T> void serialize(T obj, OutputStream os) {
+		Hessian2Output ho = hessianOutput.get();
+		ho.init(os);
 		try {
 			ho.writeObject(obj);
 			ho.flush();
-			byte[] result = os.toByteArray();
-			return result;
-		} catch (IOException e) {
-			throw new XxlRpcException(e);
+		} catch (IOException | RuntimeException e) {
+			hessianOutput.remove();
+			throw (e instanceof XxlRpcException) ? (XxlRpcException) e : new XxlRpcException(e);
 		} finally {
-			try {
-				ho.close();
-			} catch (IOException e) {
-				throw new XxlRpcException(e);
-			}
-			try {
-				os.close();
-			} catch (IOException e) {
-				throw new XxlRpcException(e);
-			}
+			ho.init(null);
 		}
-
 	}
 
 	@Override
-	public <T> Object deserialize(byte[] bytes, Class<T> clazz) {
-		ByteArrayInputStream is = new ByteArrayInputStream(bytes);
-		Hessian2Input hi = new Hessian2Input(is);
+	public <T> Object deserialize(InputStream is, Class<T> clazz) {
+		Hessian2Input hi = hessianInput.get();
+		hi.init(is);
 		try {
 			Object result = hi.readObject();
 			return result;
-		} catch (IOException e) {
-			throw new XxlRpcException(e);
+		} catch (IOException | RuntimeException e) {
+			hessianInput.remove();
+			throw (e instanceof XxlRpcException) ? (XxlRpcException) e : new XxlRpcException(e);
 		} finally {
-			try {
-				hi.close();
-			} catch (Exception e) {
-				throw new XxlRpcException(e);
-			}
-			try {
-				is.close();
-			} catch (IOException e) {
-				throw new XxlRpcException(e);
-			}
+			hi.init(null);
 		}
 	}
-	
+
 }
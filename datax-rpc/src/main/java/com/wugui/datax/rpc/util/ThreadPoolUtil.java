@@ -14,15 +14,26 @@ public class ThreadPoolUtil {
      * @return
      */
     public static ThreadPoolExecutor makeServerThreadPool(final String serverType, int corePoolSize, int maxPoolSize) {
+        return makeServerThreadPool(serverType, corePoolSize, maxPoolSize, 1000);
+    }
+
+    /**
+     * make server thread pool, rejected with RejectedExecutionException when full
+     *
+     * @param serverType
+     * @param queueSize
+     * @return
+     */
+    public static ThreadPoolExecutor makeServerThreadPool(final String serverType, int corePoolSize, int maxPoolSize, int queueSize) {
         ThreadPoolExecutor serverHandlerPool = new ThreadPoolExecutor(
                 corePoolSize,
                 maxPoolSize,
                 60L,
                 TimeUnit.SECONDS,
-                new LinkedBlockingQueue<>(1000),
+                new LinkedBlockingQueue<>(queueSize),
                 r -> new Thread(r, "xxl-rpc, " + serverType + "-serverHandlerPool-" + r.hashCode()),
                 (r, executor) -> {
-                    throw new XxlRpcException("xxl-rpc " + serverType + " Thread pool is EXHAUSTED!");
+                    throw new RejectedExecutionException("xxl-rpc " + serverType + " Thread pool is EXHAUSTED!");
                 });        // default maxThreads 300, minThreads 60
 
         return serverHandlerPool;
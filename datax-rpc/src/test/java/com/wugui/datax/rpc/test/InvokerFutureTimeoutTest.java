@@ -0,0 +1,74 @@
+package com.wugui.datax.rpc.test;
+
+import com.wugui.datax.rpc.remoting.invoker.XxlRpcInvokerFactory;
+import com.wugui.datax.rpc.remoting.invoker.call.XxlRpcInvokeCallback;
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcFutureResponse;
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcRequest;
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * callback futures without response are failed by the timeout wheel, request id cost vs uuid
+ */
+public class InvokerFutureTimeoutTest {
+
+    private static final int FUTURES = 10000;
+
+    public static void main(String[] args) throws Exception {
+        XxlRpcInvokerFactory invokerFactory = new XxlRpcInvokerFactory();
+
+        // callback timeout, half of the requests answered
+        final CountDownLatch latch = new CountDownLatch(FUTURES);
+        final AtomicInteger success = new AtomicInteger();
+        final AtomicInteger failure = new AtomicInteger();
+        XxlRpcInvokeCallback<Object> callback = new XxlRpcInvokeCallback<Object>() {
+            @Override
+            public void onSuccess(Object result) {
+                success.incrementAndGet();
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable exception) {
+                failure.incrementAndGet();
+                latch.countDown();
+            }
+        };
+        for (int i = 0; i < FUTURES; i++) {
+            XxlRpcRequest request = new XxlRpcRequest();
+            request.setRequestId(invokerFactory.nextRequestId());
+            new XxlRpcFutureResponse(invokerFactory, request, callback, 300);
+
+            if (i % 2 == 0) {
+                XxlRpcResponse response = new XxlRpcResponse();
+                response.setRequestId(request.getRequestId());
+                response.setResult("ok");
+                invokerFactory.notifyInvokerFuture(request.getRequestId(), response);
+            }
+        }
+        boolean done = latch.await(5, TimeUnit.SECONDS);
+        System.out.println("done = " + done + ", success = " + success.get() + ", failure = " + failure.get()
+                + ", timeoutCount = " + invokerFactory.getTimeoutCount() + ", pending = " + invokerFactory.getPendingCount());
+
+        // request id
+        int count = 1000000;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            invokerFactory.nextRequestId();
+        }
+        long idCost = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            UUID.randomUUID().toString();
+        }
+        long uuidCost = System.nanoTime() - start;
+        System.out.println("request id = " + invokerFactory.nextRequestId() + ", " + idCost / count + "ns, uuid = " + uuidCost / count + "ns");
+
+        invokerFactory.stop();
+    }
+
+}
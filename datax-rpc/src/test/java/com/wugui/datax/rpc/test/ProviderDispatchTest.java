@@ -0,0 +1,145 @@
+package com.wugui.datax.rpc.test;
+
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcRequest;
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
+import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
+import com.wugui.datax.rpc.remoting.provider.XxlRpcServiceMethod;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * provider dispatch, pre-bound service method vs getMethod + Method.invoke per call:
+ * same result, same exception, overloads, primitive and no-arg methods, counted in metrics,
+ * erased parameter types of a generic interface still resolve through the bridge method
+ */
+public class ProviderDispatchTest {
+
+    public static class DemoService {
+        public String run(String jobParam, Integer logId) {
+            return jobParam + "#" + logId;
+        }
+
+        public String run(String jobParam) {
+            return jobParam;
+        }
+
+        public long sum(int a, long b) {
+            return a + b;
+        }
+
+        public String ping() {
+            return "pong";
+        }
+
+        public String fail(String message) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    public interface GenericService<T> {
+        String handle(T param);
+    }
+
+    public static class StringService implements GenericService<String> {
+        @Override
+        public String handle(String param) {
+            return "handle " + param;
+        }
+    }
+
+    private static final int CALLS = 1000;
+
+    private static int calls = 0;
+    private static int errors = 0;
+
+    public static void main(String[] args) throws Throwable {
+        DemoService serviceBean = new DemoService();
+
+        check(serviceBean, "run", new Class<?>[]{String.class, Integer.class}, new Object[]{"{\"job\":{}}", 1});
+        check(serviceBean, "run", new Class<?>[]{String.class}, new Object[]{"{\"job\":{}}"});
+        check(serviceBean, "run", new Class<?>[]{String.class, Integer.class}, new Object[]{null, null});
+        check(serviceBean, "sum", new Class<?>[]{int.class, long.class}, new Object[]{1, 2L});
+        check(serviceBean, "ping", new Class<?>[0], new Object[0]);
+        check(serviceBean, "fail", new Class<?>[]{String.class}, new Object[]{"bad param"});
+
+        // no-arg request may carry null parameter types
+        XxlRpcServiceMethod ping = new XxlRpcServiceMethod(serviceBean, DemoService.class.getMethod("ping"));
+        assertTrue("ping matches null parameter types", ping.match(null));
+        assertTrue("ping not matches run(String)", !ping.match(new Class<?>[]{String.class}));
+
+        // generic interface, erased (bridge) and declared parameter types
+        checkBridge(new Class<?>[]{Object.class});
+        checkBridge(new Class<?>[]{String.class});
+
+        System.out.println("ok, " + calls + " calls, " + errors + " errors");
+    }
+
+    private static void check(DemoService serviceBean, String name, Class<?>[] parameterTypes, Object[] parameters) throws Throwable {
+        Method method = DemoService.class.getMethod(name, parameterTypes);
+        XxlRpcServiceMethod serviceMethod = new XxlRpcServiceMethod(serviceBean, method);
+        assertTrue(serviceMethod.getSignature() + " matches its own parameter types", serviceMethod.match(parameterTypes));
+
+        int methodErrors = 0;
+        for (int i = 0; i < CALLS; i++) {
+            Object expected = null;
+            Throwable expectedError = null;
+            try {
+                expected = method.invoke(serviceBean, parameters);
+            } catch (InvocationTargetException e) {
+                expectedError = e.getCause();
+            }
+
+            Object actual = null;
+            Throwable actualError = null;
+            try {
+                actual = serviceMethod.invoke(parameters);
+            } catch (Throwable t) {
+                actualError = t;
+            }
+
+            assertTrue(serviceMethod.getSignature() + " result " + actual + ", expected " + expected, Objects.equals(expected, actual));
+            if (expectedError != null) {
+                methodErrors++;
+                assertTrue(serviceMethod.getSignature() + " throws the service exception itself, not wrapped: " + actualError,
+                        actualError != null && actualError.getClass() == expectedError.getClass()
+                                && Objects.equals(expectedError.getMessage(), actualError.getMessage()));
+            } else {
+                assertTrue(serviceMethod.getSignature() + " unexpected error " + actualError, actualError == null);
+            }
+        }
+
+        Map<String, Object> metrics = serviceMethod.metrics();
+        assertTrue(serviceMethod.getSignature() + " calls " + metrics, ((Long) metrics.get("calls")) == CALLS);
+        assertTrue(serviceMethod.getSignature() + " errors " + metrics, ((Long) metrics.get("errors")) == methodErrors);
+        calls += CALLS;
+        errors += methodErrors;
+    }
+
+    private static void checkBridge(Class<?>[] parameterTypes) {
+        XxlRpcProviderFactory providerFactory = new XxlRpcProviderFactory();
+        providerFactory.addService(GenericService.class.getName(), null, new StringService());
+
+        XxlRpcRequest request = new XxlRpcRequest();
+        request.setRequestId("1");
+        request.setCreateMillisTime(System.currentTimeMillis());
+        request.setClassName(GenericService.class.getName());
+        request.setMethodName("handle");
+        request.setParameterTypes(parameterTypes);
+        request.setParameters(new Object[]{"job"});
+
+        XxlRpcResponse response = providerFactory.invokeService(request);
+        assertTrue("handle" + Arrays.toString(parameterTypes) + " error " + response.getErrorMsg(),
+                response.getErrorMsg() == null && "handle job".equals(response.getResult()));
+    }
+
+    private static void assertTrue(String message, boolean condition) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+}
@@ -2,6 +2,8 @@ package com.wugui.datax.rpc.test;
 
 import com.wugui.datax.rpc.serialize.Serializer;
 import com.wugui.datax.rpc.serialize.impl.HessianSerializer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -19,6 +21,15 @@ public class SerializerTest {
             map.put("aaa", "111");
             map.put("bbb", "222");
             System.out.println(serializer.deserialize(serializer.serialize("ddddddd"), String.class));
+
+            // pooled direct buffer, no heap array in between
+            ByteBuf byteBuf = PooledByteBufAllocator.DEFAULT.directBuffer();
+            try {
+                serializer.serialize(map, byteBuf);
+                System.out.println(serializer.deserialize(byteBuf, Map.class));
+            } finally {
+                byteBuf.release();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
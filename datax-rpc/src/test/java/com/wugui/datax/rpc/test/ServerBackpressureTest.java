@@ -0,0 +1,111 @@
+package com.wugui.datax.rpc.test;
+
+import com.wugui.datax.rpc.remoting.invoker.XxlRpcInvokerFactory;
+import com.wugui.datax.rpc.remoting.invoker.call.CallType;
+import com.wugui.datax.rpc.remoting.invoker.call.XxlRpcInvokeCallback;
+import com.wugui.datax.rpc.remoting.invoker.reference.XxlRpcReferenceBean;
+import com.wugui.datax.rpc.remoting.invoker.route.LoadBalance;
+import com.wugui.datax.rpc.remoting.net.NetEnum;
+import com.wugui.datax.rpc.remoting.net.params.XxlRpcResponse;
+import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
+import com.wugui.datax.rpc.serialize.impl.HessianSerializer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * a slow provider with a small pool, a burst of callback calls: busy answered at once, none lost
+ */
+public class ServerBackpressureTest {
+
+    public interface SlowService {
+        String sleep(String message);
+    }
+
+    public static class SlowServiceImpl implements SlowService {
+        @Override
+        public String sleep(String message) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return message;
+        }
+    }
+
+    private static final int CALLS = 3000;
+
+    public static void main(String[] args) throws Exception {
+        int port = 7091;
+        for (NetEnum netEnum : NetEnum.values()) {
+            run(netEnum, port++);
+        }
+        XxlRpcInvokerFactory.getInstance().stop();
+    }
+
+    private static void run(NetEnum netEnum, int port) throws Exception {
+        // provider
+        XxlRpcProviderFactory providerFactory = new XxlRpcProviderFactory();
+        providerFactory.setServer(netEnum.serverClass);
+        providerFactory.setSerializer(HessianSerializer.class);
+        providerFactory.setCorePoolSize(2);
+        providerFactory.setMaxPoolSize(2);
+        providerFactory.setIp("127.0.0.1");
+        providerFactory.setPort(port);
+        providerFactory.addService(SlowService.class.getName(), null, new SlowServiceImpl());
+        providerFactory.start();
+        Thread.sleep(1000);
+
+        // invoker
+        final CountDownLatch latch = new CountDownLatch(CALLS);
+        final AtomicInteger success = new AtomicInteger();
+        final AtomicInteger busy = new AtomicInteger();
+        final AtomicInteger failure = new AtomicInteger();
+        XxlRpcReferenceBean referenceBean = new XxlRpcReferenceBean();
+        referenceBean.setClient(netEnum.clientClass);
+        referenceBean.setSerializer(HessianSerializer.class);
+        referenceBean.setCallType(CallType.CALLBACK);
+        referenceBean.setLoadBalance(LoadBalance.ROUND);
+        referenceBean.setIface(SlowService.class);
+        referenceBean.setTimeout(30000);
+        referenceBean.setAddress("127.0.0.1:" + port);
+        referenceBean.setInvokeCallback(new XxlRpcInvokeCallback<String>() {
+            @Override
+            public void onSuccess(String result) {
+                success.incrementAndGet();
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable exception) {
+                if (XxlRpcResponse.isServerBusy(exception.getMessage())) {
+                    busy.incrementAndGet();
+                } else {
+                    failure.incrementAndGet();
+                }
+                latch.countDown();
+            }
+        });
+        SlowService slowService = (SlowService) referenceBean.getObject();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < CALLS; i++) {
+            try {
+                slowService.sleep("burst");
+            } catch (Exception e) {
+                // client side pending limit
+                failure.incrementAndGet();
+                latch.countDown();
+            }
+        }
+        boolean done = latch.await(60, TimeUnit.SECONDS);
+        System.out.println(netEnum.name() + ": done = " + done + ", cost = " + (System.currentTimeMillis() - start) + "ms"
+                + ", success = " + success.get() + ", busy = " + busy.get() + ", failure = " + failure.get()
+                + ", server = " + providerFactory.getServerMetrics());
+
+        providerFactory.stop();
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.wugui.datax.rpc.test;
+
+import com.wugui.datax.rpc.remoting.invoker.XxlRpcInvokerFactory;
+import com.wugui.datax.rpc.remoting.invoker.call.CallType;
+import com.wugui.datax.rpc.remoting.invoker.reference.XxlRpcReferenceBean;
+import com.wugui.datax.rpc.remoting.invoker.route.LoadBalance;
+import com.wugui.datax.rpc.remoting.net.NetEnum;
+import com.wugui.datax.rpc.remoting.provider.XxlRpcProviderFactory;
+import com.wugui.datax.rpc.serialize.impl.HessianSerializer;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * concurrent sync calls over one client per transport, netty and netty_http, on localhost:
+ * every reply matches its own request, none fails or waits up to the call timeout
+ */
+public class TransportEchoTest {
+
+    public interface EchoService {
+        String echo(String message);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+        @Override
+        public String echo(String message) {
+            return message;
+        }
+    }
+
+    private static final int THREADS = 16;
+    private static final int CALLS = 5000;
+    private static final long TIMEOUT = 3000;
+
+    public static void main(String[] args) throws Exception {
+        int port = 7081;
+        for (NetEnum netEnum : NetEnum.values()) {
+            run(netEnum, port++);
+        }
+        XxlRpcInvokerFactory.getInstance().stop();
+    }
+
+    private static void run(NetEnum netEnum, int port) throws Exception {
+        // provider
+        XxlRpcProviderFactory providerFactory = new XxlRpcProviderFactory();
+        providerFactory.setServer(netEnum.serverClass);
+        providerFactory.setSerializer(HessianSerializer.class);
+        providerFactory.setCorePoolSize(THREADS);
+        providerFactory.setMaxPoolSize(THREADS * 2);
+        providerFactory.setIp("127.0.0.1");
+        providerFactory.setPort(port);
+        providerFactory.addService(EchoService.class.getName(), null, new EchoServiceImpl());
+        providerFactory.start();
+        Thread.sleep(1000);
+
+        // invoker
+        XxlRpcReferenceBean referenceBean = new XxlRpcReferenceBean();
+        referenceBean.setClient(netEnum.clientClass);
+        referenceBean.setSerializer(HessianSerializer.class);
+        referenceBean.setCallType(CallType.SYNC);
+        referenceBean.setLoadBalance(LoadBalance.ROUND);
+        referenceBean.setIface(EchoService.class);
+        referenceBean.setVersion(null);
+        referenceBean.setTimeout(TIMEOUT);
+        referenceBean.setAddress("127.0.0.1:" + port);
+        referenceBean.setAccessToken(null);
+        referenceBean.setInvokeCallback(null);
+        referenceBean.setInvokerFactory(null);
+        final EchoService echoService = (EchoService) referenceBean.getObject();
+
+        // warm up
+        for (int i = 0; i < 2000; i++) {
+            echoService.echo("warm up");
+        }
+
+        // concurrent sync calls, each with its own message
+        final long[][] latencies = new long[THREADS][CALLS];
+        final AtomicInteger mismatch = new AtomicInteger();
+        final AtomicInteger failure = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            final long[] threadLatencies = latencies[t];
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < CALLS; i++) {
+                        String message = "trigger param " + thread + "-" + i;
+                        long callStart = System.nanoTime();
+                        try {
+                            if (!message.equals(echoService.echo(message))) {
+                                mismatch.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failure.incrementAndGet();
+                        }
+                        threadLatencies[i] = System.nanoTime() - callStart;
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        boolean done = latch.await(60, TimeUnit.SECONDS);
+        providerFactory.stop();
+
+        long[] all = new long[THREADS * CALLS];
+        for (int t = 0; t < THREADS; t++) {
+            System.arraycopy(latencies[t], 0, all, t * CALLS, CALLS);
+        }
+        Arrays.sort(all);
+        long maxMs = TimeUnit.NANOSECONDS.toMillis(all[all.length - 1]);
+
+        if (!done || mismatch.get() > 0 || failure.get() > 0 || maxMs >= TIMEOUT) {
+            throw new IllegalStateException(netEnum.name() + ": done = " + done + ", mismatch = " + mismatch.get()
+                    + ", failure = " + failure.get() + ", max = " + maxMs + "ms");
+        }
+        System.out.println(netEnum.name() + ": ok, " + all.length + " calls, max = " + maxMs + "ms");
+    }
+
+}